@@ -1,6 +1,9 @@
 package com.java.zoo;
 
 import com.java.zoo.service.CommandLineService;
+import com.java.zoo.service.SnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
@@ -8,26 +11,55 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import java.io.IOException;
+import java.nio.file.Files;
 
 @SpringBootApplication
 public class ZooApplication implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(ZooApplication.class);
+
     @Autowired
     private CommandLineService commandLineService;
 
+    @Autowired
+    private SnapshotService snapshotService;
+
     @Value("${load.default-data}")
     private boolean loadData;
 
+    @Value("${load.async:false}")
+    private boolean loadAsync;
+
+    @Value("${load.snapshot.restore:false}")
+    private boolean restoreSnapshot;
+
     public static void main(String[] args) {
         SpringApplication.run(ZooApplication.class, args);
     }
 
 
     public void run(String... params) throws IOException {
-        commandLineService.loadUsers();
-        if (loadData) {
-            //Load default data for room and animal. This flag will be false by default
-            commandLineService.saveRoomData();
-            commandLineService.saveAnimalData();
+        if (!loadAsync) {
+            load();
+            return;
+        }
+        // Startup completes right away, the readiness probe and the request gate follow the load
+        Thread loader = new Thread(() -> {
+            try {
+                load();
+            } catch (IOException | RuntimeException e) {
+                log.error("Loading of the seed data failed", e);
+            }
+        }, "data-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() throws IOException {
+        if (restoreSnapshot && Files.exists(snapshotService.getSnapshotPath())) {
+            snapshotService.restore();
+        } else {
+            //Load default data for room and animal only when the flag is set. This flag will be false by default
+            commandLineService.loadAll(loadData);
         }
     }
 }
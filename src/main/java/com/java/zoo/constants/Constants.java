@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public final class Constants {
     public static final String LOGIN_REGEX = "^(?>[a-zA-Z0-9!$&*+=?^_`{|}~.-]+@[a-zA-Z0-9-]+(?:\\.[a-zA-Z0-9-]+)*)|(?>[_.@A-Za-z0-9-]+)$";
+    public static final String BCRYPT_HASH_REGEX = "^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$";
     public static final String ANONYMOUS_USER = "anonymoususer";
     public static final String CREATED_BY = "SYSTEM";
     public static final String ANIMAL_ENTITY_NAME = "animal";
+    // rows per round trip of the export cursors, MySQL only streams them with useCursorFetch=true
+    public static final String EXPORT_FETCH_SIZE = "1000";
 }
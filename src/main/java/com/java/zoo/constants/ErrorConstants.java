@@ -13,5 +13,7 @@ public final class ErrorConstants {
     public static final URI DEFAULT_TYPE = URI.create(PROBLEM_BASE_URL + "/problem-with-message");
     public static final URI EMAIL_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/email-already-used");
     public static final URI LOGIN_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/login-already-used");
+    public static final URI SERVICE_UNAVAILABLE_TYPE = URI.create(PROBLEM_BASE_URL + "/service-unavailable");
+    public static final URI DATA_LOAD_FAILED_TYPE = URI.create(PROBLEM_BASE_URL + "/data-load-failed");
     public static final String ERR_VALIDATION = "error.validation";
 }
@@ -0,0 +1,39 @@
+package com.java.zoo.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * An animal as read by the list endpoints, with the room it is in (null if in none) but not its favorites.
+ */
+@Getter
+@ToString
+public class AnimalDTO {
+
+    private final Long id;
+
+    private final String title;
+
+    private final Instant located;
+
+    private final String type;
+
+    private final Long preference;
+
+    private final RoomDTO room;
+
+    /**
+     * The columns of the animal and of its room (all null if in no room), in the order a query selects them.
+     */
+    public AnimalDTO(Long id, String title, Instant located, String type, Long preference,
+                     Long roomId, String roomTitle, Long roomSize, Instant roomCreated) {
+        this.id = id;
+        this.title = title;
+        this.located = located;
+        this.type = type;
+        this.preference = preference;
+        this.room = roomId == null ? null : new RoomDTO(roomId, roomTitle, roomSize, roomCreated);
+    }
+}
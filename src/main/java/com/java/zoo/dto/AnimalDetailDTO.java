@@ -0,0 +1,66 @@
+package com.java.zoo.dto;
+
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Favorite;
+import com.java.zoo.entity.Room;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * An animal with its room and favorite rooms, the body of the single animal endpoints.
+ */
+@Getter
+@ToString(callSuper = true)
+public class AnimalDetailDTO extends AnimalDTO {
+
+    private final List<FavoriteDTO> favorites;
+
+    public AnimalDetailDTO(Long id, String title, Instant located, String type, Long preference,
+                           Long roomId, String roomTitle, Long roomSize, Instant roomCreated, List<FavoriteDTO> favorites) {
+        super(id, title, located, type, preference, roomId, roomTitle, roomSize, roomCreated);
+        this.favorites = favorites;
+    }
+
+    /**
+     * Fold the rows of {@code AnimalRepository.findDetailById}, one per favorite or a single one without any.
+     *
+     * @return the animal, or empty if there are no rows.
+     */
+    public static Optional<AnimalDetailDTO> of(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] first = rows.get(0);
+        List<FavoriteDTO> favorites = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[9] != null) {
+                favorites.add(new FavoriteDTO((Long) row[9], (Long) row[10], (Long) first[0]));
+            }
+        }
+        return Optional.of(new AnimalDetailDTO((Long) first[0], (String) first[1], (Instant) first[2], (String) first[3], (Long) first[4],
+                (Long) first[5], (String) first[6], (Long) first[7], (Instant) first[8], favorites));
+    }
+
+    /**
+     * Copy an animal whose room and favorites were fetched with it, as by {@code AnimalRepository.findWithRoomById}.
+     */
+    public static AnimalDetailDTO of(Animal animal) {
+        Room room = animal.getRoom();
+        List<FavoriteDTO> favorites = animal.getFavorites().stream()
+                .sorted(Comparator.comparing(Favorite::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(favorite -> new FavoriteDTO(favorite.getId(), favorite.getRoomId(), animal.getId()))
+                .collect(Collectors.toList());
+        return room == null
+                ? new AnimalDetailDTO(animal.getId(), animal.getTitle(), animal.getLocated(), animal.getType(), animal.getPreference(),
+                null, null, null, null, favorites)
+                : new AnimalDetailDTO(animal.getId(), animal.getTitle(), animal.getLocated(), animal.getType(), animal.getPreference(),
+                room.getId(), room.getTitle(), room.getSize(), room.getCreated(), favorites);
+    }
+}
@@ -0,0 +1,72 @@
+package com.java.zoo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of one operation of a batch, in the order of the request.
+ */
+@Getter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult implements Serializable {
+    private static final long serialVersionUID = 4415020936265340217L;
+
+    public enum Status {
+        /**
+         * Written.
+         */
+        APPLIED,
+        /**
+         * Failed validation, {@code errorKey} tells why.
+         */
+        REJECTED,
+        /**
+         * Valid but not written because another operation of an all-or-nothing batch failed.
+         */
+        SKIPPED
+    }
+
+    private final int index;
+
+    private final BatchOperationType type;
+
+    private final Long animalId;
+
+    private final Long roomId;
+
+    private Status status;
+
+    /**
+     * Same keys as the single animal endpoints, e.g. {@code animalidwrong} or {@code roomidassignedalready}.
+     */
+    private String errorKey;
+
+    private String message;
+
+    public BatchItemResult(int index, BatchOperation operation) {
+        this.index = index;
+        this.type = operation.getType();
+        this.animalId = operation.getAnimalId();
+        this.roomId = operation.getRoomId();
+    }
+
+    public void applied() {
+        status = Status.APPLIED;
+        errorKey = null;
+        message = null;
+    }
+
+    public void rejected(String errorKey, String message) {
+        status = Status.REJECTED;
+        this.errorKey = errorKey;
+        this.message = message;
+    }
+
+    public void skipped() {
+        status = Status.SKIPPED;
+    }
+}
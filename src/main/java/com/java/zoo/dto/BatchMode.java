@@ -0,0 +1,15 @@
+package com.java.zoo.dto;
+
+/**
+ * How {@code POST /api/batch} treats operations which fail validation.
+ */
+public enum BatchMode {
+    /**
+     * Nothing is written if any operation fails.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * The valid operations are written, the failing ones are reported.
+     */
+    BEST_EFFORT
+}
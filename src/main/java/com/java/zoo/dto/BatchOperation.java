@@ -0,0 +1,34 @@
+package com.java.zoo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * One operation of a {@link BatchRequest}.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchOperation implements Serializable {
+    private static final long serialVersionUID = -2318846406711352150L;
+
+    @JsonProperty("type")
+    @NotNull
+    private BatchOperationType type;
+
+    @JsonProperty("animalId")
+    @NotNull
+    private Long animalId;
+
+    /**
+     * Required by every type but {@link BatchOperationType#REMOVE}.
+     */
+    @JsonProperty("roomId")
+    private Long roomId;
+
+}
@@ -0,0 +1,27 @@
+package com.java.zoo.dto;
+
+/**
+ * Operations accepted by {@code POST /api/batch}, one per single animal endpoint.
+ */
+public enum BatchOperationType {
+    /**
+     * {@code PUT /animal/place}.
+     */
+    PLACE,
+    /**
+     * {@code PUT /animal/move}.
+     */
+    MOVE,
+    /**
+     * {@code DELETE /animal/remove/{animalId}}, the room id is not used.
+     */
+    REMOVE,
+    /**
+     * {@code POST /favorite/assign}.
+     */
+    ASSIGN_FAVORITE,
+    /**
+     * {@code DELETE /favorite/unassign}.
+     */
+    UNASSIGN_FAVORITE
+}
@@ -0,0 +1,30 @@
+package com.java.zoo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/batch}: operations applied in order, in one transaction.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchRequest implements Serializable {
+    private static final long serialVersionUID = 3950119327457712874L;
+
+    @JsonProperty("mode")
+    private BatchMode mode = BatchMode.ALL_OR_NOTHING;
+
+    @JsonProperty("operations")
+    @NotEmpty
+    @Valid
+    private List<BatchOperation> operations;
+
+}
@@ -0,0 +1,37 @@
+package com.java.zoo.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Response of {@code POST /api/batch}.
+ */
+@Getter
+@ToString
+public class BatchResult implements Serializable {
+    private static final long serialVersionUID = -6700465006409531418L;
+
+    private final BatchMode mode;
+
+    /**
+     * {@code false} if nothing was written.
+     */
+    private final boolean committed;
+
+    private final long applied;
+
+    private final long rejected;
+
+    private final List<BatchItemResult> results;
+
+    public BatchResult(BatchMode mode, boolean committed, List<BatchItemResult> results) {
+        this.mode = mode;
+        this.committed = committed;
+        this.results = results;
+        this.applied = results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.APPLIED).count();
+        this.rejected = results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.REJECTED).count();
+    }
+}
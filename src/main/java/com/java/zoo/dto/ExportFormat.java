@@ -0,0 +1,39 @@
+package com.java.zoo.dto;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Formats of the streaming export.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("ndjson", "application/x-ndjson"),
+    /**
+     * A header line with the field names, then one line per row.
+     */
+    CSV("csv", "text/csv");
+
+    private final String extension;
+
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static Optional<ExportFormat> fromExtension(String extension) {
+        return Arrays.stream(values()).filter(format -> format.extension.equalsIgnoreCase(extension)).findFirst();
+    }
+}
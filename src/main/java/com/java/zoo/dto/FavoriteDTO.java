@@ -0,0 +1,20 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A favorite room of an animal as read by the endpoints, the animal only by its id.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class FavoriteDTO {
+
+    private final Long id;
+
+    private final Long roomId;
+
+    private final Long animalId;
+}
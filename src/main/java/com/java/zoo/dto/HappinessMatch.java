@@ -0,0 +1,38 @@
+package com.java.zoo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * A room which would make an animal happy, with its size, or an animal which would be happy in a room, with its
+ * type and preference.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HappinessMatch implements Serializable {
+    private static final long serialVersionUID = -8826127013596771904L;
+
+    private final Long id;
+
+    private final String title;
+
+    private final Long size;
+
+    private final String type;
+
+    private final Long preference;
+
+    public static HappinessMatch room(Long id, String title, Long size) {
+        return new HappinessMatch(id, title, size, null, null);
+    }
+
+    public static HappinessMatch animal(Long id, String title, String type, Long preference) {
+        return new HappinessMatch(id, title, null, type, preference);
+    }
+}
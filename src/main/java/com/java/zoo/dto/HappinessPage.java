@@ -0,0 +1,25 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a happiness range query.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class HappinessPage implements Serializable {
+    private static final long serialVersionUID = 4902734108436420178L;
+
+    private final List<HappinessMatch> matches;
+
+    /**
+     * Opaque position after the last match, null on the last page.
+     */
+    private final String nextCursor;
+}
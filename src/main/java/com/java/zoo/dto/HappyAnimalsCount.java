@@ -0,0 +1,21 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Happy animal count of a room, served from the maintained counters instead of the aggregation query.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class HappyAnimalsCount implements HappyAnimalsJsonObject, Serializable {
+    private static final long serialVersionUID = 2196442339853287733L;
+
+    private final String roomtitle;
+
+    private final Long happyAnimals;
+}
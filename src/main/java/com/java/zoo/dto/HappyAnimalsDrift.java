@@ -0,0 +1,59 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the consistency check of the happy animal counters: the rooms whose maintained count differed from the
+ * one recomputed from the tables.
+ */
+@Getter
+@ToString
+public class HappyAnimalsDrift implements Serializable {
+    private static final long serialVersionUID = -1580374915040913612L;
+
+    private final long checkedAt = System.currentTimeMillis();
+
+    private final int roomCount;
+
+    private final int placedAnimalCount;
+
+    private final List<RoomDrift> rooms = new ArrayList<>();
+
+    public HappyAnimalsDrift(int roomCount, int placedAnimalCount) {
+        this.roomCount = roomCount;
+        this.placedAnimalCount = placedAnimalCount;
+    }
+
+    public void roomDrifted(Long roomId, String title, long expectedHappy, long maintainedHappy, int expectedAnimals, int maintainedAnimals) {
+        rooms.add(new RoomDrift(roomId, title, expectedHappy, maintainedHappy, expectedAnimals, maintainedAnimals));
+    }
+
+    public boolean isConsistent() {
+        return rooms.isEmpty();
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class RoomDrift implements Serializable {
+        private static final long serialVersionUID = 5311620164826478216L;
+
+        private final Long roomId;
+
+        private final String title;
+
+        private final long expectedHappy;
+
+        private final long maintainedHappy;
+
+        private final int expectedAnimals;
+
+        private final int maintainedAnimals;
+    }
+}
@@ -0,0 +1,58 @@
+package com.java.zoo.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Counters of a CSV import run.
+ */
+@Getter
+@ToString
+public class ImportReport implements Serializable {
+    private static final long serialVersionUID = 4377461726404926310L;
+
+    private final String entityName;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private long read;
+
+    private long imported;
+
+    private long rejected;
+
+    public ImportReport(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public void rowRead() {
+        read++;
+    }
+
+    public void rowsRead(long count) {
+        read += count;
+    }
+
+    public void rowsImported(long count) {
+        imported += count;
+    }
+
+    public void rowRejected() {
+        rejected++;
+    }
+
+    public void rowsRejected(long count) {
+        rejected += count;
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    public long getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? imported : imported * 1000 / elapsed;
+    }
+}
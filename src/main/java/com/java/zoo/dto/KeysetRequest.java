@@ -0,0 +1,143 @@
+package com.java.zoo.dto;
+
+import com.java.zoo.exception.BadRequestAlertException;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Position, order and size of one page of a list endpoint, read from its {@code sort}, {@code cursor}, {@code limit}
+ * and {@code total} parameters.
+ * <p>
+ * Rows are ordered by the sort field then id, a page starts after the row encoded in the cursor. The cursor carries
+ * the order it was made for, it is rejected with another one.
+ */
+@Getter
+@ToString
+public final class KeysetRequest {
+    private static final String ENTITY_NAME = "Page";
+
+    /**
+     * Fields a list can be sorted by.
+     */
+    public enum Field {
+        ID("id", Long::valueOf, null),
+        /**
+         * Animals without a location sort as located at the epoch.
+         */
+        LOCATED("located", Instant::parse, Instant.EPOCH);
+
+        private final String attribute;
+
+        private final Function<String, Object> parser;
+
+        private final Object nullValue;
+
+        Field(String attribute, Function<String, Object> parser, Object nullValue) {
+            this.attribute = attribute;
+            this.parser = parser;
+            this.nullValue = nullValue;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        /**
+         * Value sorted by in place of null, null if the field is never null.
+         */
+        public Object getNullValue() {
+            return nullValue;
+        }
+    }
+
+    private final Field field;
+
+    private final boolean descending;
+
+    /**
+     * Sort field value and id of the last row of the previous page, null for the first page.
+     */
+    private final Object afterValue;
+
+    private final Long afterId;
+
+    private final int limit;
+
+    private final boolean withTotal;
+
+    private KeysetRequest(Field field, boolean descending, Object afterValue, Long afterId, int limit, boolean withTotal) {
+        this.field = field;
+        this.descending = descending;
+        this.afterValue = afterValue;
+        this.afterId = afterId;
+        this.limit = limit;
+        this.withTotal = withTotal;
+    }
+
+    /**
+     * @param sort    {@code field} or {@code field,asc|desc}, by id ascending if null.
+     * @param cursor  the {@code X-Next-Cursor} of the previous page, null for the first page.
+     * @param limit   the page size, {@code defaultLimit} if null and at most {@code maxLimit}.
+     * @param total   whether the rows matching the filters are counted.
+     * @param allowed the fields the list may be sorted by besides id.
+     * @throws BadRequestAlertException if the sort field is not allowed or the cursor is not one of this order.
+     */
+    public static KeysetRequest of(String sort, String cursor, Integer limit, boolean total, int defaultLimit, int maxLimit,
+                                   Field... allowed) {
+        Field field = Field.ID;
+        boolean descending = false;
+        if (sort != null && !sort.isEmpty()) {
+            String[] parts = sort.split(",");
+            field = Arrays.stream(Field.values())
+                    .filter(candidate -> candidate.attribute.equals(parts[0].trim()))
+                    .filter(candidate -> candidate == Field.ID || Arrays.asList(allowed).contains(candidate))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequestAlertException("List cannot be sorted by " + parts[0], ENTITY_NAME, "sortwrong"));
+            if (parts.length > 2 || (parts.length == 2 && !parts[1].trim().matches("(?i)asc|desc"))) {
+                throw new BadRequestAlertException("Sort direction has to be asc or desc", ENTITY_NAME, "sortwrong");
+            }
+            descending = parts.length == 2 && "desc".equalsIgnoreCase(parts[1].trim());
+        }
+        int size = Math.max(1, Math.min(limit == null ? defaultLimit : limit, maxLimit));
+        if (cursor == null || cursor.isEmpty()) {
+            return new KeysetRequest(field, descending, null, null, size, total);
+        }
+        // field:direction:id by id, field:direction:value:id otherwise, the value of located contains colons itself
+        String prefix = field.attribute + ":" + (descending ? "desc" : "asc") + ":";
+        if (!cursor.startsWith(prefix)) {
+            throw wrongCursor();
+        }
+        try {
+            if (field == Field.ID) {
+                Long afterId = Long.valueOf(cursor.substring(prefix.length()));
+                return new KeysetRequest(field, descending, afterId, afterId, size, total);
+            }
+            int lastColon = cursor.lastIndexOf(':');
+            if (lastColon < prefix.length()) {
+                throw wrongCursor();
+            }
+            Long afterId = Long.valueOf(cursor.substring(lastColon + 1));
+            Object afterValue = field.parser.apply(cursor.substring(prefix.length(), lastColon));
+            return new KeysetRequest(field, descending, afterValue, afterId, size, total);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw wrongCursor();
+        }
+    }
+
+    /**
+     * The cursor of the page following the row with this sort field value and id.
+     */
+    public String cursorAfter(Object value, Long id) {
+        Object key = value == null ? field.nullValue : value;
+        return field.attribute + ":" + (descending ? "desc" : "asc") + ":" + (field == Field.ID ? id : key + ":" + id);
+    }
+
+    private static BadRequestAlertException wrongCursor() {
+        return new BadRequestAlertException("Cursor is not valid for this query, request cannot be completed", ENTITY_NAME, "cursorwrong");
+    }
+}
@@ -0,0 +1,34 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a list endpoint, without the count of all rows unless it was asked for.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    /**
+     * Opaque position after the last row, null on the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * Rows matching the filters over all pages, null unless {@link KeysetRequest#isWithTotal()}.
+     */
+    private final Long total;
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetSlice<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor, total);
+    }
+}
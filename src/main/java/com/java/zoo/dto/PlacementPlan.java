@@ -0,0 +1,54 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Room assignment computed by the placement optimizer, with the batch which applies it.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PlacementPlan implements Serializable {
+    private static final long serialVersionUID = 1885418924720005227L;
+
+    private final PlacementScope scope;
+
+    /**
+     * Animals the plan assigned a room to.
+     */
+    private final int animals;
+
+    /**
+     * Animals of the scope which are happy in their planned room.
+     */
+    private final int happyAnimals;
+
+    /**
+     * Animals of the scope planned in one of their favorite rooms.
+     */
+    private final int favoriteMatches;
+
+    /**
+     * Animals of the scope left without a room for lack of capacity.
+     */
+    private final int unassigned;
+
+    private final long score;
+
+    /**
+     * Searches run in parallel, the best one was kept.
+     */
+    private final int workers;
+
+    private final long elapsedMillis;
+
+    /**
+     * The operations turning the current placement into the plan, for {@code POST /api/batch}.
+     */
+    @ToString.Exclude
+    private final BatchRequest batch;
+}
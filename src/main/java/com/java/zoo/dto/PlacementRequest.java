@@ -0,0 +1,45 @@
+package com.java.zoo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import javax.validation.constraints.Positive;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Body of {@code POST /api/placements/plan} and {@code /apply}.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlacementRequest implements Serializable {
+    private static final long serialVersionUID = -4203619871937413384L;
+
+    @JsonProperty("scope")
+    private PlacementScope scope = PlacementScope.UNPLACED;
+
+    /**
+     * Animals allowed in any room, no limit if null.
+     */
+    @JsonProperty("maxAnimalsPerRoom")
+    @Positive
+    private Integer maxAnimalsPerRoom;
+
+    /**
+     * Animals allowed in a room by room id, takes precedence over {@link #maxAnimalsPerRoom}.
+     */
+    @JsonProperty("roomCapacities")
+    private Map<Long, Integer> roomCapacities = new HashMap<>();
+
+    /**
+     * Time the search may take, {@code zoo.optimizer.time-budget-ms} if null.
+     */
+    @JsonProperty("timeBudgetMillis")
+    @Positive
+    private Long timeBudgetMillis;
+
+}
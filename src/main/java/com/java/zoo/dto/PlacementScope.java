@@ -0,0 +1,15 @@
+package com.java.zoo.dto;
+
+/**
+ * Animals the placement optimizer assigns rooms to.
+ */
+public enum PlacementScope {
+    /**
+     * Only the animals in no room, the placed ones stay where they are and count against the room capacities.
+     */
+    UNPLACED,
+    /**
+     * Every animal, moving an animal out of its current room costs a little so equal plans keep it where it is.
+     */
+    REBALANCE
+}
@@ -0,0 +1,44 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * State of the background rebalancer, returned by {@code /api/rebalancer}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RebalancerStatus implements Serializable {
+    private static final long serialVersionUID = 6142058417712355120L;
+
+    /**
+     * {@code zoo.rebalancer.enabled}, runs are only scheduled when set.
+     */
+    private final boolean enabled;
+
+    private final boolean paused;
+
+    private final long runs;
+
+    /**
+     * Moves and swaps applied since startup.
+     */
+    private final long movesApplied;
+
+    /**
+     * Proposed moves skipped because the animals had moved in the meantime.
+     */
+    private final long movesSkipped;
+
+    /**
+     * Null before the first run.
+     */
+    private final Instant lastRun;
+
+    private final int lastRunMoves;
+}
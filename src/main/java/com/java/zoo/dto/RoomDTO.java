@@ -0,0 +1,24 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A room as read by the endpoints, without its animals.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RoomDTO {
+
+    private final Long id;
+
+    private final String title;
+
+    private final Long size;
+
+    private final Instant created;
+}
@@ -0,0 +1,40 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Animals, happy animals and favorite matches of one room before and after a simulation.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RoomHappinessDelta implements Serializable {
+    private static final long serialVersionUID = 2571104236618702493L;
+
+    private final Long roomId;
+
+    private final String roomtitle;
+
+    private final int animalsBefore;
+
+    private final int animalsAfter;
+
+    private final int happyBefore;
+
+    private final int happyAfter;
+
+    /**
+     * Animals in the room which have it among their favorites, before and after.
+     */
+    private final int favoriteMatchesBefore;
+
+    private final int favoriteMatchesAfter;
+
+    public int getHappyDelta() {
+        return happyAfter - happyBefore;
+    }
+}
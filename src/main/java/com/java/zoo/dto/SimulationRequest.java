@@ -0,0 +1,27 @@
+package com.java.zoo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/simulations}: place, move and remove operations evaluated in order, nothing is written.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimulationRequest implements Serializable {
+    private static final long serialVersionUID = -1739024557730160852L;
+
+    @JsonProperty("operations")
+    @NotEmpty
+    @Valid
+    private List<BatchOperation> operations;
+
+}
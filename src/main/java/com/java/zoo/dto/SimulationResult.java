@@ -0,0 +1,44 @@
+package com.java.zoo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Response of {@code POST /api/simulations}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SimulationResult implements Serializable {
+    private static final long serialVersionUID = 8016373950164250198L;
+
+    /**
+     * When the state the operations were applied to was read.
+     */
+    private final Instant snapshotTaken;
+
+    private final long happyBefore;
+
+    private final long happyAfter;
+
+    private final long favoriteMatchesBefore;
+
+    private final long favoriteMatchesAfter;
+
+    /**
+     * Rooms whose animals changed, ordered by title.
+     */
+    private final List<RoomHappinessDelta> rooms;
+
+    /**
+     * Outcome of every operation in the order of the request, {@code APPLIED} meaning applied to the simulation.
+     */
+    private final List<BatchItemResult> results;
+
+    private final long elapsedMicros;
+}
@@ -0,0 +1,33 @@
+package com.java.zoo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Counters of a snapshot export or restore.
+ */
+@Getter
+@Setter
+@ToString
+public class SnapshotSummary implements Serializable {
+    private static final long serialVersionUID = -3311406251542880467L;
+
+    private String file;
+
+    private int version;
+
+    private long users;
+
+    private long rooms;
+
+    private long animals;
+
+    private long favorites;
+
+    private long bytes;
+
+    private long elapsedMillis;
+}
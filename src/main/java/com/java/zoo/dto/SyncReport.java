@@ -0,0 +1,76 @@
+package com.java.zoo.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Counters of a CSV sync run.
+ */
+@Getter
+@ToString
+public class SyncReport implements Serializable {
+    private static final long serialVersionUID = -5027366212430918716L;
+
+    private final String entityName;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private long read;
+
+    private long inserted;
+
+    private long updated;
+
+    private long deleted;
+
+    private long unchanged;
+
+    private long rejected;
+
+    private boolean skipped;
+
+    public SyncReport(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public void rowRead() {
+        read++;
+    }
+
+    public void rowsInserted(long count) {
+        inserted += count;
+    }
+
+    public void rowsUpdated(long count) {
+        updated += count;
+    }
+
+    public void rowsDeleted(long count) {
+        deleted += count;
+    }
+
+    public void rowUnchanged() {
+        unchanged++;
+    }
+
+    public void rowRejected() {
+        rejected++;
+    }
+
+    public void rowsRejected(long count) {
+        rejected += count;
+    }
+
+    /**
+     * The file did not change since the last sync and was not compared.
+     */
+    public void fileUnchanged() {
+        skipped = true;
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+}
@@ -1,7 +1,6 @@
 package com.java.zoo.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -19,7 +18,6 @@ import java.util.Set;
 @Table(name = "animal")
 @Getter
 @Setter
-@EqualsAndHashCode
 @ToString
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Animal implements Serializable {
@@ -51,9 +49,29 @@ public class Animal implements Serializable {
 
 
     @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @EqualsAndHashCode.Exclude
     @ToString.Exclude
     @JsonIgnoreProperties(value = "animals", allowSetters = true)
     private Room room;
 
+    /**
+     * Equal by id only, the lazy room and favorites are never touched. The hash is the id once persisted,
+     * an animal is only put in a hashed collection (Room.animals) after it got its id.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Animal)) {
+            return false;
+        }
+        // getId() so a lazy proxy compares by id without being initialized
+        return getId() != null && getId().equals(((Animal) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        Long id = getId();
+        return id == null ? 31 : id.hashCode();
+    }
 }
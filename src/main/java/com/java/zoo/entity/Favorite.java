@@ -1,7 +1,6 @@
 package com.java.zoo.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -16,7 +15,6 @@ import java.io.Serializable;
 @Table(name = "favorite")
 @Getter
 @Setter
-@EqualsAndHashCode
 @ToString
 public class Favorite implements Serializable {
 
@@ -31,9 +29,26 @@ public class Favorite implements Serializable {
     private Long roomId;
 
     @ManyToOne
-    @EqualsAndHashCode.Exclude
     @ToString.Exclude
     @JsonIgnoreProperties(value = "favorites", allowSetters = true)
     private Animal animal;
 
+    /**
+     * Equal by id only. The hash is constant, a favorite is added to Animal.favorites before it has an id.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Favorite)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((Favorite) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
 }
@@ -0,0 +1,70 @@
+package com.java.zoo.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A move applied by the background rebalancer. Ids only, the log outlives the animals and rooms it mentions.
+ */
+@Entity
+@Table(name = "rebalance_move")
+@Getter
+@Setter
+@ToString
+public class RebalanceMove implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @Column(name = "animal_id", nullable = false)
+    private Long animalId;
+
+    @Column(name = "from_room_id", nullable = false)
+    private Long fromRoomId;
+
+    @Column(name = "to_room_id", nullable = false)
+    private Long toRoomId;
+
+    /**
+     * The animal moved the other way in the same swap, null for a single move.
+     */
+    @Column(name = "swapped_animal_id")
+    private Long swappedAnimalId;
+
+    /**
+     * Happy animals gained by the move or swap.
+     */
+    @Column(name = "happy_gain", nullable = false)
+    private int happyGain;
+
+    @Column(name = "applied", nullable = false)
+    private Instant applied;
+
+    /**
+     * Equal by id only.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RebalanceMove)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((RebalanceMove) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+}
@@ -1,7 +1,6 @@
 package com.java.zoo.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -20,7 +19,6 @@ import java.util.Set;
 @Table(name = "room")
 @Getter
 @Setter
-@EqualsAndHashCode
 @ToString
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Room implements Serializable {
@@ -45,9 +43,27 @@ public class Room implements Serializable {
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "room_id")
     @JsonIgnoreProperties(value = "animals", allowSetters = true)
-    @EqualsAndHashCode.Exclude
     @ToString.Exclude
     private Set<Animal> animals = new HashSet<>();
 
+    /**
+     * Equal by id only, the lazy animals are never touched. The hash is the id once persisted.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Room)) {
+            return false;
+        }
+        // getId() so a lazy proxy compares by id without being initialized
+        return getId() != null && getId().equals(((Room) o).getId());
+    }
 
+    @Override
+    public int hashCode() {
+        Long id = getId();
+        return id == null ? 31 : id.hashCode();
+    }
 }
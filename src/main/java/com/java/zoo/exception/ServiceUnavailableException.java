@@ -0,0 +1,23 @@
+package com.java.zoo.exception;
+
+import com.java.zoo.constants.ErrorConstants;
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Thrown when a request cannot be served right now, translated to {@code 503} with a {@code Retry-After} header.
+ */
+public class ServiceUnavailableException extends AbstractThrowableProblem {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String defaultMessage, long retryAfterSeconds) {
+        super(ErrorConstants.SERVICE_UNAVAILABLE_TYPE, defaultMessage, Status.SERVICE_UNAVAILABLE);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,14 +1,26 @@
 package com.java.zoo.repository;
 
 
+import com.java.zoo.constants.Constants;
 import com.java.zoo.dto.AnimalsJsonObject;
 import com.java.zoo.dto.HappyAnimalsJsonObject;
 import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Spring Data  repository for the Animal entity.
@@ -23,4 +35,97 @@ public interface AnimalRepository extends JpaRepository<Animal, Long> {
             " 1  when a.type = '>=' and  a.room.size >= a.preference THEN 1 ELSE 0 END) AS " +
             "HappyAnimals from Animal a where a.room.id = a.room.id Group By a.room.title")
     List<HappyAnimalsJsonObject> findAllHappyAnimals();
+
+    /**
+     * Keyset page ordered by id, used to walk the whole table without offsets.
+     */
+    List<Animal> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Id, title, type and preference of every animal, compared against animal.csv by the sync.
+     */
+    @Query("select a.id, a.title, a.type, a.preference from Animal a")
+    List<Object[]> findSyncState();
+
+    /**
+     * {@link #findSyncState()} of the animals with the given titles, read by the sync for the changed lines only.
+     */
+    @Query("select a.id, a.title, a.type, a.preference from Animal a where a.title in :titles")
+    List<Object[]> findSyncStateByTitleIn(@Param("titles") Collection<String> titles);
+
+    /**
+     * Id, room id, type and preference of every animal in a room, the happy animal counters are built from them.
+     */
+    @Query("select a.id, r.id, a.type, a.preference from Animal a join a.room r")
+    List<Object[]> findPlacements();
+
+    /**
+     * Id, room id (null if in no room), type and preference of every animal, read by the placement optimizer.
+     */
+    @Query("select a.id, r.id, a.type, a.preference from Animal a left join a.room r")
+    List<Object[]> findPlacementState();
+
+    /**
+     * Id and room id (null if in no room) of the given animals which exist, without loading them.
+     */
+    @Query("select a.id, r.id from Animal a left join a.room r where a.id in :ids")
+    List<Object[]> findRoomIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Id, title, located, type, preference and room id of every animal by id, read through a forward-only cursor by the export.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = Constants.EXPORT_FETCH_SIZE))
+    @Query("select a.id, a.title, a.located, a.type, a.preference, r.id from Animal a left join a.room r order by a.id")
+    Stream<Object[]> streamExport();
+
+    /**
+     * Columns of the animal, its room and its favorites, one row per favorite or a single one without any;
+     * folded by {@link com.java.zoo.dto.AnimalDetailDTO#of(List)}.
+     */
+    @Query("select a.id, a.title, a.located, a.type, a.preference, r.id, r.title, r.size, r.created, f.id, f.roomId " +
+            "from Animal a left join a.room r left join a.favorites f where a.id = :id order by f.id")
+    List<Object[]> findDetailById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Animal a set a.room = null where a.room.id in :roomIds")
+    int clearRoom(@Param("roomIds") List<Long> roomIds);
+
+    @Modifying
+    @Query("delete from Animal a where a.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * The animal with its room and favorites in one select, everything a response needs once the transaction is over.
+     */
+    @Query("select distinct a from Animal a left join fetch a.room left join fetch a.favorites where a.id = :id")
+    Optional<Animal> findWithRoomById(@Param("id") Long id);
+
+    /**
+     * Place the animal in the room if it is in no room yet and the room exists, without loading either.
+     *
+     * @return {@code 1} if placed, {@code 0} otherwise.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Animal a set a.room = :room where a.id = :animalId and a.room is null " +
+            "and exists (select r.id from Room r where r = :room)")
+    int placeInRoom(@Param("animalId") Long animalId, @Param("room") Room room);
+
+    /**
+     * Move the animal to the room if it is in another room and the room exists, without loading either.
+     *
+     * @return {@code 1} if moved, {@code 0} otherwise.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Animal a set a.room = :room where a.id = :animalId and a.room is not null and a.room <> :room " +
+            "and exists (select r.id from Room r where r = :room)")
+    int moveToRoom(@Param("animalId") Long animalId, @Param("room") Room room);
+
+    /**
+     * Take the animal out of its room.
+     *
+     * @return {@code 1} if removed, {@code 0} if the animal does not exist or is in no room.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Animal a set a.room = null where a.id = :animalId and a.room is not null")
+    int removeFromRoom(@Param("animalId") Long animalId);
 }
@@ -1,12 +1,24 @@
 package com.java.zoo.repository;
 
 
+import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.FavoriteDTO;
 import com.java.zoo.entity.Favorite;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Spring Data  repository for the Favorite entity.
@@ -19,4 +31,42 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
     @Query(value = "select  r.title from Room r,  Favorite f where f.animal.id = ?1 and r.id = f.roomId")
     List<String> findFavoriteRooms(Long animalId);
+
+    /**
+     * Keyset page ordered by id, used to walk the whole table without offsets.
+     */
+    List<Favorite> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Animal id and room id of every favorite.
+     */
+    @Query("select f.animal.id, f.roomId from Favorite f")
+    List<Object[]> findAllRoomIds();
+
+    /**
+     * Id, animal id and room id of every favorite by id, read through a forward-only cursor by the export.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = Constants.EXPORT_FETCH_SIZE))
+    @Query("select f.id, f.animal.id, f.roomId from Favorite f order by f.id")
+    Stream<Object[]> streamExport();
+
+    /**
+     * Animal id and room id of the favorites of the given animals.
+     */
+    @Query("select f.animal.id, f.roomId from Favorite f where f.animal.id in :animalIds")
+    List<Object[]> findRoomIdsByAnimalIdIn(@Param("animalIds") Collection<Long> animalIds);
+
+    /**
+     * The columns of the favorite, the animal only by the foreign key.
+     */
+    @Query("select new com.java.zoo.dto.FavoriteDTO(f.id, f.roomId, f.animal.id) from Favorite f where f.id = :id")
+    Optional<FavoriteDTO> findDTOById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from Favorite f where f.roomId in :roomIds")
+    int deleteByRoomIdIn(@Param("roomIds") List<Long> roomIds);
+
+    @Modifying
+    @Query("delete from Favorite f where f.animal.id in :animalIds")
+    int deleteByAnimalIdIn(@Param("animalIds") List<Long> animalIds);
 }
@@ -0,0 +1,36 @@
+package com.java.zoo.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Optional filters of the list endpoints, a null value means no filter and gives a null specification,
+ * which {@link Specification#and(Specification)} ignores.
+ */
+public final class Filters {
+
+    private Filters() {
+    }
+
+    public static <T> Specification<T> equal(String attribute, Object value) {
+        return value == null ? null : (root, query, builder) -> builder.equal(root.get(attribute), value);
+    }
+
+    public static <T> Specification<T> notEqual(String attribute, Object value) {
+        return value == null ? null : (root, query, builder) -> builder.notEqual(root.get(attribute), value);
+    }
+
+    /**
+     * The id of the associated entity equals the value.
+     */
+    public static <T> Specification<T> associated(String association, Long id) {
+        return id == null ? null : (root, query, builder) -> builder.equal(root.get(association).get("id"), id);
+    }
+
+    public static <T> Specification<T> atLeast(String attribute, Long min) {
+        return min == null ? null : (root, query, builder) -> builder.greaterThanOrEqualTo(root.get(attribute), min);
+    }
+
+    public static <T> Specification<T> atMost(String attribute, Long max) {
+        return max == null ? null : (root, query, builder) -> builder.lessThanOrEqualTo(root.get(attribute), max);
+    }
+}
@@ -0,0 +1,146 @@
+package com.java.zoo.repository;
+
+import com.java.zoo.dto.KeysetRequest;
+import com.java.zoo.dto.KeysetSlice;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Keyset pages of any entity with a {@code Long id}, for the list endpoints.
+ * <p>
+ * A page is one select of {@code limit + 1} rows after the cursor position, ordered by the sort field then id, so
+ * its cost does not grow with its depth; the extra row only tells whether another page follows. The rows matching
+ * the filters are only counted when the request asks for the total.
+ */
+@Repository
+public class KeysetRepository {
+
+    private final EntityManager entityManager;
+
+    public KeysetRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param filter the filters of the list, may be null.
+     */
+    public <T> KeysetSlice<T> find(Class<T> type, Specification<T> filter, KeysetRequest request) {
+        return find(type, type, (builder, root) -> root, filter, request);
+    }
+
+    /**
+     * A page of the given columns of the entity, each row passed to the constructor of the view in the same order.
+     * <p>
+     * A column {@code association.id} reads the foreign key, any other {@code association.attribute} reads through a
+     * left join, so a missing association selects nulls rather than dropping the row. The view needs a getter for
+     * {@code id} and for the sort field.
+     *
+     * @param filter the filters of the list, may be null.
+     */
+    public <T, R> KeysetSlice<R> find(Class<T> type, Specification<T> filter, KeysetRequest request, Class<R> view, String... columns) {
+        return find(type, view, (builder, root) -> {
+            Map<String, Join<T, ?>> joins = new HashMap<>();
+            Selection<?>[] selections = new Selection<?>[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                int dot = columns[i].indexOf('.');
+                if (dot < 0) {
+                    selections[i] = root.get(columns[i]);
+                    continue;
+                }
+                String association = columns[i].substring(0, dot);
+                String attribute = columns[i].substring(dot + 1);
+                selections[i] = "id".equals(attribute) ? root.get(association).get(attribute)
+                        : joins.computeIfAbsent(association, name -> root.join(name, JoinType.LEFT)).get(attribute);
+            }
+            return builder.construct(view, selections);
+        }, filter, request);
+    }
+
+    private <T, R> KeysetSlice<R> find(Class<T> type, Class<R> resultType, BiFunction<CriteriaBuilder, Root<T>, Selection<? extends R>> select,
+                                       Specification<T> filter, KeysetRequest request) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = builder.createQuery(resultType);
+        Root<T> root = query.from(type);
+        Path<Long> id = root.get("id");
+        Expression<Comparable<Object>> key = key(builder, root, request);
+
+        Predicate where = filter == null ? null : filter.toPredicate(root, query, builder);
+        if (request.getAfterId() != null) {
+            Predicate after = after(builder, key, id, request);
+            where = where == null ? after : builder.and(where, after);
+        }
+        if (where != null) {
+            query.where(where);
+        }
+        if (request.isDescending()) {
+            query.orderBy(builder.desc(key), builder.desc(id));
+        } else {
+            query.orderBy(builder.asc(key), builder.asc(id));
+        }
+        query.select(select.apply(builder, root));
+
+        List<R> rows = entityManager.createQuery(query).setMaxResults(request.getLimit() + 1).getResultList();
+        String nextCursor = null;
+        if (rows.size() > request.getLimit()) {
+            rows = rows.subList(0, request.getLimit());
+            BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(rows.get(rows.size() - 1));
+            nextCursor = request.cursorAfter(last.getPropertyValue(request.getField().getAttribute()), (Long) last.getPropertyValue("id"));
+        }
+        Long total = request.isWithTotal() ? count(type, filter) : null;
+        return new KeysetSlice<>(rows, nextCursor, total);
+    }
+
+    private <T> long count(Class<T> type, Specification<T> filter) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(builder.count(root));
+        if (filter != null) {
+            Predicate where = filter.toPredicate(root, query, builder);
+            if (where != null) {
+                query.where(where);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<Comparable<Object>> key(CriteriaBuilder builder, Root<T> root, KeysetRequest request) {
+        Path<Comparable<Object>> field = root.get(request.getField().getAttribute());
+        Object nullValue = request.getField().getNullValue();
+        return nullValue == null ? field : builder.coalesce(field, (Comparable<Object>) nullValue);
+    }
+
+    /**
+     * Rows after the cursor position: a greater key, or the same key and a greater id; smaller for descending order.
+     */
+    @SuppressWarnings("unchecked")
+    private static Predicate after(CriteriaBuilder builder, Expression<Comparable<Object>> key, Path<Long> id, KeysetRequest request) {
+        Comparable<Object> value = (Comparable<Object>) request.getAfterValue();
+        Long afterId = request.getAfterId();
+        if (request.getField() == KeysetRequest.Field.ID) {
+            return request.isDescending() ? builder.lessThan(id, afterId) : builder.greaterThan(id, afterId);
+        }
+        if (request.isDescending()) {
+            return builder.or(builder.lessThan(key, value), builder.and(builder.equal(key, value), builder.lessThan(id, afterId)));
+        }
+        return builder.or(builder.greaterThan(key, value), builder.and(builder.equal(key, value), builder.greaterThan(id, afterId)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.java.zoo.repository;
+
+
+import com.java.zoo.entity.RebalanceMove;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Spring Data  repository for the RebalanceMove entity.
+ */
+@Repository
+public interface RebalanceMoveRepository extends JpaRepository<RebalanceMove, Long> {
+
+    /**
+     * Latest moves first.
+     */
+    List<RebalanceMove> findAllByOrderByIdDesc(Pageable pageable);
+}
@@ -1,15 +1,68 @@
 package com.java.zoo.repository;
 
 
+import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.RoomDTO;
 import com.java.zoo.entity.Room;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 /**
  * Spring Data  repository for the Room entity.
  */
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
+    /**
+     * Keyset page ordered by id, used to walk the whole table without offsets.
+     */
+    List<Room> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Id, title and size of every room, compared against room.csv by the sync.
+     */
+    @Query("select r.id, r.title, r.size from Room r")
+    List<Object[]> findSyncState();
+
+    /**
+     * {@link #findSyncState()} of the rooms with the given titles, read by the sync for the changed lines only.
+     */
+    @Query("select r.id, r.title, r.size from Room r where r.title in :titles")
+    List<Object[]> findSyncStateByTitleIn(@Param("titles") Collection<String> titles);
+
+    /**
+     * Id, title, size and created of every room by id, read through a forward-only cursor by the export.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = Constants.EXPORT_FETCH_SIZE))
+    @Query("select r.id, r.title, r.size, r.created from Room r order by r.id")
+    Stream<Object[]> streamExport();
+
+    /**
+     * The ids among the given ones which exist, without loading the rooms.
+     */
+    @Query("select r.id from Room r where r.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The columns of the room without loading it or its animals.
+     */
+    @Query("select new com.java.zoo.dto.RoomDTO(r.id, r.title, r.size, r.created) from Room r where r.id = :id")
+    Optional<RoomDTO> findDTOById(@Param("id") Long id);
 
+    @Modifying
+    @Query("delete from Room r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
@@ -1,9 +1,14 @@
 package com.java.zoo.repository;
 
 import com.java.zoo.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,5 +22,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 
     Optional<User> findOneByEmailIgnoreCase(String email);
-}
 
+    /**
+     * Keyset page ordered by id, used to walk the whole table without offsets.
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Id, login, email, first name, last name, language and password hash of every user, compared against user.csv by the sync.
+     */
+    @Query("select u.id, u.login, u.email, u.firstName, u.lastName, u.langKey, u.password from User u")
+    List<Object[]> findSyncState();
+
+    /**
+     * {@link #findSyncState()} of the users with the given logins, read by the sync for the changed lines only.
+     */
+    @Query("select u.id, u.login, u.email, u.firstName, u.lastName, u.langKey, u.password from User u where u.login in :logins")
+    List<Object[]> findSyncStateByLoginIn(@Param("logins") Collection<String> logins);
+}
@@ -0,0 +1,16 @@
+package com.java.zoo.security;
+
+/**
+ * How HTTP Basic credentials are handled.
+ */
+public enum BasicAuthMode {
+    /**
+     * Every request may use Basic auth, verified credentials are cached for a short TTL.
+     */
+    CACHE,
+    /**
+     * The first successful Basic request returns a JWT in the Authorization response header,
+     * later Basic requests of the same user are rejected until the token expires.
+     */
+    TOKEN
+}
@@ -0,0 +1,42 @@
+package com.java.zoo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Logins which received a token from {@link TokenIssuingBasicAuthenticationFilter}, kept as long as the token is
+ * valid so they have to send it instead of their password.
+ */
+@Component
+public class IssuedTokenRegistry {
+
+    private final Cache<String, Boolean> issuedTokens;
+
+    public IssuedTokenRegistry(JwtTokenUtil jwtTokenUtil) {
+        this.issuedTokens = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(jwtTokenUtil.getValidityInMilliseconds()))
+                .build();
+    }
+
+    public boolean isIssued(String login) {
+        return issuedTokens.getIfPresent(login.toLowerCase()) != null;
+    }
+
+    public void issued(String login) {
+        issuedTokens.put(login.toLowerCase(), Boolean.TRUE);
+    }
+
+    /**
+     * Let the login authenticate with Basic again, used when the password is changed or the user removed.
+     *
+     * @param login the login of the user.
+     */
+    public void evict(String login) {
+        if (login != null) {
+            issuedTokens.invalidate(login.toLowerCase());
+        }
+    }
+}
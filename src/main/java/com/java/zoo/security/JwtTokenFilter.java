@@ -1,6 +1,8 @@
 package com.java.zoo.security;
 
 import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.web.timing.ServerTiming;
+import io.jsonwebtoken.Claims;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,8 +32,14 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         String token = jwtTokenUtil.resolveToken(httpServletRequest);
         try {
-            if (token != null && jwtTokenUtil.validateToken(token)) {
-                Authentication auth = jwtTokenUtil.getAuthentication(token);
+            if (token != null) {
+                // the token is parsed and verified once, the claims are handed over to build the principal
+                long start = System.nanoTime();
+                Claims claims = jwtTokenUtil.verifyToken(token);
+                ServerTiming.record(ServerTiming.Metric.JWT, start);
+                start = System.nanoTime();
+                Authentication auth = jwtTokenUtil.getAuthentication(claims);
+                ServerTiming.record(ServerTiming.Metric.USER, start);
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
         } catch (BadRequestAlertException ex) {
@@ -43,4 +51,4 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(httpServletRequest, httpServletResponse);
     }
-}
\ No newline at end of file
+}
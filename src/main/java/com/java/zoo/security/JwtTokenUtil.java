@@ -1,12 +1,18 @@
 package com.java.zoo.security;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.java.zoo.exception.BadRequestAlertException;
 import com.java.zoo.service.JwtUserDetailsService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,8 +23,13 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class to generate JWT token when authenticated
@@ -30,12 +41,44 @@ public class JwtTokenUtil implements Serializable {
     private static final long validityInMilliseconds = 3600000; // 1h
     @Value("${jwt.secret-key}")
     private String secretKey;
+    @Value("${security.jwt.token-cache.enabled:false}")
+    private boolean tokenCacheEnabled;
+    @Value("${security.jwt.token-cache.max-size:10000}")
+    private long tokenCacheMaxSize;
     @Autowired
     private JwtUserDetailsService jwtUserDetailsService;
+    @Autowired
+    private transient MeterRegistry meterRegistry;
+
+    // SHA-256 digest of a verified token -> its claims, each entry expires at the exp claim of the token
+    private transient Cache<ByteBuffer, Claims> verifiedTokens;
+
+    // outcomes of verifyToken: parsed and valid, answered from the cache, expired, invalid
+    private transient Counter validTokens;
+    private transient Counter cachedTokens;
+    private transient Counter expiredTokens;
+    private transient Counter invalidTokens;
 
     @PostConstruct
     protected void init() {
         secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
+        validTokens = verificationCounter("valid");
+        cachedTokens = verificationCounter("cached");
+        expiredTokens = verificationCounter("expired");
+        invalidTokens = verificationCounter("invalid");
+        if (tokenCacheEnabled) {
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(tokenCacheMaxSize)
+                    .expireAfter(new ExpireAtClaim())
+                    .build();
+        }
+    }
+
+    private Counter verificationCounter(String outcome) {
+        return Counter.builder("zoo.jwt.verifications")
+                .description("JWT verifications by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     public String createToken(String username) {
@@ -54,12 +97,26 @@ public class JwtTokenUtil implements Serializable {
     }
 
     public Authentication getAuthentication(String token) {
-        UserDetails userDetails = jwtUserDetailsService.loadUserByUsername(getUsername(token));
+        return getAuthentication(verifyToken(token));
+    }
+
+    /**
+     * Build the authentication from already verified claims, so the token is not parsed a second time.
+     *
+     * @param claims the claims returned by {@link #verifyToken(String)}.
+     * @return the authentication of the token subject.
+     */
+    public Authentication getAuthentication(Claims claims) {
+        UserDetails userDetails = jwtUserDetailsService.loadUserByUsername(claims.getSubject());
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
     }
 
+    public long getValidityInMilliseconds() {
+        return validityInMilliseconds;
+    }
+
     public String getUsername(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody().getSubject();
+        return verifyToken(token).getSubject();
     }
 
     public String resolveToken(HttpServletRequest req) {
@@ -71,11 +128,75 @@ public class JwtTokenUtil implements Serializable {
     }
 
     public boolean validateToken(String token) {
+        verifyToken(token);
+        return true;
+    }
+
+    /**
+     * Parse the token and verify its signature and expiry exactly once.
+     * When the token cache is enabled an already verified token is answered from the cache until it expires.
+     *
+     * @param token the compact JWT.
+     * @return the claims of the token.
+     * @throws BadRequestAlertException if the token is expired or invalid.
+     */
+    public Claims verifyToken(String token) {
+        if (verifiedTokens == null) {
+            return parseClaims(token);
+        }
+        ByteBuffer key = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims == null) {
+            claims = parseClaims(token);
+            verifiedTokens.put(key, claims);
+        } else {
+            cachedTokens.increment();
+        }
+        return claims;
+    }
+
+    private Claims parseClaims(String token) {
+        Claims claims;
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
-            return true;
+            claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            expiredTokens.increment();
+            throw new BadRequestAlertException("Expired or invalid JWT token", "Zoo Application", "Token Invalid");
         } catch (JwtException | IllegalArgumentException e) {
+            invalidTokens.increment();
             throw new BadRequestAlertException("Expired or invalid JWT token", "Zoo Application", "Token Invalid");
         }
+        validTokens.increment();
+        return claims;
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class ExpireAtClaim implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0L;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, expiration.getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
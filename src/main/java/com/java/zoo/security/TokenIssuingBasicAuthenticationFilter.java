@@ -0,0 +1,65 @@
+package com.java.zoo.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationConverter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Basic authentication filter for {@link BasicAuthMode#TOKEN}: the first successful Basic request gets a JWT in the
+ * {@code Authorization} response header and the user has to send that token until it expires, or until the
+ * password is changed or the user removed.
+ */
+public class TokenIssuingBasicAuthenticationFilter extends BasicAuthenticationFilter {
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    private final BasicAuthenticationConverter basicAuthenticationConverter = new BasicAuthenticationConverter();
+
+    private final IssuedTokenRegistry issuedTokenRegistry;
+
+    public TokenIssuingBasicAuthenticationFilter(AuthenticationManager authenticationManager,
+                                                 AuthenticationEntryPoint authenticationEntryPoint,
+                                                 JwtTokenUtil jwtTokenUtil, IssuedTokenRegistry issuedTokenRegistry) {
+        super(authenticationManager, authenticationEntryPoint);
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.issuedTokenRegistry = issuedTokenRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        UsernamePasswordAuthenticationToken basicToken;
+        try {
+            basicToken = basicAuthenticationConverter.convert(request);
+        } catch (BadCredentialsException ex) {
+            // malformed header, let the default handling answer it
+            basicToken = null;
+        }
+        if (basicToken != null && issuedTokenRegistry.isIssued(basicToken.getName())) {
+            SecurityContextHolder.clearContext();
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "A bearer token was already issued for this user, send it in the Authorization header");
+            return;
+        }
+        super.doFilterInternal(request, response, chain);
+    }
+
+    @Override
+    protected void onSuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response, Authentication authResult) {
+        String login = authResult.getName().toLowerCase();
+        response.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + jwtTokenUtil.createToken(login));
+        issuedTokenRegistry.issued(login);
+    }
+}
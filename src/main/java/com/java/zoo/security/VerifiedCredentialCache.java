@@ -0,0 +1,92 @@
+package com.java.zoo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Short lived cache of username/password pairs which already passed the BCrypt check.
+ * <p>
+ * Entries are keyed by an HMAC of username and password with a key generated on startup, so clear text passwords
+ * are never kept in memory. Each entry remembers the password hash it was verified against, a changed hash is a miss.
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    private static final String CACHE_NAME = "verified-credentials";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<ByteBuffer, VerifiedCredential> cache;
+
+    private final SecretKeySpec hmacKey;
+
+    public VerifiedCredentialCache(MeterRegistry meterRegistry,
+                                   @Value("${security.basic-auth.credential-cache.max-size:10000}") long maxSize,
+                                   @Value("${security.basic-auth.credential-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.hmacKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @return true if the credentials were verified against the given password hash within the TTL.
+     */
+    public boolean isVerified(String username, String rawPassword, String passwordHash) {
+        VerifiedCredential credential = cache.getIfPresent(keyOf(username, rawPassword));
+        return credential != null && credential.passwordHash.equals(passwordHash);
+    }
+
+    public void put(String username, String rawPassword, String passwordHash) {
+        cache.put(keyOf(username, rawPassword), new VerifiedCredential(username, passwordHash));
+    }
+
+    /**
+     * Drop every verified credential of the given login, used when the password is changed or the user removed.
+     *
+     * @param login the login of the user.
+     */
+    public void evict(String login) {
+        if (login != null) {
+            cache.asMap().values().removeIf(credential -> credential.login.equals(login));
+        }
+    }
+
+    private ByteBuffer keyOf(String username, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return ByteBuffer.wrap(mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static final class VerifiedCredential {
+        private final String login;
+        private final String passwordHash;
+
+        private VerifiedCredential(String login, String passwordHash) {
+            this.login = login;
+            this.passwordHash = passwordHash;
+        }
+    }
+}
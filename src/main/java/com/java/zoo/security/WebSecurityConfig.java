@@ -1,9 +1,13 @@
 package com.java.zoo.security;
 
+import com.java.zoo.service.JwtUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -11,15 +15,34 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
+    private static final String REALM_NAME = "Realm";
+
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private JwtUserDetailsService jwtUserDetailsService;
+
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Autowired
+    private IssuedTokenRegistry issuedTokenRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.basic-auth.mode:CACHE}")
+    private BasicAuthMode basicAuthMode;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
 
@@ -32,6 +55,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         // Entry points
         http.authorizeRequests()//
                 .antMatchers("/authenticate").permitAll()//To authorize the user
+                .antMatchers("/actuator/health", "/actuator/health/**").permitAll()//Liveness and readiness probes
 
                 // Disallow everything else..
                 .anyRequest().authenticated();
@@ -40,12 +64,28 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         http.apply(new JwtTokenFilterConfigurer(jwtTokenUtil));
 
         // Optional, if you want to test the API from a browser
-        http.httpBasic();
+        if (basicAuthMode == BasicAuthMode.TOKEN) {
+            BasicAuthenticationEntryPoint entryPoint = new BasicAuthenticationEntryPoint();
+            entryPoint.setRealmName(REALM_NAME);
+            http.exceptionHandling().authenticationEntryPoint(entryPoint);
+            http.addFilterAt(new TokenIssuingBasicAuthenticationFilter(authenticationManager(), entryPoint, jwtTokenUtil, issuedTokenRegistry), BasicAuthenticationFilter.class);
+        } else {
+            http.httpBasic().realmName(REALM_NAME);
+        }
+    }
+
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) {
+        // Username/password checks (Basic and /authenticate) skip BCrypt for recently verified credentials
+        CachingDaoAuthenticationProvider authenticationProvider = new CachingDaoAuthenticationProvider(verifiedCredentialCache);
+        authenticationProvider.setUserDetailsService(jwtUserDetailsService);
+        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        auth.authenticationProvider(authenticationProvider);
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(12), meterRegistry);
     }
 
     @Override
@@ -0,0 +1,110 @@
+package com.java.zoo.service;
+
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.exception.ServiceUnavailableException;
+import com.java.zoo.security.JwtTokenUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class to verify login credentials.
+ * <p>
+ * The password check runs on its own bounded worker pool so a burst of logins cannot starve the request threads of
+ * the other endpoints. When the queue is full the login is rejected with {@code 503} and a {@code Retry-After} header.
+ */
+@Service
+public class AuthenticationService {
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationService.class);
+
+    private final AuthenticationManager authenticationManager;
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer hashTimer;
+
+    private final long retryAfterSeconds;
+
+    public AuthenticationService(AuthenticationManager authenticationManager,
+                                 JwtTokenUtil jwtTokenUtil,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${security.authenticate.pool-size:4}") int poolSize,
+                                 @Value("${security.authenticate.queue-capacity:100}") int queueCapacity,
+                                 @Value("${security.authenticate.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.authenticationManager = authenticationManager;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new AuthenticationThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.hashTimer = Timer.builder("zoo.authenticate.hash")
+                .description("Time spent verifying the credentials of a login")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("zoo.authenticate.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Logins waiting for a verification worker")
+                .register(meterRegistry);
+        Gauge.builder("zoo.authenticate.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Logins being verified")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verify the credentials on the authentication pool and create a JWT for the user.
+     *
+     * @param username the lower cased login.
+     * @param password the clear text password.
+     * @return future completed with the token, or with a {@link BadRequestAlertException} if the credentials are wrong.
+     * @throws ServiceUnavailableException if the authentication queue is full.
+     */
+    public CompletableFuture<String> authenticate(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> verify(username, password), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Authentication queue is full, rejecting login of {}", username);
+            throw new ServiceUnavailableException("Too many concurrent logins, retry later", retryAfterSeconds);
+        }
+    }
+
+    private String verify(String username, String password) {
+        try {
+            hashTimer.record(() -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password)));
+            return jwtTokenUtil.createToken(username);
+        } catch (AuthenticationException e) {
+            throw new BadRequestAlertException("Authentication Denied", "zoo application", "Invalid Username/Password");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class AuthenticationThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "authenticate-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
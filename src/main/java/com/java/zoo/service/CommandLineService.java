@@ -2,27 +2,46 @@ package com.java.zoo.service;
 
 
 import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.ImportReport;
 import com.java.zoo.dto.UserDTO;
 import com.java.zoo.entity.Animal;
 import com.java.zoo.entity.Room;
 import com.java.zoo.repository.AnimalRepository;
 import com.java.zoo.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.File;
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Serivce class for the application. To load data.
+ * <p>
+ * The CSV files are read line by line and written in chunks of {@code load.batch-size} rows, each chunk in its own
+ * transaction, so memory stays constant and the inserts go out as JDBC batches.
+ * With {@code load.mode=NATIVE} rooms and animals go through the bulk loader of the database instead, see {@link NativeCsvLoader}.
+ * With {@code load.mode=SYNC} the files are compared with the existing rows and only the differences are written, see {@link CsvSyncService}.
  */
 @Service
 public class CommandLineService {
@@ -41,6 +60,24 @@ public class CommandLineService {
 
     private final AnimalRepository animalRepository;
 
+
+    private final TransactionTemplate transactionTemplate;
+
+
+    private final EntityManager entityManager;
+
+
+    private final DataLoadStatus dataLoadStatus;
+
+
+    private final NativeCsvLoader nativeCsvLoader;
+
+
+    private final CsvSyncService csvSyncService;
+
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${inputfile.user-name}")
     private String userFilePath;
 
@@ -50,12 +87,65 @@ public class CommandLineService {
     @Value("${inputfile.animal-name}")
     private String animalFilePath;
 
+    @Value("${load.batch-size:500}")
+    private int batchSize;
+
+    @Value("${load.progress-interval:100000}")
+    private long progressInterval;
+
+    @Value("${load.mode:JPA}")
+    private LoadMode loadMode;
 
-    public CommandLineService(ResourceLoader resourceLoader, UserService userService, RoomRepository roomRepository, AnimalRepository animalRepository) {
+
+    public CommandLineService(ResourceLoader resourceLoader, UserService userService, RoomRepository roomRepository, AnimalRepository animalRepository,
+                              TransactionTemplate transactionTemplate, EntityManager entityManager, DataLoadStatus dataLoadStatus,
+                              NativeCsvLoader nativeCsvLoader, CsvSyncService csvSyncService, MeterRegistry meterRegistry) {
         this.resourceLoader = resourceLoader;
         this.userService = userService;
         this.roomRepository = roomRepository;
         this.animalRepository = animalRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.dataLoadStatus = dataLoadStatus;
+        this.nativeCsvLoader = nativeCsvLoader;
+        this.csvSyncService = csvSyncService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Load the seed data on startup and publish the progress to {@link DataLoadStatus}.
+     *
+     * @param defaultData also load the rooms and animals.
+     * @throws IOException when CSV file is not found
+     */
+    public void loadAll(boolean defaultData) throws IOException {
+        try {
+            boolean sync = loadMode == LoadMode.SYNC;
+            dataLoadStatus.start(DataLoadStatus.Phase.USERS, contentLength(userFilePath));
+            if (sync) {
+                csvSyncService.syncUsers();
+            } else {
+                loadUsers();
+            }
+            if (defaultData) {
+                dataLoadStatus.start(DataLoadStatus.Phase.ROOMS, contentLength(roomFilePath));
+                if (sync) {
+                    csvSyncService.syncRooms();
+                } else {
+                    saveRoomData();
+                }
+                dataLoadStatus.start(DataLoadStatus.Phase.ANIMALS, contentLength(animalFilePath));
+                if (sync) {
+                    csvSyncService.syncAnimals();
+                } else {
+                    saveAnimalData();
+                }
+            }
+            dataLoadStatus.ready();
+        } catch (IOException | RuntimeException e) {
+            dataLoadStatus.failed(e);
+            throw e;
+        }
     }
 
     /**
@@ -70,127 +160,236 @@ public class CommandLineService {
 
     }
 
-    public void saveAnimalData() throws IOException {
-        Resource animalResource = null;
-
-        try {
-            animalResource = resourceLoader.getResource(animalFilePath);
-            File file = animalResource.getFile();
-            List<String> animalData = Files.readAllLines(file.toPath());
-
-            try (Stream<String> stream = animalData.stream()) {
-
-                stream.skip(1).map(line -> line.split(COMMA)).forEach(data -> {
-                    Animal animal = new Animal();
-                    animal.setLocated(Instant.now());
-                    for (int i = 0; i < data.length; i++) {
-                        switch (i) {
-                            case 0:
-                                animal.setTitle(data[i].toLowerCase());
-                                break;
-
-                            case 1:
-                                animal.setType(data[i]);
-                                break;
-                            default:
-                                animal.setPreference(Long.parseLong(data[i]));
-                                break;
-                        }
-                    }
-                    log.debug("Animal object to be stored --{}", animal);
-                    animalRepository.save(animal);
-
-
-                });
+    public ImportReport saveAnimalData() throws IOException {
+        if (loadMode == LoadMode.NATIVE) {
+            Optional<ImportReport> report = nativeCsvLoader.loadAnimals(resourceLoader.getResource(animalFilePath));
+            if (report.isPresent()) {
+                return recordImport(report.get(), LoadMode.NATIVE);
             }
+        }
+        return recordImport(importCsv(animalFilePath, Constants.ANIMAL_ENTITY_NAME, CommandLineService::toAnimal, animalRepository::saveAll), LoadMode.JPA);
+    }
+
 
-        } catch (IOException e) {
-            log.error(ERROR_OCCURRED, e.getMessage());
-        } finally {
-            if (animalResource != null)
-                animalResource.readableChannel().close();
+    public ImportReport saveRoomData() throws IOException {
+        if (loadMode == LoadMode.NATIVE) {
+            Optional<ImportReport> report = nativeCsvLoader.loadRooms(resourceLoader.getResource(roomFilePath));
+            if (report.isPresent()) {
+                return recordImport(report.get(), LoadMode.NATIVE);
+            }
         }
+        return recordImport(importCsv(roomFilePath, "room", CommandLineService::toRoom, roomRepository::saveAll), LoadMode.JPA);
     }
 
+    private ImportReport saveUserData() throws IOException {
+        return recordImport(importCsv(userFilePath, "user", CommandLineService::toUserDTO, userService::registerUsers), LoadMode.JPA);
+    }
 
-    public void saveRoomData() throws IOException {
-        Resource roomResource = null;
+    /**
+     * Publish the counters of a finished import: {@code zoo.import.rows} by entity and result, the throughput is its
+     * rate, and the duration of the run in {@code zoo.import.duration} by entity and mode.
+     */
+    private ImportReport recordImport(ImportReport report, LoadMode mode) {
+        importRows(report.getEntityName(), "imported").increment(report.getImported());
+        importRows(report.getEntityName(), "rejected").increment(report.getRejected());
+        Timer.builder("zoo.import.duration")
+                .description("Duration of a CSV import run")
+                .tags("entity", report.getEntityName(), "mode", mode.name().toLowerCase())
+                .register(meterRegistry)
+                .record(report.getElapsedMillis(), TimeUnit.MILLISECONDS);
+        return report;
+    }
 
-        try {
-            roomResource = resourceLoader.getResource(roomFilePath);
-            File file = roomResource.getFile();
-            List<String> roomData = Files.readAllLines(file.toPath());
-
-            try (Stream<String> stream = roomData.stream()) {
-
-                stream.skip(1).map(line -> line.split(COMMA)).forEach(data -> {
-                    Room room = new Room();
-                    room.setCreated(Instant.now());
-                    for (int i = 0; i < data.length; i++) {
-                        if (i == 0) {
-                            room.setTitle(data[i].toLowerCase());
-                        } else {
-                            room.setSize(Long.parseLong(data[i]));
-                        }
-                    }
-                    log.debug("Room object to be stored --{}", room);
-                    roomRepository.save(room);
-                });
+    private Counter importRows(String entity, String result) {
+        return Counter.builder("zoo.import.rows")
+                .description("CSV rows imported or rejected by the data load")
+                .tags("entity", entity, "result", result)
+                .register(meterRegistry);
+    }
+
+    static Animal toAnimal(String[] data) {
+        Animal animal = new Animal();
+        animal.setLocated(Instant.now());
+        for (int i = 0; i < data.length; i++) {
+            switch (i) {
+                case 0:
+                    animal.setTitle(data[i].toLowerCase());
+                    break;
+
+                case 1:
+                    animal.setType(data[i]);
+                    break;
+                default:
+                    animal.setPreference(Long.parseLong(data[i]));
+                    break;
+            }
+        }
+        requireTitle(animal.getTitle());
+        log.debug("Animal object to be stored --{}", animal);
+        return animal;
+    }
+
+    static Room toRoom(String[] data) {
+        Room room = new Room();
+        room.setCreated(Instant.now());
+        for (int i = 0; i < data.length; i++) {
+            if (i == 0) {
+                room.setTitle(data[i].toLowerCase());
+            } else {
+                room.setSize(Long.parseLong(data[i]));
+            }
+        }
+        requireTitle(room.getTitle());
+        log.debug("Room object to be stored --{}", room);
+        return room;
+    }
+
+    static UserDTO toUserDTO(String[] data) {
+        UserDTO user = new UserDTO();
+        user.setCreatedBy(Constants.CREATED_BY);
+        for (int i = 0; i < data.length; i++) {
+            switch (i) {
+                case 0:
+                    user.setLogin(data[i].toLowerCase());
+                    break;
+                case 1:
+                    user.setEmail(data[i].toLowerCase());
+                    break;
+                case 2:
+                    user.setPassword(data[i]);
+                    break;
+                case 3:
+                    user.setFirstName(data[i].toLowerCase());
+                    break;
+                case 4:
+                    user.setLastName(data[i].toLowerCase());
+                    break;
+                default:
+                    user.setLangKey(data[i]);
+                    break;
             }
+        }
+        requireTitle(user.getLogin());
+        if (user.getPassword() == null) {
+            throw new IllegalArgumentException("password is missing");
+        }
+        log.debug("User object to be stored --{}", user);
+        return user;
+    }
 
-        } catch (IOException e) {
-            log.error(ERROR_OCCURRED, e.getMessage());
-        } finally {
-            if (roomResource != null)
-                roomResource.readableChannel().close();
+    private long contentLength(String filePath) throws IOException {
+        return resourceLoader.getResource(filePath).contentLength();
+    }
+
+    private static void requireTitle(String title) {
+        if (title == null || title.isEmpty()) {
+            throw new IllegalArgumentException("title is missing");
         }
     }
 
-    private void saveUserData() throws IOException {
-        Resource userResource = null;
+    /**
+     * Stream the CSV file, map each line and hand the rows to the writer in chunks.
+     *
+     * @param filePath    location of the CSV file, the first line is the header.
+     * @param entityName  name used in the log.
+     * @param rowMapper   maps the split line, a runtime exception rejects the row.
+     * @param chunkWriter persists one chunk, called inside a transaction.
+     * @return the counters of the run.
+     * @throws IOException when CSV file is not found or not readable
+     */
+    private <T> ImportReport importCsv(String filePath, String entityName, Function<String[], T> rowMapper, Consumer<List<T>> chunkWriter) throws IOException {
+        Resource resource = resourceLoader.getResource(filePath);
+        ImportReport report = new ImportReport(entityName);
+        List<T> chunk = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ProgressInputStream(resource.getInputStream()), StandardCharsets.UTF_8))) {
+            // skip the header
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                report.rowRead();
+                try {
+                    chunk.add(rowMapper.apply(line.split(COMMA)));
+                } catch (RuntimeException e) {
+                    report.rowRejected();
+                    log.warn("Rejected {} row {}: {}", entityName, report.getRead(), e.getMessage());
+                }
+                if (chunk.size() >= batchSize) {
+                    writeChunk(chunk, chunkWriter, report);
+                }
+                // 0 turns the progress log off
+                if (progressInterval > 0 && report.getRead() % progressInterval == 0) {
+                    log.info("Import of {} in progress: {} rows read, {} imported, {} rejected, {} rows/sec",
+                            entityName, report.getRead(), report.getImported(), report.getRejected(), report.getRowsPerSecond());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, chunkWriter, report);
+            }
+        }
+
+        log.info("Import of {} completed: {} rows read, {} imported, {} rejected in {} ms ({} rows/sec)",
+                entityName, report.getRead(), report.getImported(), report.getRejected(), report.getElapsedMillis(), report.getRowsPerSecond());
+        return report;
+    }
 
+    private <T> void writeChunk(List<T> chunk, Consumer<List<T>> chunkWriter, ImportReport report) {
         try {
-            userResource = resourceLoader.getResource(userFilePath);
-            File file = userResource.getFile();
-            List<String> userData = Files.readAllLines(file.toPath());
-
-            try (Stream<String> stream = userData.stream()) {
-
-                stream.skip(1).map(line -> line.split(COMMA)).forEach(data -> {
-                    UserDTO user = new UserDTO();
-                    user.setCreatedBy(Constants.CREATED_BY);
-                    for (int i = 0; i < data.length; i++) {
-                        switch (i) {
-                            case 0:
-                                user.setLogin(data[i].toLowerCase());
-                                break;
-                            case 1:
-                                user.setEmail(data[i].toLowerCase());
-                                break;
-                            case 2:
-                                user.setPassword(data[i]);
-                                break;
-                            case 3:
-                                user.setFirstName(data[i].toLowerCase());
-                                break;
-                            case 4:
-                                user.setLastName(data[i].toLowerCase());
-                                break;
-                            default:
-                                user.setLangKey(data[i]);
-                                break;
-                        }
-                    }
-                    log.debug("User object to be stored --{}", user);
-                    userService.registerUser(user);
-                });
+            writeInTransaction(chunk, chunkWriter);
+            report.rowsImported(chunk.size());
+        } catch (RuntimeException e) {
+            // isolate the failing rows, the rest of the chunk is still imported
+            log.warn("Chunk of {} {} rows failed, retrying row by row: {}", chunk.size(), report.getEntityName(), e.getMessage());
+            for (T row : chunk) {
+                try {
+                    writeInTransaction(Collections.singletonList(row), chunkWriter);
+                    report.rowsImported(1);
+                } catch (RuntimeException rowException) {
+                    report.rowRejected();
+                    log.warn(ERROR_OCCURRED, rowException.getMessage());
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private <T> void writeInTransaction(List<T> rows, Consumer<List<T>> chunkWriter) {
+        transactionTemplate.executeWithoutResult(status -> {
+            chunkWriter.accept(rows);
+            entityManager.flush();
+            // keep the persistence context from growing with the file
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Reports the bytes consumed by the reader to {@link DataLoadStatus}.
+     */
+    private final class ProgressInputStream extends FilterInputStream {
+
+        ProgressInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                dataLoadStatus.progress(1);
             }
+            return b;
+        }
 
-        } catch (IOException e) {
-            log.error(ERROR_OCCURRED, e.getMessage());
-        } finally {
-            if (userResource != null)
-                userResource.readableChannel().close();
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                dataLoadStatus.progress(count);
+            }
+            return count;
         }
     }
 }
@@ -0,0 +1,560 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.SyncReport;
+import com.java.zoo.dto.UserDTO;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Service class to re-sync the tables with the CSV files, used with {@code load.mode=SYNC}.
+ * <p>
+ * The rows of a file are matched to the existing ones by title (rooms, animals) or login (users) and only the
+ * inserts, updates and, with {@code load.sync.delete-missing}, deletes are written, in chunks of {@code load.batch-size}.
+ * A file whose content did not change since its last sync is not compared at all, in a changed one only the lines
+ * which changed since the last sync are compared with the table. With {@code load.sync.watch} the
+ * dataset directories are watched and a changed file is synced live.
+ */
+@Service
+public class CsvSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvSyncService.class);
+
+    private final ResourceLoader resourceLoader;
+
+    private final UserService userService;
+
+    private final UserRepository userRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final AnimalRepository animalRepository;
+
+    private final FavoriteRepository favoriteRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final HappyAnimalCounter happyAnimalCounter;
+
+    private final HappinessIndex happinessIndex;
+
+    // file path -> digest of its content at the last complete sync
+    private final Map<String, String> syncedDigests = new ConcurrentHashMap<>();
+
+    // file path -> key -> digest of the line of the key at the last complete sync
+    private final Map<String, Map<String, ByteBuffer>> syncedRows = new ConcurrentHashMap<>();
+
+    @Value("${inputfile.user-name}")
+    private String userFilePath;
+
+    @Value("${inputfile.room-name}")
+    private String roomFilePath;
+
+    @Value("${inputfile.animal-name}")
+    private String animalFilePath;
+
+    @Value("${load.batch-size:500}")
+    private int batchSize;
+
+    @Value("${load.sync.delete-missing:false}")
+    private boolean deleteMissing;
+
+    @Value("${load.sync.watch:false}")
+    private boolean watch;
+
+    @Value("${load.sync.debounce-ms:500}")
+    private long debounceMillis;
+
+    private volatile WatchService watchService;
+
+    public CsvSyncService(ResourceLoader resourceLoader, UserService userService, UserRepository userRepository, RoomRepository roomRepository,
+                          AnimalRepository animalRepository, FavoriteRepository favoriteRepository, TransactionTemplate transactionTemplate,
+                          EntityManager entityManager, HappyAnimalCounter happyAnimalCounter, HappinessIndex happinessIndex) {
+        this.resourceLoader = resourceLoader;
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.roomRepository = roomRepository;
+        this.animalRepository = animalRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.happyAnimalCounter = happyAnimalCounter;
+        this.happinessIndex = happinessIndex;
+    }
+
+    public synchronized SyncReport syncUsers() throws IOException {
+        return sync(userFilePath, "user", CommandLineService::toUserDTO, UserDTO::getLogin, userRepository::findSyncState,
+                userRepository::findSyncStateByLoginIn, CsvSyncService::userChanged,
+                userService::registerUsers, userService::updateUsers, userService::deleteUsers);
+    }
+
+    public synchronized SyncReport syncRooms() throws IOException {
+        SyncReport report = sync(roomFilePath, "room", CommandLineService::toRoom, Room::getTitle, roomRepository::findSyncState,
+                roomRepository::findSyncStateByTitleIn, (room, state) -> !Objects.equals(room.getSize(), state[2]),
+                roomRepository::saveAll, this::updateRooms, this::deleteRooms);
+        invalidateHappiness(report);
+        return report;
+    }
+
+    public synchronized SyncReport syncAnimals() throws IOException {
+        SyncReport report = sync(animalFilePath, "animal", CommandLineService::toAnimal, Animal::getTitle, animalRepository::findSyncState,
+                animalRepository::findSyncStateByTitleIn,
+                (animal, state) -> !Objects.equals(animal.getType(), state[2]) || !Objects.equals(animal.getPreference(), state[3]),
+                animalRepository::saveAll, this::updateAnimals, this::deleteAnimals);
+        invalidateHappiness(report);
+        return report;
+    }
+
+    private void invalidateHappiness(SyncReport report) {
+        if (report.getInserted() + report.getUpdated() + report.getDeleted() > 0) {
+            // sizes, preferences and placements may have changed in bulk
+            happyAnimalCounter.invalidate();
+            happinessIndex.invalidate();
+        }
+    }
+
+    private static boolean userChanged(UserDTO user, Object[] state) {
+        return !Objects.equals(user.getEmail(), state[2])
+                || !Objects.equals(user.getFirstName(), state[3])
+                || !Objects.equals(user.getLastName(), state[4])
+                || !Objects.equals(user.getLangKey(), state[5])
+                || (UserService.isHash(user.getPassword()) && !user.getPassword().equals(state[6]));
+    }
+
+    private void updateRooms(Map<Long, Room> changes) {
+        List<Room> rooms = roomRepository.findAllById(changes.keySet());
+        rooms.forEach(room -> room.setSize(changes.get(room.getId()).getSize()));
+        roomRepository.saveAll(rooms);
+    }
+
+    private void deleteRooms(List<Long> ids) {
+        animalRepository.clearRoom(ids);
+        favoriteRepository.deleteByRoomIdIn(ids);
+        roomRepository.deleteByIdIn(ids);
+    }
+
+    private void updateAnimals(Map<Long, Animal> changes) {
+        List<Animal> animals = animalRepository.findAllById(changes.keySet());
+        for (Animal animal : animals) {
+            Animal change = changes.get(animal.getId());
+            animal.setType(change.getType());
+            animal.setPreference(change.getPreference());
+        }
+        animalRepository.saveAll(animals);
+    }
+
+    private void deleteAnimals(List<Long> ids) {
+        favoriteRepository.deleteByAnimalIdIn(ids);
+        animalRepository.deleteByIdIn(ids);
+    }
+
+    /**
+     * Compare the CSV file with the existing rows and write the differences.
+     * <p>
+     * The first sync of a file reads the state of every existing row. Afterwards the digest of every line is kept by
+     * key, and only the rows whose line is new or changed, and the keys which disappeared, are read from the table
+     * by key. Rows changed through the API since the last sync are compared again once their line changes.
+     *
+     * @param stateLoader      loads id, key and the compared columns of every existing row, in that order.
+     * @param keyedStateLoader loads the same columns of the existing rows with the given keys.
+     * @param changed          whether a mapped row differs from the state of the existing row with the same key.
+     * @param inserter         persists new rows, called inside a transaction.
+     * @param updater          applies the changed rows to the existing ids, called inside a transaction.
+     * @param deleter          deletes the existing rows missing in the file, called inside a transaction.
+     * @return the counters of the run.
+     * @throws IOException when CSV file is not found or not readable
+     */
+    private <T> SyncReport sync(String filePath, String entityName, Function<String[], T> rowMapper, Function<T, String> keyOf,
+                                Supplier<List<Object[]>> stateLoader, Function<Collection<String>, List<Object[]>> keyedStateLoader,
+                                BiPredicate<T, Object[]> changed, Consumer<List<T>> inserter, Consumer<Map<Long, T>> updater,
+                                Consumer<List<Long>> deleter) throws IOException {
+        Resource resource = resourceLoader.getResource(filePath);
+        SyncReport report = new SyncReport(entityName);
+        String digest = digest(resource);
+        if (digest.equals(syncedDigests.get(filePath))) {
+            report.fileUnchanged();
+            log.info("Sync of {} skipped, {} did not change", entityName, filePath);
+            return report;
+        }
+
+        Map<String, ByteBuffer> lastRows = syncedRows.get(filePath);
+        // the whole table is only read when there are no line digests to compare with
+        Map<String, Object[]> existing = lastRows == null ? byKey(stateLoader.get()) : null;
+        Map<String, ByteBuffer> rows = new HashMap<>();
+        Changes<T> changes = new Changes<>(report, changed, inserter, updater);
+        List<T> pending = new ArrayList<>(batchSize);
+        MessageDigest lineDigest = sha256();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            // skip the header
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                report.rowRead();
+                T row;
+                try {
+                    row = rowMapper.apply(line.split(CommandLineService.COMMA));
+                } catch (RuntimeException e) {
+                    report.rowRejected();
+                    log.warn("Rejected {} row {}: {}", entityName, report.getRead(), e.getMessage());
+                    continue;
+                }
+                String key = keyOf.apply(row);
+                ByteBuffer rowDigest = ByteBuffer.wrap(lineDigest.digest(line.getBytes(StandardCharsets.UTF_8)));
+                if (rows.putIfAbsent(key, rowDigest) != null) {
+                    report.rowRejected();
+                    log.warn("Rejected {} row {}: duplicate key {}", entityName, report.getRead(), key);
+                    continue;
+                }
+                if (existing != null) {
+                    changes.add(row, existing.get(key));
+                } else if (rowDigest.equals(lastRows.get(key))) {
+                    report.rowUnchanged();
+                } else {
+                    pending.add(row);
+                    if (pending.size() >= batchSize) {
+                        compare(pending, keyOf, keyedStateLoader, changes);
+                    }
+                }
+            }
+        }
+        compare(pending, keyOf, keyedStateLoader, changes);
+        changes.flush();
+
+        boolean complete = changes.complete;
+        if (deleteMissing && report.getRejected() > 0) {
+            // the key of a malformed line is unknown, its row must not be taken as removed
+            log.warn("Sync of {} rejected {} rows, missing rows are not deleted", entityName, report.getRejected());
+        } else if (deleteMissing) {
+            List<Long> ids = new ArrayList<>(batchSize);
+            if (existing != null) {
+                for (Map.Entry<String, Object[]> entry : existing.entrySet()) {
+                    if (!rows.containsKey(entry.getKey())) {
+                        ids.add((Long) entry.getValue()[0]);
+                    }
+                    if (ids.size() >= batchSize) {
+                        complete &= delete(ids, deleter, report);
+                    }
+                }
+            } else {
+                List<String> missing = new ArrayList<>(batchSize);
+                for (String key : lastRows.keySet()) {
+                    if (!rows.containsKey(key)) {
+                        missing.add(key);
+                    }
+                    if (missing.size() >= batchSize) {
+                        complete &= delete(idsOf(missing, keyedStateLoader), deleter, report);
+                        missing.clear();
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    ids.addAll(idsOf(missing, keyedStateLoader));
+                }
+            }
+            if (!ids.isEmpty()) {
+                complete &= delete(ids, deleter, report);
+            }
+        }
+
+        if (complete) {
+            syncedDigests.put(filePath, digest);
+            syncedRows.put(filePath, rows);
+        }
+        log.info("Sync of {} completed: {} rows read, {} inserted, {} updated, {} deleted, {} unchanged, {} rejected in {} ms",
+                entityName, report.getRead(), report.getInserted(), report.getUpdated(), report.getDeleted(), report.getUnchanged(),
+                report.getRejected(), report.getElapsedMillis());
+        return report;
+    }
+
+    /**
+     * Read the state of the pending rows by key and hand them to the changes, the list is cleared.
+     */
+    private <T> void compare(List<T> pending, Function<T, String> keyOf, Function<Collection<String>, List<Object[]>> keyedStateLoader,
+                             Changes<T> changes) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (T row : pending) {
+            keys.add(keyOf.apply(row));
+        }
+        Map<String, Object[]> existing = byKey(keyedStateLoader.apply(keys));
+        for (T row : pending) {
+            changes.add(row, existing.get(keyOf.apply(row)));
+        }
+        pending.clear();
+    }
+
+    private static List<Long> idsOf(List<String> keys, Function<Collection<String>, List<Object[]>> keyedStateLoader) {
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Object[] state : keyedStateLoader.apply(keys)) {
+            ids.add((Long) state[0]);
+        }
+        return ids;
+    }
+
+    private static Map<String, Object[]> byKey(List<Object[]> states) {
+        Map<String, Object[]> byKey = new HashMap<>();
+        for (Object[] state : states) {
+            byKey.put((String) state[1], state);
+        }
+        return byKey;
+    }
+
+    /**
+     * Delete the rows and clear the list.
+     *
+     * @return {@code false} if the chunk failed.
+     */
+    private boolean delete(List<Long> ids, Consumer<List<Long>> deleter, SyncReport report) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        boolean written = writeChunk(() -> deleter.accept(ids), ids.size(), report::rowsDeleted, report);
+        ids.clear();
+        return written;
+    }
+
+    private boolean writeChunk(Runnable write, int size, Consumer<Long> written, SyncReport report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                write.run();
+                entityManager.flush();
+                // keep the persistence context from growing with the file
+                entityManager.clear();
+            });
+            written.accept((long) size);
+            return true;
+        } catch (RuntimeException e) {
+            report.rowsRejected(size);
+            log.warn("Chunk of {} {} rows failed: {}", size, report.getEntityName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String digest(Resource resource) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            while (in.read(buffer) != -1) {
+                // the digest is updated while reading
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * Start watching the dataset files once the application is up, if {@code load.sync.watch} is set.
+     * Only files on the file system can be watched, a file packaged in the jar is skipped.
+     *
+     * @throws IOException when the watch service cannot be created.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() throws IOException {
+        if (!watch) {
+            return;
+        }
+        // ordered, rooms are synced before the animals when both files changed
+        Map<Path, SyncTask> tasks = new LinkedHashMap<>();
+        addWatchedFile(tasks, userFilePath, this::syncUsers);
+        addWatchedFile(tasks, roomFilePath, this::syncRooms);
+        addWatchedFile(tasks, animalFilePath, this::syncAnimals);
+        if (tasks.isEmpty()) {
+            log.warn("None of the CSV files is on the file system, nothing to watch");
+            return;
+        }
+
+        WatchService service = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (Path file : tasks.keySet()) {
+            if (directories.add(file.getParent())) {
+                file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+        watchService = service;
+        Thread watcher = new Thread(() -> watchLoop(service, tasks), "csv-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for changes", tasks.keySet());
+    }
+
+    private void addWatchedFile(Map<Path, SyncTask> tasks, String filePath, SyncTask task) throws IOException {
+        Resource resource = resourceLoader.getResource(filePath);
+        if (resource.isFile()) {
+            tasks.put(resource.getFile().toPath().toAbsolutePath(), task);
+        } else {
+            log.warn("{} is not on the file system and cannot be watched", filePath);
+        }
+    }
+
+    private void watchLoop(WatchService service, Map<Path, SyncTask> tasks) {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                collectChanges(service.take(), changed);
+                // editors and copies write in several steps, let the file settle
+                Thread.sleep(debounceMillis);
+                WatchKey key;
+                while ((key = service.poll()) != null) {
+                    collectChanges(key, changed);
+                }
+                for (Map.Entry<Path, SyncTask> entry : tasks.entrySet()) {
+                    if (changed.contains(entry.getKey())) {
+                        runSync(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("CSV watch stopped");
+        }
+    }
+
+    private static void collectChanges(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path) {
+                changed.add(directory.resolve((Path) event.context()).toAbsolutePath());
+            }
+        }
+        key.reset();
+    }
+
+    private static void runSync(Path file, SyncTask task) {
+        try {
+            task.run();
+        } catch (IOException | RuntimeException e) {
+            log.error("Sync of {} failed: {}", file, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Inserts and updates found by a sync, written in chunks of {@code load.batch-size}.
+     */
+    private final class Changes<T> {
+        private final SyncReport report;
+        private final BiPredicate<T, Object[]> changed;
+        private final Consumer<List<T>> inserter;
+        private final Consumer<Map<Long, T>> updater;
+        private final List<T> inserts = new ArrayList<>(batchSize);
+        private final Map<Long, T> updates = new LinkedHashMap<>();
+        private boolean complete = true;
+
+        private Changes(SyncReport report, BiPredicate<T, Object[]> changed, Consumer<List<T>> inserter, Consumer<Map<Long, T>> updater) {
+            this.report = report;
+            this.changed = changed;
+            this.inserter = inserter;
+            this.updater = updater;
+        }
+
+        /**
+         * @param state the state of the existing row with the key of the row, null if there is none.
+         */
+        private void add(T row, Object[] state) {
+            if (state == null) {
+                inserts.add(row);
+            } else if (changed.test(row, state)) {
+                updates.put((Long) state[0], row);
+            } else {
+                report.rowUnchanged();
+            }
+            if (inserts.size() >= batchSize) {
+                writeInserts();
+            }
+            if (updates.size() >= batchSize) {
+                writeUpdates();
+            }
+        }
+
+        private void flush() {
+            if (!inserts.isEmpty()) {
+                writeInserts();
+            }
+            if (!updates.isEmpty()) {
+                writeUpdates();
+            }
+        }
+
+        private void writeInserts() {
+            complete &= writeChunk(() -> inserter.accept(inserts), inserts.size(), report::rowsInserted, report);
+            inserts.clear();
+        }
+
+        private void writeUpdates() {
+            complete &= writeChunk(() -> updater.accept(updates), updates.size(), report::rowsUpdated, report);
+            updates.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SyncTask {
+        SyncReport run() throws IOException;
+    }
+}
@@ -0,0 +1,82 @@
+package com.java.zoo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the seed data load, shared between the loading thread, the readiness health check and the request gate.
+ */
+@Component
+public class DataLoadStatus {
+
+    public enum Phase {
+        PENDING, SNAPSHOT, USERS, ROOMS, ANIMALS, READY, FAILED
+    }
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private volatile Phase phase = Phase.PENDING;
+
+    private volatile long totalBytes;
+
+    private volatile String failure;
+
+    /**
+     * Start loading the next file.
+     *
+     * @param nextPhase  the entity being loaded.
+     * @param fileLength size of the file in bytes, {@code -1} if unknown.
+     */
+    public void start(Phase nextPhase, long fileLength) {
+        bytesRead.set(0);
+        totalBytes = fileLength;
+        phase = nextPhase;
+    }
+
+    public void progress(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    public void ready() {
+        phase = Phase.READY;
+    }
+
+    public void failed(Throwable cause) {
+        failure = cause.getMessage();
+        phase = Phase.FAILED;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public boolean isReady() {
+        return phase == Phase.READY;
+    }
+
+    /**
+     * Users are loaded first, once the load moved past them logins can be served.
+     */
+    public boolean isUsersLoaded() {
+        return phase == Phase.ROOMS || phase == Phase.ANIMALS || phase == Phase.READY;
+    }
+
+    /**
+     * @return percentage of the current file read so far, {@code 100} once ready.
+     */
+    public int getPercent() {
+        if (phase == Phase.READY) {
+            return 100;
+        }
+        long total = totalBytes;
+        if (total <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100L, bytesRead.get() * 100 / total);
+    }
+}
@@ -0,0 +1,157 @@
+package com.java.zoo.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.zoo.dto.ExportFormat;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes every animal, room or favorite as NDJSON or CSV while reading them through a forward-only cursor.
+ * <p>
+ * Rows are read as projections, so nothing piles up in the persistence context, and written as soon as they are
+ * read; memory stays the same however large the table. The whole export is one read-only transaction.
+ */
+@Service
+public class ExportService {
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private static final String[] ANIMAL_FIELDS = {"id", "title", "located", "type", "preference", "roomId"};
+
+    private static final String[] ROOM_FIELDS = {"id", "title", "size", "created"};
+
+    private static final String[] FAVORITE_FIELDS = {"id", "animalId", "roomId"};
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final FavoriteRepository favoriteRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(AnimalRepository animalRepository, RoomRepository roomRepository, FavoriteRepository favoriteRepository,
+                         ObjectMapper objectMapper, TransactionTemplate transactionTemplate) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return the animals written.
+     */
+    public long exportAnimals(ExportFormat format, OutputStream out) throws IOException {
+        return export("animals", ANIMAL_FIELDS, animalRepository::streamExport, format, out);
+    }
+
+    /**
+     * @return the rooms written.
+     */
+    public long exportRooms(ExportFormat format, OutputStream out) throws IOException {
+        return export("rooms", ROOM_FIELDS, roomRepository::streamExport, format, out);
+    }
+
+    /**
+     * @return the favorites written.
+     */
+    public long exportFavorites(ExportFormat format, OutputStream out) throws IOException {
+        return export("favorites", FAVORITE_FIELDS, favoriteRepository::streamExport, format, out);
+    }
+
+    private long export(String name, String[] fields, Supplier<Stream<Object[]>> query, ExportFormat format, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        Long written;
+        try {
+            written = readOnlyTransaction.execute(status -> {
+                try (Stream<Object[]> rows = query.get()) {
+                    return format == ExportFormat.CSV ? writeCsv(fields, rows.iterator(), out) : writeNdjson(fields, rows.iterator(), out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // most likely the client went away
+            throw e.getCause();
+        }
+        long count = written == null ? 0 : written;
+        log.debug("Exported {} {} as {} in {} ms", count, name, format, System.currentTimeMillis() - started);
+        return count;
+    }
+
+    private long writeNdjson(String[] fields, Iterator<Object[]> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            generator.writeStartObject();
+            for (int i = 0; i < fields.length; i++) {
+                generator.writeObjectField(fields[i], row[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            count++;
+        }
+        generator.close();
+        return count;
+    }
+
+    private static long writeCsv(String[] fields, Iterator<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(CommandLineService.COMMA, fields));
+        writer.write('\n');
+        long count = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(CommandLineService.COMMA);
+                }
+                writer.write(csvValue(row[i]));
+            }
+            writer.write('\n');
+            count++;
+        }
+        // flushes into out without closing it
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Empty for null, quoted with doubled quotes if it holds the {@link CommandLineService#COMMA separator}, a quote
+     * or a line break.
+     */
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!text.contains(CommandLineService.COMMA) && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,212 @@
+package com.java.zoo.service;
+
+import com.java.zoo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the write commands of the zoo (placement, move, removal and favorites) in shared transactions.
+ * <p>
+ * When {@code zoo.group-commit.enabled} is set, commands from concurrent requests are queued and a single worker
+ * runs up to {@code max-batch-size} of them, or whatever arrived within {@code max-wait-ms} of the first one, in one
+ * transaction, so they share one commit. Each caller blocks until the transaction holding its command committed. If
+ * the shared transaction fails, its commands are run again one transaction each, so a failing command only fails
+ * its own caller. Disabled, the command runs right away in the caller's thread.
+ * <p>
+ * Commands run on the worker thread, outside the caller's persistence context: they take ids, not entities, and
+ * have to return results whose lazy associations needed by the response are loaded.
+ */
+@Component
+public class GroupCommitExecutor {
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int maxBatchSize;
+
+    private final long maxWaitNanos;
+
+    private final long retryAfterSeconds;
+
+    private final BlockingQueue<Command<?>> queue;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter batchFailures;
+
+    private volatile Thread worker;
+
+    public GroupCommitExecutor(TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${zoo.group-commit.enabled:false}") boolean enabled,
+                               @Value("${zoo.group-commit.max-batch-size:64}") int maxBatchSize,
+                               @Value("${zoo.group-commit.max-wait-ms:5}") long maxWaitMillis,
+                               @Value("${zoo.group-commit.queue-capacity:10000}") int queueCapacity,
+                               @Value("${zoo.group-commit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = DistributionSummary.builder("zoo.group-commit.batch.size")
+                .description("Commands committed together in one transaction")
+                .register(meterRegistry);
+        this.batchFailures = Counter.builder("zoo.group-commit.batch.failures")
+                .description("Shared transactions rolled back and run again one command at a time")
+                .register(meterRegistry);
+        Gauge.builder("zoo.group-commit.queue.depth", queue, BlockingQueue::size)
+                .description("Commands waiting for the next shared transaction")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::drain, "group-commit");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Group commit enabled, up to {} commands or {} µs per transaction", maxBatchSize, maxWaitNanos / 1000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        List<Command<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(command -> command.future.completeExceptionally(
+                new ServiceUnavailableException("Shutting down, retry later", retryAfterSeconds)));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run the command, in a transaction shared with other callers when group commit is enabled.
+     *
+     * @return the result of the command once its transaction committed.
+     * @throws ServiceUnavailableException if the queue of pending commands is full.
+     */
+    public <T> T execute(Supplier<T> command) {
+        if (!enabled) {
+            return command.get();
+        }
+        Command<T> queued = new Command<>(command);
+        if (!queue.offer(queued)) {
+            log.warn("Group commit queue is full, rejecting command");
+            throw new ServiceUnavailableException("Too many concurrent updates, retry later", retryAfterSeconds);
+        }
+        try {
+            return queued.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        while (worker == Thread.currentThread()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    Command<?> next = queue.poll(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(command -> command.future.completeExceptionally(
+                        new ServiceUnavailableException("Shutting down, retry later", retryAfterSeconds)));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Run the commands in one transaction and complete their futures after the commit, or one transaction per
+     * command if the shared one fails.
+     */
+    void commit(List<Command<?>> batch) {
+        batchSize.record(batch.size());
+        if (batch.size() > 1) {
+            try {
+                List<Object> results = transactionTemplate.execute(status -> {
+                    List<Object> values = new ArrayList<>(batch.size());
+                    for (Command<?> command : batch) {
+                        values.add(command.supplier.get());
+                    }
+                    return values;
+                });
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).complete(results.get(i));
+                }
+                return;
+            } catch (RuntimeException e) {
+                batchFailures.increment();
+                log.debug("Shared transaction of {} commands failed, running them one by one: {}", batch.size(), e.getMessage());
+            }
+        }
+        for (Command<?> command : batch) {
+            try {
+                command.complete(transactionTemplate.execute(status -> command.supplier.get()));
+            } catch (RuntimeException e) {
+                command.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    static final class Command<T> {
+        private final Supplier<T> supplier;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Command(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            future.complete((T) result);
+        }
+
+        CompletableFuture<T> getFuture() {
+            return future;
+        }
+    }
+}
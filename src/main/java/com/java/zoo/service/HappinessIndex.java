@@ -0,0 +1,354 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.HappinessMatch;
+import com.java.zoo.dto.HappinessPage;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Sorted in-memory index of room sizes and of animal preferences, split by animal type, answering which rooms would
+ * make an animal happy and which animals would be happy in a room as range queries.
+ * <p>
+ * An animal of type {@code <=} is happy in rooms of at most its preference, one of type {@code >=} in rooms of at
+ * least its preference. Entries are ordered by size or preference, then id; a page continues after the opaque cursor
+ * returned with the previous one, so paging stays cheap however deep it goes and is not thrown off by writes.
+ * <p>
+ * The index is built from two projection queries on first use and after {@link #invalidate()}, into fresh sets which
+ * are swapped in once complete. Room and animal writes are applied once their transaction commits. Reads walk the
+ * skip lists of the sets current when they started without locking.
+ */
+@Component
+public class HappinessIndex {
+    private static final Logger log = LoggerFactory.getLogger(HappinessIndex.class);
+
+    private static final String ENTITY_NAME = "Happiness";
+
+    private static final String LESS_OR_EQUAL = "<=";
+
+    private static final String GREATER_OR_EQUAL = ">=";
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong((Entry entry) -> entry.value).thenComparingLong(entry -> entry.id);
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Null until built and after {@link #invalidate()}, only replaced while holding the monitor.
+     */
+    private volatile Sets sets;
+
+    public HappinessIndex(AnimalRepository animalRepository, RoomRepository roomRepository, TransactionTemplate transactionTemplate) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Rooms which would make the animal happy, by size then id.
+     *
+     * @param cursor {@link HappinessPage#getNextCursor()} of the previous page, null for the first one.
+     * @return empty if the animal does not exist.
+     * @throws BadRequestAlertException if the cursor is not one of a room page.
+     */
+    public Optional<HappinessPage> roomsFor(Long animalId, String cursor, int limit) {
+        Sets sets = ensureBuilt();
+        Entry animal = sets.animalsById.get(animalId);
+        if (animal == null) {
+            return Optional.empty();
+        }
+        NavigableSet<Entry> range;
+        if (LESS_OR_EQUAL.equals(animal.type) && animal.hasValue) {
+            range = sets.rooms.headSet(probe(animal.value, Long.MAX_VALUE), true);
+        } else if (GREATER_OR_EQUAL.equals(animal.type) && animal.hasValue) {
+            range = sets.rooms.tailSet(probe(animal.value, Long.MIN_VALUE), true);
+        } else {
+            return Optional.of(new HappinessPage(Collections.emptyList(), null));
+        }
+        if (cursor != null) {
+            String[] parts = parseCursor(cursor, 3);
+            if (!"room".equals(parts[0])) {
+                throw wrongCursor();
+            }
+            range = range.tailSet(probe(parseLong(parts[1]), parseLong(parts[2])), false);
+        }
+        List<Entry> taken = new ArrayList<>(limit);
+        boolean more = take(range.iterator(), limit, taken);
+        return Optional.of(page(taken, more));
+    }
+
+    /**
+     * Animals which would be happy in the room, those of type {@code <=} first, each type by preference then id.
+     *
+     * @param cursor {@link HappinessPage#getNextCursor()} of the previous page, null for the first one.
+     * @return empty if the room does not exist.
+     * @throws BadRequestAlertException if the cursor is not one of an animal page.
+     */
+    public Optional<HappinessPage> animalsFor(Long roomId, String cursor, int limit) {
+        Sets sets = ensureBuilt();
+        Entry room = sets.roomsById.get(roomId);
+        if (room == null) {
+            return Optional.empty();
+        }
+        if (!room.hasValue) {
+            return Optional.of(new HappinessPage(Collections.emptyList(), null));
+        }
+        NavigableSet<Entry> lessOrEqual = sets.lessOrEqualAnimals.tailSet(probe(room.value, Long.MIN_VALUE), true);
+        NavigableSet<Entry> greaterOrEqual = sets.greaterOrEqualAnimals.headSet(probe(room.value, Long.MAX_VALUE), true);
+        if (cursor != null) {
+            String[] parts = parseCursor(cursor, 3);
+            Entry after = probe(parseLong(parts[1]), parseLong(parts[2]));
+            if ("le".equals(parts[0])) {
+                lessOrEqual = lessOrEqual.tailSet(after, false);
+            } else if ("ge".equals(parts[0])) {
+                lessOrEqual = Collections.emptyNavigableSet();
+                greaterOrEqual = greaterOrEqual.tailSet(after, false);
+            } else {
+                throw wrongCursor();
+            }
+        }
+        List<Entry> taken = new ArrayList<>(limit);
+        boolean more = take(lessOrEqual.iterator(), limit, taken)
+                || take(greaterOrEqual.iterator(), limit - taken.size(), taken);
+        return Optional.of(page(taken, more));
+    }
+
+    /**
+     * Add up to limit entries to taken.
+     *
+     * @return {@code true} if more entries follow.
+     */
+    private static boolean take(Iterator<Entry> entries, int limit, List<Entry> taken) {
+        for (int count = 0; entries.hasNext(); count++) {
+            if (count == limit) {
+                return true;
+            }
+            taken.add(entries.next());
+        }
+        return false;
+    }
+
+    private static HappinessPage page(List<Entry> taken, boolean more) {
+        List<HappinessMatch> matches = new ArrayList<>(taken.size());
+        taken.forEach(entry -> matches.add(entry.toMatch()));
+        if (!more || taken.isEmpty()) {
+            return new HappinessPage(matches, null);
+        }
+        Entry last = taken.get(taken.size() - 1);
+        String set = last.type == null ? "room" : LESS_OR_EQUAL.equals(last.type) ? "le" : "ge";
+        return new HappinessPage(matches, set + ":" + last.value + ":" + last.id);
+    }
+
+    /**
+     * The room was created or saved.
+     */
+    public void roomChanged(Room room) {
+        Entry entry = Entry.room(room.getId(), room.getTitle(), room.getSize());
+        TransactionHooks.afterCommit(() -> apply(sets -> {
+            remove(sets.roomsById.put(entry.id, entry), sets.rooms);
+            add(entry, sets.rooms);
+        }));
+    }
+
+    public void roomRemoved(Long roomId) {
+        TransactionHooks.afterCommit(() -> apply(sets -> remove(sets.roomsById.remove(roomId), sets.rooms)));
+    }
+
+    /**
+     * The animal was created or saved.
+     */
+    public void animalChanged(Animal animal) {
+        Entry entry = Entry.animal(animal.getId(), animal.getTitle(), animal.getType(), animal.getPreference());
+        TransactionHooks.afterCommit(() -> apply(sets -> {
+            Entry previous = sets.animalsById.put(entry.id, entry);
+            if (previous != null) {
+                remove(previous, sets.animalsOfType(previous.type));
+            }
+            add(entry, sets.animalsOfType(entry.type));
+        }));
+    }
+
+    public void animalRemoved(Long animalId) {
+        TransactionHooks.afterCommit(() -> apply(sets -> {
+            Entry previous = sets.animalsById.remove(animalId);
+            if (previous != null) {
+                remove(previous, sets.animalsOfType(previous.type));
+            }
+        }));
+    }
+
+    /**
+     * Many rooms or animals changed, the index is built again on the next read.
+     */
+    public void invalidate() {
+        TransactionHooks.afterCommit(this::drop);
+    }
+
+    /**
+     * Waits for a build in progress, which may have read the rows before the change, so it is dropped as well.
+     */
+    private synchronized void drop() {
+        sets = null;
+    }
+
+    private synchronized void apply(Consumer<Sets> change) {
+        // changes before the first build are part of it
+        if (sets != null) {
+            change.accept(sets);
+        }
+    }
+
+    private Sets ensureBuilt() {
+        Sets current = sets;
+        return current != null ? current : build();
+    }
+
+    private synchronized Sets build() {
+        if (sets != null) {
+            return sets;
+        }
+        Sets built = new Sets();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Object[] row : roomRepository.findSyncState()) {
+                Entry entry = Entry.room((Long) row[0], (String) row[1], (Long) row[2]);
+                built.roomsById.put(entry.id, entry);
+                add(entry, built.rooms);
+            }
+            for (Object[] row : animalRepository.findSyncState()) {
+                Entry entry = Entry.animal((Long) row[0], (String) row[1], (String) row[2], (Long) row[3]);
+                built.animalsById.put(entry.id, entry);
+                add(entry, built.animalsOfType(entry.type));
+            }
+        });
+        sets = built;
+        log.debug("Happiness index built for {} rooms and {} animals", built.roomsById.size(), built.animalsById.size());
+        return built;
+    }
+
+    private static void add(Entry entry, NavigableSet<Entry> set) {
+        if (set != null && entry.hasValue) {
+            set.add(entry);
+        }
+    }
+
+    private static void remove(Entry entry, NavigableSet<Entry> set) {
+        if (entry != null && set != null && entry.hasValue) {
+            set.remove(entry);
+        }
+    }
+
+    private static Entry probe(long value, long id) {
+        return new Entry(id, null, null, value, true);
+    }
+
+    private static String[] parseCursor(String cursor, int parts) {
+        String[] split = cursor.split(":");
+        if (split.length != parts) {
+            throw wrongCursor();
+        }
+        return split;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw wrongCursor();
+        }
+    }
+
+    private static BadRequestAlertException wrongCursor() {
+        return new BadRequestAlertException("Cursor is not valid for this query, request cannot be completed", ENTITY_NAME, "cursorwrong");
+    }
+
+    /**
+     * The sorted sets and lookups of one build, changed in place by the writes committed after it.
+     */
+    private static final class Sets {
+        private final NavigableSet<Entry> rooms = new ConcurrentSkipListSet<>(ORDER);
+
+        private final NavigableSet<Entry> lessOrEqualAnimals = new ConcurrentSkipListSet<>(ORDER);
+
+        private final NavigableSet<Entry> greaterOrEqualAnimals = new ConcurrentSkipListSet<>(ORDER);
+
+        private final Map<Long, Entry> roomsById = new ConcurrentHashMap<>();
+
+        /**
+         * Every animal, also those without type or preference which are in neither sorted set.
+         */
+        private final Map<Long, Entry> animalsById = new ConcurrentHashMap<>();
+
+        private NavigableSet<Entry> animalsOfType(String type) {
+            if (LESS_OR_EQUAL.equals(type)) {
+                return lessOrEqualAnimals;
+            }
+            if (GREATER_OR_EQUAL.equals(type)) {
+                return greaterOrEqualAnimals;
+            }
+            return null;
+        }
+    }
+
+    private static final class Entry {
+        private final long id;
+
+        private final String title;
+
+        /**
+         * Null for rooms.
+         */
+        private final String type;
+
+        /**
+         * Size of a room or preference of an animal.
+         */
+        private final long value;
+
+        /**
+         * {@code false} if the size or preference is not set, such an entry is in no sorted set.
+         */
+        private final boolean hasValue;
+
+        private Entry(long id, String title, String type, long value, boolean hasValue) {
+            this.id = id;
+            this.title = title;
+            this.type = type;
+            this.value = value;
+            this.hasValue = hasValue;
+        }
+
+        private static Entry room(Long id, String title, Long size) {
+            return new Entry(id, title, null, size == null ? 0 : size, size != null);
+        }
+
+        private static Entry animal(Long id, String title, String type, Long preference) {
+            return new Entry(id, title, type, preference == null ? 0 : preference, preference != null);
+        }
+
+        private HappinessMatch toMatch() {
+            return type == null ? HappinessMatch.room(id, title, value) : HappinessMatch.animal(id, title, type, value);
+        }
+    }
+}
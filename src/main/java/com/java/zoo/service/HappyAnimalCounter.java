@@ -0,0 +1,320 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.HappyAnimalsCount;
+import com.java.zoo.dto.HappyAnimalsDrift;
+import com.java.zoo.dto.HappyAnimalsJsonObject;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Happy animals per room, kept up to date as animals are placed, moved, removed or changed and as rooms change,
+ * so {@code /animals/happyanimals} is a walk over the rooms instead of an aggregation over every placed animal.
+ * <p>
+ * An animal is happy when its type is {@code <=} and the room size is at most its preference, or its type is
+ * {@code >=} and the room size is at least its preference, as in {@link AnimalRepository#findAllHappyAnimals()}.
+ * <p>
+ * The state is built from two projection queries on first use and after {@link #invalidate()}, which the bulk
+ * writers (CSV sync, batch endpoint) call instead of reporting single changes. Changes are applied once their
+ * transaction commits; each one sets the new state of an animal or room, so applying it twice is harmless.
+ * {@link #check()} recomputes everything from the tables, reports the rooms which drifted and repairs them.
+ */
+@Component
+public class HappyAnimalCounter {
+    private static final Logger log = LoggerFactory.getLogger(HappyAnimalCounter.class);
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Counter driftCounter;
+
+    private final Timer loadTimer;
+
+    /**
+     * Null until built and after invalidation.
+     */
+    private State state;
+
+    public HappyAnimalCounter(AnimalRepository animalRepository, RoomRepository roomRepository, TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.driftCounter = Counter.builder("zoo.happy-animals.drift")
+                .description("Rooms whose happy animal count was found wrong by the consistency check")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("zoo.happy-animals.load")
+                .description("Time spent building the happy animal counts from the tables")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return title and happy animal count of every room with at least one animal, ordered by title.
+     */
+    public synchronized List<HappyAnimalsJsonObject> getHappyAnimals() {
+        if (state == null) {
+            state = load();
+        }
+        List<HappyAnimalsJsonObject> counts = new ArrayList<>();
+        for (RoomCount room : state.rooms.values()) {
+            if (!room.animals.isEmpty()) {
+                counts.add(new HappyAnimalsCount(room.title, room.happy));
+            }
+        }
+        counts.sort(Comparator.comparing(HappyAnimalsJsonObject::getRoomtitle, Comparator.nullsFirst(Comparator.<String>naturalOrder())));
+        return counts;
+    }
+
+    /**
+     * The animal was saved, placed or moved; its room has to be loaded.
+     */
+    public void animalChanged(Animal animal) {
+        Long animalId = animal.getId();
+        String type = animal.getType();
+        Long preference = animal.getPreference();
+        Room room = animal.getRoom();
+        if (room == null) {
+            animalRemoved(animalId);
+            return;
+        }
+        Long roomId = room.getId();
+        String title = room.getTitle();
+        Long size = room.getSize();
+        afterCommit(() -> {
+            if (state != null) {
+                state.room(roomId, title, size);
+                state.place(animalId, new Placement(roomId, type, preference));
+            }
+        });
+    }
+
+    /**
+     * The animal was taken out of its room or deleted.
+     */
+    public void animalRemoved(Long animalId) {
+        afterCommit(() -> {
+            if (state != null) {
+                state.remove(animalId);
+            }
+        });
+    }
+
+    /**
+     * The room was created or saved, its title or size may have changed. If its animals are loaded they replace the
+     * ones known for the room, as saving the room did in the table.
+     */
+    public void roomChanged(Room room) {
+        Long roomId = room.getId();
+        String title = room.getTitle();
+        Long size = room.getSize();
+        Map<Long, Placement> animals = null;
+        if (Hibernate.isInitialized(room.getAnimals())) {
+            animals = new HashMap<>();
+            for (Animal animal : room.getAnimals()) {
+                animals.put(animal.getId(), new Placement(roomId, animal.getType(), animal.getPreference()));
+            }
+        }
+        Map<Long, Placement> roomAnimals = animals;
+        afterCommit(() -> {
+            if (state != null) {
+                state.room(roomId, title, size);
+                if (roomAnimals != null) {
+                    state.replaceAnimals(roomId, roomAnimals);
+                }
+            }
+        });
+    }
+
+    /**
+     * The room was deleted, its animals are in no room anymore.
+     */
+    public void roomRemoved(Long roomId) {
+        afterCommit(() -> {
+            if (state != null) {
+                state.removeRoom(roomId);
+            }
+        });
+    }
+
+    /**
+     * Many animals or rooms changed, the state is built again on the next read.
+     */
+    public void invalidate() {
+        afterCommit(() -> state = null);
+    }
+
+    /**
+     * Recompute the counts from the tables and compare them with the maintained ones. The recomputed state replaces
+     * the maintained one.
+     *
+     * @return the rooms whose count differed, empty if the counts were not built yet.
+     */
+    public synchronized HappyAnimalsDrift check() {
+        State actual = load();
+        HappyAnimalsDrift drift = new HappyAnimalsDrift(actual.rooms.size(), actual.placements.size());
+        if (state != null) {
+            Set<Long> roomIds = new HashSet<>(actual.rooms.keySet());
+            roomIds.addAll(state.rooms.keySet());
+            for (Long roomId : roomIds) {
+                RoomCount expected = actual.rooms.get(roomId);
+                RoomCount maintained = state.rooms.get(roomId);
+                long expectedHappy = expected == null ? 0 : expected.happy;
+                long maintainedHappy = maintained == null ? 0 : maintained.happy;
+                int expectedAnimals = expected == null ? 0 : expected.animals.size();
+                int maintainedAnimals = maintained == null ? 0 : maintained.animals.size();
+                if (expectedHappy != maintainedHappy || expectedAnimals != maintainedAnimals) {
+                    String title = expected != null ? expected.title : maintained.title;
+                    drift.roomDrifted(roomId, title, expectedHappy, maintainedHappy, expectedAnimals, maintainedAnimals);
+                }
+            }
+        }
+        if (!drift.getRooms().isEmpty()) {
+            driftCounter.increment(drift.getRooms().size());
+            log.warn("Happy animal counts of {} rooms drifted, repaired: {}", drift.getRooms().size(), drift.getRooms());
+        }
+        state = actual;
+        return drift;
+    }
+
+    private State load() {
+        return loadTimer.record(() -> readOnlyTransaction.execute(status -> {
+            State loaded = new State();
+            for (Object[] row : roomRepository.findSyncState()) {
+                loaded.room((Long) row[0], (String) row[1], (Long) row[2]);
+            }
+            for (Object[] row : animalRepository.findPlacements()) {
+                loaded.place((Long) row[0], new Placement((Long) row[1], (String) row[2], (Long) row[3]));
+            }
+            log.debug("Happy animal counts built for {} rooms and {} placed animals", loaded.rooms.size(), loaded.placements.size());
+            return loaded;
+        }));
+    }
+
+    private void afterCommit(Runnable change) {
+        TransactionHooks.afterCommit(() -> apply(change));
+    }
+
+    private synchronized void apply(Runnable change) {
+        change.run();
+    }
+
+    static boolean isHappy(String type, Long preference, Long size) {
+        if (preference == null || size == null) {
+            return false;
+        }
+        if ("<=".equals(type)) {
+            return size <= preference;
+        }
+        if (">=".equals(type)) {
+            return size >= preference;
+        }
+        return false;
+    }
+
+    private static final class Placement {
+        private final Long roomId;
+
+        private final String type;
+
+        private final Long preference;
+
+        private Placement(Long roomId, String type, Long preference) {
+            this.roomId = roomId;
+            this.type = type;
+            this.preference = preference;
+        }
+    }
+
+    private static final class RoomCount {
+        private String title;
+
+        private Long size;
+
+        private final Set<Long> animals = new HashSet<>();
+
+        private long happy;
+    }
+
+    private static final class State {
+        private final Map<Long, RoomCount> rooms = new HashMap<>();
+
+        private final Map<Long, Placement> placements = new HashMap<>();
+
+        private void room(Long roomId, String title, Long size) {
+            RoomCount room = rooms.computeIfAbsent(roomId, id -> new RoomCount());
+            room.title = title;
+            if (!Objects.equals(room.size, size)) {
+                room.size = size;
+                room.happy = 0;
+                for (Long animalId : room.animals) {
+                    Placement placement = placements.get(animalId);
+                    if (isHappy(placement.type, placement.preference, size)) {
+                        room.happy++;
+                    }
+                }
+            }
+        }
+
+        private void place(Long animalId, Placement placement) {
+            remove(animalId);
+            // a room not reported yet has no size, its animals are counted once it is
+            RoomCount room = rooms.computeIfAbsent(placement.roomId, id -> new RoomCount());
+            placements.put(animalId, placement);
+            room.animals.add(animalId);
+            if (isHappy(placement.type, placement.preference, room.size)) {
+                room.happy++;
+            }
+        }
+
+        private void remove(Long animalId) {
+            Placement placement = placements.remove(animalId);
+            if (placement == null) {
+                return;
+            }
+            RoomCount room = rooms.get(placement.roomId);
+            if (room != null && room.animals.remove(animalId) && isHappy(placement.type, placement.preference, room.size)) {
+                room.happy--;
+            }
+        }
+
+        private void replaceAnimals(Long roomId, Map<Long, Placement> animals) {
+            RoomCount room = rooms.get(roomId);
+            for (Long animalId : new ArrayList<>(room.animals)) {
+                if (!animals.containsKey(animalId)) {
+                    remove(animalId);
+                }
+            }
+            animals.forEach(this::place);
+        }
+
+        private void removeRoom(Long roomId) {
+            RoomCount room = rooms.remove(roomId);
+            if (room != null) {
+                room.animals.forEach(placements::remove);
+            }
+        }
+    }
+}
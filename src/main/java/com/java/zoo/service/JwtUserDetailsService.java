@@ -1,8 +1,13 @@
 package com.java.zoo.service;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.java.zoo.entity.User;
 import com.java.zoo.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,12 +15,16 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * Resolved principals are kept in a bounded, TTL based cache keyed by login so that a JWT request does not cost a
+ * database round trip. {@link UserService} evicts the entry whenever the user is changed or removed.
  */
 @Service
 public class JwtUserDetailsService implements UserDetailsService, Serializable {
@@ -23,23 +32,37 @@ public class JwtUserDetailsService implements UserDetailsService, Serializable {
 
     private static final long serialVersionUID = 1523048483306926752L;
 
+    private static final String CACHE_NAME = "principals";
+
     private final UserRepository userRepository;
 
-    public JwtUserDetailsService(UserRepository userRepository) {
+    // login -> password hash, the UserDetails itself is rebuilt per call since Spring Security erases its credentials
+    private final transient Cache<String, String> principalCache;
+
+    public JwtUserDetailsService(UserRepository userRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                                 @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
         this.userRepository = userRepository;
+        this.principalCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principalCache, CACHE_NAME);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) {
-        Optional<User> user = userRepository.findOneByLogin(username);
+        String password = principalCache.get(username, this::findPasswordHash);
 
-        if (!user.isPresent()) {
+        if (password == null) {
             throw new UsernameNotFoundException("User '" + username + "' not found");
         }
 
         return org.springframework.security.core.userdetails.User
                 .withUsername(username)
-                .password(user.get().getPassword())
+                .password(password)
                 .authorities(Stream.of("ROLE_ADMIN", "ROLE_USER")
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList()))
@@ -49,4 +72,21 @@ public class JwtUserDetailsService implements UserDetailsService, Serializable {
                 .disabled(false)
                 .build();
     }
+
+    /**
+     * Drop the cached principal of the given login, the next request will read it again from the database.
+     *
+     * @param login the login of the user that was changed or removed.
+     */
+    public void evict(String login) {
+        if (login != null) {
+            principalCache.invalidate(login);
+        }
+    }
+
+    private String findPasswordHash(String login) {
+        // A null result is not cached by Caffeine, so unknown logins are always looked up again
+        Optional<User> user = userRepository.findOneByLogin(login);
+        return user.map(User::getPassword).orElse(null);
+    }
 }
@@ -0,0 +1,19 @@
+package com.java.zoo.service;
+
+/**
+ * How the CSV files are imported, see {@code load.mode}.
+ */
+public enum LoadMode {
+    /**
+     * Mapped to entities and saved in batches through JPA.
+     */
+    JPA,
+    /**
+     * Handed to the bulk loader of the database, falls back to {@link #JPA} when it is not available.
+     */
+    NATIVE,
+    /**
+     * Compared with the existing rows by title or login, only inserts, updates and deletes are written. Covers user.csv too.
+     */
+    SYNC
+}
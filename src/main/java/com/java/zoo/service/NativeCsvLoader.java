@@ -0,0 +1,158 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.ImportReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Loads the room and animal CSV files through the bulk loader of the database, bypassing JPA.
+ * <p>
+ * MySQL uses {@code LOAD DATA LOCAL INFILE} (the connection needs {@code allowLoadLocalInfile=true}, which only the
+ * {@code native-load} profile sets), H2 uses {@code CSVREAD}. The title is lowercased and the timestamp set in SQL, like
+ * the JPA import does. Ids come from the Hibernate sequence so the entities created afterwards do not collide.
+ * Titles which already exist or appear again further down the file are skipped and counted as rejected, by
+ * {@code IGNORE} on MySQL and by the select on H2. An empty result tells the caller to fall back to the JPA import.
+ */
+@Component
+public class NativeCsvLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(NativeCsvLoader.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${load.native.sequence-name:sequence_generator}")
+    private String sequenceName;
+
+    @Value("${load.native.sequence-increment:50}")
+    private long sequenceIncrement;
+
+    public NativeCsvLoader(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public Optional<ImportReport> loadRooms(Resource resource) {
+        return load(resource, "room",
+                "(@title, @size) SET title = LOWER(TRIM(@title)), size = TRIM(TRAILING '\\r' FROM @size), created = CURRENT_TIMESTAMP(6)",
+                "(id, title, size, created)", "CAST(SIZE AS BIGINT), CURRENT_TIMESTAMP()");
+    }
+
+    public Optional<ImportReport> loadAnimals(Resource resource) {
+        return load(resource, "animal",
+                "(@title, @type, @preference) SET title = LOWER(TRIM(@title)), type = @type, preference = TRIM(TRAILING '\\r' FROM @preference), located = CURRENT_TIMESTAMP(6)",
+                "(id, title, type, preference, located)", "TYPE, CAST(PREFERENCE AS BIGINT), CURRENT_TIMESTAMP()");
+    }
+
+    /**
+     * @param table        target table, also used as entity name in the report.
+     * @param mysqlColumns column list and SET clause of the {@code LOAD DATA} statement.
+     * @param h2Columns    column list of the H2 insert, starting with id and title.
+     * @param h2Values     values of the columns after the title, over the {@code CSVREAD} columns.
+     */
+    private Optional<ImportReport> load(Resource resource, String table, String mysqlColumns, String h2Columns, String h2Values) {
+        ImportReport report = new ImportReport(table);
+        Path staged = null;
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            if (!"MySQL".equalsIgnoreCase(database) && !"H2".equalsIgnoreCase(database)) {
+                log.info("No native bulk loader for {}, importing {} through JPA", database, table);
+                return Optional.empty();
+            }
+            File file;
+            if (resource.isFile()) {
+                file = resource.getFile();
+            } else {
+                // packaged in the jar, the database needs a file on disk
+                staged = stage(resource);
+                file = staged.toFile();
+            }
+            long rows = countRows(file.toPath());
+            report.rowsRead(rows);
+            String path = file.getAbsolutePath();
+            Integer inserted = transactionTemplate.execute(status -> "H2".equalsIgnoreCase(database)
+                    ? jdbcTemplate.update(csvReadInsert(table, h2Columns, h2Values), path)
+                    : loadDataInfile(path, table, mysqlColumns, rows));
+            long imported = inserted == null ? 0 : inserted;
+            report.rowsImported(imported);
+            // rows skipped by the database (duplicate titles) count as rejected
+            report.rowsRejected(rows - imported);
+            log.info("Native import of {} completed: {} rows read, {} imported, {} rejected in {} ms ({} rows/sec)",
+                    table, report.getRead(), report.getImported(), report.getRejected(), report.getElapsedMillis(), report.getRowsPerSecond());
+            return Optional.of(report);
+        } catch (IOException | DataAccessException e) {
+            log.warn("Native import of {} not available, importing through JPA: {}", table, e.getMessage());
+            return Optional.empty();
+        } finally {
+            if (staged != null) {
+                staged.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Insert over {@code CSVREAD} which keeps the first row of every title and skips the titles already in the table,
+     * as {@code IGNORE} does on MySQL; a single duplicate would otherwise fail the whole statement.
+     */
+    private String csvReadInsert(String table, String columns, String values) {
+        return "INSERT INTO " + table + " " + columns
+                + " SELECT NEXT VALUE FOR " + sequenceName + ", D.T, " + values + " FROM ("
+                + "SELECT C.*, LOWER(TRIM(C.TITLE)) T, ROW_NUMBER() OVER (PARTITION BY LOWER(TRIM(C.TITLE)) ORDER BY C.R) N FROM ("
+                + "SELECT ROWNUM() R, CSV.* FROM CSVREAD(?, NULL, 'charset=UTF-8 fieldSeparator=;') CSV) C) D"
+                + " WHERE D.N = 1 AND NOT EXISTS (SELECT 1 FROM " + table + " E WHERE E.title = D.T)";
+    }
+
+    private int loadDataInfile(String path, String table, String columns, long rows) {
+        // reserve rows ids past the last block handed to Hibernate, with one block of margin on both sides
+        Long next = jdbcTemplate.queryForObject("SELECT next_val FROM " + sequenceName + " FOR UPDATE", Long.class);
+        long base = (next == null ? 1L : next) + sequenceIncrement;
+        jdbcTemplate.update("UPDATE " + sequenceName + " SET next_val = ?", base + rows + sequenceIncrement);
+        jdbcTemplate.execute("SET @zoo_id = " + (base - 1));
+        return jdbcTemplate.update("LOAD DATA LOCAL INFILE '" + path.replace("\\", "\\\\").replace("'", "\\'") + "'"
+                + " IGNORE INTO TABLE " + table + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ';' LINES TERMINATED BY '\\n' IGNORE 1 LINES "
+                + columns + ", id = (@zoo_id := @zoo_id + 1)");
+    }
+
+    private static Path stage(Resource resource) throws IOException {
+        Path staged = Files.createTempFile("zoo-import-", ".csv");
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, staged, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return staged;
+    }
+
+    private static long countRows(Path file) throws IOException {
+        long rows = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            // skip the header
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
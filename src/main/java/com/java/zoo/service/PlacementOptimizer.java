@@ -0,0 +1,384 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.BatchMode;
+import com.java.zoo.dto.BatchOperation;
+import com.java.zoo.dto.BatchOperationType;
+import com.java.zoo.dto.BatchRequest;
+import com.java.zoo.dto.PlacementPlan;
+import com.java.zoo.dto.PlacementRequest;
+import com.java.zoo.dto.PlacementScope;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes a room for every unplaced animal, or for every animal, maximizing happy animals and favorite rooms.
+ * <p>
+ * An animal scores {@code zoo.optimizer.happy-weight} in a room which makes it happy and
+ * {@code zoo.optimizer.favorite-weight} in one of its favorite rooms; on a rebalance leaving its current room costs
+ * {@code zoo.optimizer.move-cost}. Without capacities every animal simply gets its best room. With capacities each
+ * worker builds a greedy assignment from its own random order, then improves it with random moves and swaps until the
+ * time budget is spent; the workers run in parallel and the best plan wins.
+ * <p>
+ * The plan is computed from one consistent read and applied through {@link ZooBatchService}, which rejects it if
+ * animals were moved in the meantime.
+ */
+@Service
+public class PlacementOptimizer {
+    private static final Logger log = LoggerFactory.getLogger(PlacementOptimizer.class);
+
+    private static final int UNASSIGNED = -1;
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final FavoriteRepository favoriteRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ForkJoinPool pool;
+
+    private final long defaultTimeBudgetMillis;
+
+    private final long maxTimeBudgetMillis;
+
+    @Value("${zoo.optimizer.happy-weight:10}")
+    private long happyWeight;
+
+    @Value("${zoo.optimizer.favorite-weight:3}")
+    private long favoriteWeight;
+
+    @Value("${zoo.optimizer.move-cost:1}")
+    private long moveCost;
+
+    public PlacementOptimizer(AnimalRepository animalRepository, RoomRepository roomRepository, FavoriteRepository favoriteRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${zoo.optimizer.parallelism:0}") int parallelism,
+                              @Value("${zoo.optimizer.time-budget-ms:2000}") long defaultTimeBudgetMillis,
+                              @Value("${zoo.optimizer.max-time-budget-ms:30000}") long maxTimeBudgetMillis) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.defaultTimeBudgetMillis = defaultTimeBudgetMillis;
+        this.maxTimeBudgetMillis = maxTimeBudgetMillis;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public PlacementPlan plan(PlacementRequest request) {
+        long started = System.currentTimeMillis();
+        PlacementScope scope = request.getScope() == null ? PlacementScope.UNPLACED : request.getScope();
+        Problem problem = readOnlyTransaction.execute(status -> load(scope, request));
+        long budget = Math.min(request.getTimeBudgetMillis() == null ? defaultTimeBudgetMillis : request.getTimeBudgetMillis(), maxTimeBudgetMillis);
+        long deadline = System.nanoTime() + budget * 1_000_000L;
+
+        int workers = problem.constrained && problem.animalIds.length > 1 ? pool.getParallelism() : 1;
+        List<CompletableFuture<Solution>> searches = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            long seed = worker;
+            searches.add(CompletableFuture.supplyAsync(() -> search(problem, seed, deadline), pool));
+        }
+        Solution best = searches.stream().map(CompletableFuture::join)
+                .max(Comparator.comparingLong((Solution solution) -> solution.score)).orElseThrow(IllegalStateException::new);
+
+        PlacementPlan plan = toPlan(problem, best, workers, System.currentTimeMillis() - started);
+        log.info("Placement plan for {} animals in {} rooms: {} happy, {} favorite, {} unassigned, {} operations, {} workers, {} ms",
+                plan.getAnimals() + plan.getUnassigned(), problem.roomIds.length, plan.getHappyAnimals(), plan.getFavoriteMatches(),
+                plan.getUnassigned(), plan.getBatch().getOperations().size(), workers, plan.getElapsedMillis());
+        return plan;
+    }
+
+    private Problem load(PlacementScope scope, PlacementRequest request) {
+        List<Object[]> rooms = roomRepository.findSyncState();
+        Problem problem = new Problem(rooms.size());
+        problem.rebalance = scope == PlacementScope.REBALANCE;
+        Map<Long, Integer> roomIndex = new HashMap<>();
+        for (int r = 0; r < rooms.size(); r++) {
+            Object[] row = rooms.get(r);
+            Long roomId = (Long) row[0];
+            roomIndex.put(roomId, r);
+            problem.roomIds[r] = roomId;
+            problem.roomSizes[r] = (Long) row[2];
+            Integer capacity = request.getRoomCapacities() == null ? null : request.getRoomCapacities().get(roomId);
+            if (capacity == null) {
+                capacity = request.getMaxAnimalsPerRoom();
+            }
+            problem.capacities[r] = capacity == null ? Integer.MAX_VALUE : Math.max(0, capacity);
+            problem.constrained |= capacity != null;
+        }
+
+        List<Object[]> animals = new ArrayList<>();
+        for (Object[] row : animalRepository.findPlacementState()) {
+            Integer current = row[1] == null ? null : roomIndex.get((Long) row[1]);
+            if (row[1] != null && current == null) {
+                // in a room created after the rooms were read, left out of the plan
+                continue;
+            }
+            if (problem.rebalance || current == null) {
+                animals.add(row);
+            } else {
+                // stays where it is
+                problem.occupied[current]++;
+            }
+        }
+        problem.init(animals.size());
+        Map<Long, Integer> animalIndex = new HashMap<>();
+        for (int a = 0; a < animals.size(); a++) {
+            Object[] row = animals.get(a);
+            animalIndex.put((Long) row[0], a);
+            problem.animalIds[a] = (Long) row[0];
+            problem.currentRooms[a] = row[1] == null ? UNASSIGNED : roomIndex.get((Long) row[1]);
+            problem.types[a] = (String) row[2];
+            problem.preferences[a] = (Long) row[3];
+        }
+        Map<Integer, Set<Integer>> favorites = new HashMap<>();
+        for (Object[] row : favoriteRepository.findAllRoomIds()) {
+            Integer a = animalIndex.get((Long) row[0]);
+            Integer r = row[1] == null ? null : roomIndex.get((Long) row[1]);
+            if (a != null && r != null) {
+                favorites.computeIfAbsent(a, key -> new HashSet<>()).add(r);
+            }
+        }
+        favorites.forEach((a, roomSet) -> problem.favorites[a] = roomSet.stream().mapToInt(Integer::intValue).toArray());
+        return problem;
+    }
+
+    private Solution search(Problem problem, long seed, long deadline) {
+        Random random = new Random(seed);
+        int animals = problem.animalIds.length;
+        int rooms = problem.roomIds.length;
+        Solution solution = new Solution(animals, problem.occupied);
+
+        // greedy: worker 0 in read order, the others in their own random order and from a random first room
+        List<Integer> order = new ArrayList<>(animals);
+        for (int a = 0; a < animals; a++) {
+            order.add(a);
+        }
+        if (seed > 0) {
+            Collections.shuffle(order, random);
+        }
+        int offset = seed > 0 && rooms > 0 ? random.nextInt(rooms) : 0;
+        for (int a : order) {
+            int best = UNASSIGNED;
+            long bestScore = Long.MIN_VALUE;
+            for (int i = 0; i < rooms; i++) {
+                int r = (i + offset) % rooms;
+                if (solution.load[r] >= problem.capacities[r]) {
+                    continue;
+                }
+                long score = problem.score(a, r, happyWeight, favoriteWeight, moveCost);
+                if (score > bestScore || (score == bestScore && r == problem.currentRooms[a])) {
+                    best = r;
+                    bestScore = score;
+                }
+            }
+            solution.assign(a, best);
+            solution.score += best == UNASSIGNED ? problem.unassignedScore(a, moveCost) : bestScore;
+        }
+        if (!problem.constrained || animals == 0 || rooms == 0) {
+            // every animal got its best room
+            return solution;
+        }
+
+        // local search: random moves to rooms with space and random swaps, kept if they improve the score
+        long staleLimit = Math.max(10_000L, 20L * animals);
+        long stale = 0;
+        for (long step = 0; stale < staleLimit; step++) {
+            if ((step & 255) == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+            int a = random.nextInt(animals);
+            int from = solution.rooms[a];
+            long before = problem.scoreOf(a, from, happyWeight, favoriteWeight, moveCost);
+            long delta;
+            if (random.nextBoolean()) {
+                int to = random.nextInt(rooms);
+                if (to == from || solution.load[to] >= problem.capacities[to]) {
+                    stale++;
+                    continue;
+                }
+                delta = problem.score(a, to, happyWeight, favoriteWeight, moveCost) - before;
+                if (delta > 0) {
+                    solution.assign(a, to);
+                }
+            } else {
+                int b = random.nextInt(animals);
+                int other = solution.rooms[b];
+                if (other == from) {
+                    stale++;
+                    continue;
+                }
+                delta = problem.scoreOf(a, other, happyWeight, favoriteWeight, moveCost) + problem.scoreOf(b, from, happyWeight, favoriteWeight, moveCost)
+                        - before - problem.scoreOf(b, other, happyWeight, favoriteWeight, moveCost);
+                if (delta > 0) {
+                    solution.assign(a, other);
+                    solution.assign(b, from);
+                }
+            }
+            if (delta > 0) {
+                solution.score += delta;
+                stale = 0;
+            } else {
+                stale++;
+            }
+        }
+        return solution;
+    }
+
+    private PlacementPlan toPlan(Problem problem, Solution solution, int workers, long elapsedMillis) {
+        List<BatchOperation> operations = new ArrayList<>();
+        int assigned = 0;
+        int happy = 0;
+        int favorite = 0;
+        for (int a = 0; a < problem.animalIds.length; a++) {
+            int target = solution.rooms[a];
+            int current = problem.currentRooms[a];
+            if (target != UNASSIGNED) {
+                assigned++;
+                happy += problem.isHappy(a, target) ? 1 : 0;
+                favorite += problem.isFavorite(a, target) ? 1 : 0;
+            }
+            if (target == current) {
+                continue;
+            }
+            Long animalId = problem.animalIds[a];
+            if (target == UNASSIGNED) {
+                operations.add(new BatchOperation(BatchOperationType.REMOVE, animalId, null));
+            } else if (current == UNASSIGNED) {
+                operations.add(new BatchOperation(BatchOperationType.PLACE, animalId, problem.roomIds[target]));
+            } else {
+                operations.add(new BatchOperation(BatchOperationType.MOVE, animalId, problem.roomIds[target]));
+            }
+        }
+        return new PlacementPlan(problem.rebalance ? PlacementScope.REBALANCE : PlacementScope.UNPLACED, assigned, happy, favorite,
+                problem.animalIds.length - assigned, solution.score, workers, elapsedMillis, new BatchRequest(BatchMode.ALL_OR_NOTHING, operations));
+    }
+
+    /**
+     * Rooms and animals of a plan by index, read once and shared read-only by the workers.
+     */
+    private static final class Problem {
+        private final Long[] roomIds;
+
+        private final Long[] roomSizes;
+
+        private final int[] capacities;
+
+        /**
+         * Animals outside the scope in each room.
+         */
+        private final int[] occupied;
+
+        private boolean constrained;
+
+        private boolean rebalance;
+
+        private Long[] animalIds;
+
+        private int[] currentRooms;
+
+        private String[] types;
+
+        private Long[] preferences;
+
+        private int[][] favorites;
+
+        private Problem(int rooms) {
+            roomIds = new Long[rooms];
+            roomSizes = new Long[rooms];
+            capacities = new int[rooms];
+            occupied = new int[rooms];
+        }
+
+        private void init(int animals) {
+            animalIds = new Long[animals];
+            currentRooms = new int[animals];
+            types = new String[animals];
+            preferences = new Long[animals];
+            favorites = new int[animals][];
+        }
+
+        private boolean isHappy(int a, int r) {
+            return HappyAnimalCounter.isHappy(types[a], preferences[a], roomSizes[r]);
+        }
+
+        private boolean isFavorite(int a, int r) {
+            return favorites[a] != null && Arrays.stream(favorites[a]).anyMatch(room -> room == r);
+        }
+
+        private long score(int a, int r, long happyWeight, long favoriteWeight, long moveCost) {
+            long score = 0;
+            if (isHappy(a, r)) {
+                score += happyWeight;
+            }
+            if (isFavorite(a, r)) {
+                score += favoriteWeight;
+            }
+            if (rebalance && currentRooms[a] != UNASSIGNED && currentRooms[a] != r) {
+                score -= moveCost;
+            }
+            return score;
+        }
+
+        private long unassignedScore(int a, long moveCost) {
+            return currentRooms[a] != UNASSIGNED ? -moveCost : 0;
+        }
+
+        private long scoreOf(int a, int r, long happyWeight, long favoriteWeight, long moveCost) {
+            return r == UNASSIGNED ? unassignedScore(a, moveCost) : score(a, r, happyWeight, favoriteWeight, moveCost);
+        }
+    }
+
+    /**
+     * Room index of every animal of the problem and the resulting room loads, owned by one worker.
+     */
+    private static final class Solution {
+        private final int[] rooms;
+
+        private final int[] load;
+
+        private long score;
+
+        private Solution(int animals, int[] occupied) {
+            rooms = new int[animals];
+            Arrays.fill(rooms, UNASSIGNED);
+            load = occupied.clone();
+        }
+
+        private void assign(int a, int r) {
+            if (rooms[a] != UNASSIGNED) {
+                load[rooms[a]]--;
+            }
+            rooms[a] = r;
+            if (r != UNASSIGNED) {
+                load[r]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.RebalancerStatus;
+import com.java.zoo.entity.RebalanceMove;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RebalanceMoveRepository;
+import com.java.zoo.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job which moves placed animals to rooms where they are happy, a few at a time, so the zoo drifts
+ * toward more happy animals without one large rebalance.
+ * <p>
+ * Every {@code zoo.rebalancer.interval-ms} a run reads the placements, looks for single moves of unhappy animals to
+ * a room which makes them happy and, when {@code max-animals-per-room} leaves no space there, for swaps with an
+ * animal of that room which raise the happy count. The search runs on up to {@code max-concurrency} threads and
+ * stops once it used {@code cpu-budget-ms} of CPU time; up to {@code batch-size} of the moves found are then applied
+ * through {@link ZooService} in one transaction and logged as {@link RebalanceMove}. A move whose animals were moved
+ * since the read is skipped. Unplaced animals are left alone.
+ */
+@Component
+public class Rebalancer {
+    private static final Logger log = LoggerFactory.getLogger(Rebalancer.class);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final RebalanceMoveRepository rebalanceMoveRepository;
+
+    private final ZooService zooService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Counter movesCounter;
+
+    private final boolean enabled;
+
+    private final long intervalMillis;
+
+    private final int batchSize;
+
+    private final long cpuBudgetNanos;
+
+    private final int maxAnimalsPerRoom;
+
+    private final ForkJoinPool pool;
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong movesApplied = new AtomicLong();
+
+    private final AtomicLong movesSkipped = new AtomicLong();
+
+    // where the search of every slice starts, moved on by the animals searched in each run
+    private long searchOffset;
+
+    private volatile boolean paused;
+
+    private volatile Instant lastRun;
+
+    private volatile int lastRunMoves;
+
+    private ScheduledExecutorService scheduler;
+
+    public Rebalancer(AnimalRepository animalRepository, RoomRepository roomRepository, RebalanceMoveRepository rebalanceMoveRepository,
+                      ZooService zooService, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                      @Value("${zoo.rebalancer.enabled:false}") boolean enabled,
+                      @Value("${zoo.rebalancer.interval-ms:10000}") long intervalMillis,
+                      @Value("${zoo.rebalancer.batch-size:10}") int batchSize,
+                      @Value("${zoo.rebalancer.cpu-budget-ms:100}") long cpuBudgetMillis,
+                      @Value("${zoo.rebalancer.max-concurrency:1}") int maxConcurrency,
+                      @Value("${zoo.rebalancer.max-animals-per-room:0}") int maxAnimalsPerRoom) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.rebalanceMoveRepository = rebalanceMoveRepository;
+        this.zooService = zooService;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.movesCounter = Counter.builder("zoo.rebalancer.moves")
+                .description("Moves and swaps applied by the background rebalancer")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = Math.max(1, batchSize);
+        this.cpuBudgetNanos = TimeUnit.MILLISECONDS.toNanos(cpuBudgetMillis);
+        this.maxAnimalsPerRoom = maxAnimalsPerRoom > 0 ? maxAnimalsPerRoom : Integer.MAX_VALUE;
+        this.pool = new ForkJoinPool(Math.max(1, maxConcurrency));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledRun, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Rebalancer enabled, up to {} moves every {} ms", batchSize, intervalMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        pool.shutdownNow();
+    }
+
+    public void pause() {
+        paused = true;
+        log.info("Rebalancer paused");
+    }
+
+    public void resume() {
+        paused = false;
+        log.info("Rebalancer resumed");
+    }
+
+    public RebalancerStatus getStatus() {
+        return new RebalancerStatus(enabled, paused, runs.get(), movesApplied.get(), movesSkipped.get(), lastRun, lastRunMoves);
+    }
+
+    private void scheduledRun() {
+        if (paused) {
+            return;
+        }
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule
+            log.warn("Rebalancer run failed", e);
+        }
+    }
+
+    /**
+     * Search and apply one batch of moves, whether or not the rebalancer is paused or scheduled.
+     *
+     * @return the moves and swaps applied.
+     */
+    public synchronized int runOnce() {
+        State state = readOnlyTransaction.execute(status -> load());
+        List<Move> moves = select(state, search(state));
+        int applied = moves.isEmpty() ? 0 : apply(moves);
+        runs.incrementAndGet();
+        lastRun = Instant.now();
+        lastRunMoves = applied;
+        if (applied > 0) {
+            log.info("Rebalancer applied {} of {} moves", applied, moves.size());
+        }
+        return applied;
+    }
+
+    private State load() {
+        List<Object[]> rooms = roomRepository.findSyncState();
+        Map<Long, Integer> roomIndex = new HashMap<>();
+        for (int r = 0; r < rooms.size(); r++) {
+            roomIndex.put((Long) rooms.get(r)[0], r);
+        }
+        // an animal in a room created after the rooms were read is treated as in no room and left alone
+        List<Object[]> animals = new ArrayList<>();
+        for (Object[] row : animalRepository.findPlacements()) {
+            if (roomIndex.containsKey((Long) row[1])) {
+                animals.add(row);
+            }
+        }
+        State state = new State(rooms.size(), animals.size());
+        for (int r = 0; r < rooms.size(); r++) {
+            Object[] row = rooms.get(r);
+            state.roomIds[r] = (Long) row[0];
+            state.roomSizes[r] = (Long) row[2];
+            state.roomAnimals.add(new ArrayList<>());
+        }
+        for (int a = 0; a < animals.size(); a++) {
+            Object[] row = animals.get(a);
+            int r = roomIndex.get((Long) row[1]);
+            state.animalIds[a] = (Long) row[0];
+            state.types[a] = (String) row[2];
+            state.preferences[a] = (Long) row[3];
+            state.rooms[a] = r;
+            state.roomAnimals.get(r).add(a);
+        }
+        return state;
+    }
+
+    /**
+     * Rooms which would make each unhappy animal happy, computed in parallel over slices of the animals.
+     * <p>
+     * Each slice is searched from a rotating offset, so the animals behind those without any happy room are reached
+     * by a later run even when the CPU budget runs out before them.
+     *
+     * @return candidate room indexes by animal index in read order, only for the animals searched within the CPU budget.
+     */
+    private Map<Integer, int[]> search(State state) {
+        List<Integer> unhappy = new ArrayList<>();
+        for (int a = 0; a < state.animalIds.length; a++) {
+            if (!state.isHappy(a, state.rooms[a])) {
+                unhappy.add(a);
+            }
+        }
+        if (unhappy.isEmpty()) {
+            return new HashMap<>();
+        }
+        int workers = Math.min(pool.getParallelism(), unhappy.size());
+        long budgetPerWorker = cpuBudgetNanos / workers;
+        List<CompletableFuture<SearchedSlice>> slices = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            List<Integer> slice = rotate(unhappy.subList(worker * unhappy.size() / workers, (worker + 1) * unhappy.size() / workers), searchOffset);
+            slices.add(CompletableFuture.supplyAsync(() -> searchSlice(state, slice, budgetPerWorker), pool));
+        }
+        Map<Integer, int[]> candidates = new TreeMap<>();
+        int searched = Integer.MAX_VALUE;
+        for (CompletableFuture<SearchedSlice> slice : slices) {
+            SearchedSlice result = slice.join();
+            candidates.putAll(result.candidates);
+            searched = Math.min(searched, result.searched);
+        }
+        // the least searched slice decides, the others search part of their last window again
+        searchOffset += searched;
+        return candidates;
+    }
+
+    private static List<Integer> rotate(List<Integer> slice, long offset) {
+        int start = (int) (offset % slice.size());
+        List<Integer> rotated = new ArrayList<>(slice.subList(start, slice.size()));
+        rotated.addAll(slice.subList(0, start));
+        return rotated;
+    }
+
+    private static SearchedSlice searchSlice(State state, List<Integer> animals, long budgetNanos) {
+        long started = cpuTime();
+        SearchedSlice slice = new SearchedSlice();
+        int[] happyRooms = new int[state.roomIds.length];
+        for (int a : animals) {
+            // at least one animal per run, so the offset always moves on
+            if (slice.searched > 0 && cpuTime() - started > budgetNanos) {
+                break;
+            }
+            slice.searched++;
+            int count = 0;
+            for (int r = 0; r < state.roomIds.length; r++) {
+                if (state.isHappy(a, r)) {
+                    happyRooms[count++] = r;
+                }
+            }
+            if (count > 0) {
+                slice.candidates.put(a, Arrays.copyOf(happyRooms, count));
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Turn the candidates into at most {@code batch-size} moves and swaps, each animal in one of them at most,
+     * preferring the least crowded room.
+     */
+    private List<Move> select(State state, Map<Integer, int[]> candidates) {
+        List<Move> moves = new ArrayList<>();
+        int[] load = new int[state.roomIds.length];
+        for (int r = 0; r < load.length; r++) {
+            load[r] = state.roomAnimals.get(r).size();
+        }
+        Set<Integer> touched = new HashSet<>();
+        for (Map.Entry<Integer, int[]> candidate : candidates.entrySet()) {
+            if (moves.size() == batchSize) {
+                break;
+            }
+            int a = candidate.getKey();
+            if (touched.contains(a)) {
+                continue;
+            }
+            int from = state.rooms[a];
+            int to = -1;
+            for (int r : candidate.getValue()) {
+                if (load[r] < maxAnimalsPerRoom && (to == -1 || load[r] < load[to])) {
+                    to = r;
+                }
+            }
+            if (to != -1) {
+                touched.add(a);
+                load[from]--;
+                load[to]++;
+                moves.add(new Move(state, a, from, to, -1, 1));
+                continue;
+            }
+            Move swap = findSwap(state, a, candidate.getValue(), touched);
+            if (swap != null) {
+                touched.add(a);
+                touched.add(swap.swapped);
+                moves.add(swap);
+            }
+        }
+        return moves;
+    }
+
+    private static Move findSwap(State state, int a, int[] targets, Set<Integer> touched) {
+        int from = state.rooms[a];
+        for (int to : targets) {
+            for (int b : state.roomAnimals.get(to)) {
+                if (touched.contains(b)) {
+                    continue;
+                }
+                // a becomes happy, b has to lose nothing
+                int gain = 1 + (state.isHappy(b, from) ? 1 : 0) - (state.isHappy(b, to) ? 1 : 0);
+                if (gain > 0) {
+                    return new Move(state, a, from, to, b, gain);
+                }
+            }
+        }
+        return null;
+    }
+
+    private int apply(List<Move> moves) {
+        Integer applied = transactionTemplate.execute(status -> {
+            Set<Long> animalIds = new HashSet<>();
+            moves.forEach(move -> {
+                animalIds.add(move.animalId);
+                if (move.swappedAnimalId != null) {
+                    animalIds.add(move.swappedAnimalId);
+                }
+            });
+            Map<Long, Long> currentRooms = new HashMap<>();
+            animalRepository.findRoomIdsByIdIn(animalIds).forEach(row -> currentRooms.put((Long) row[0], (Long) row[1]));
+            List<RebalanceMove> logged = new ArrayList<>();
+            Instant now = Instant.now();
+            for (Move move : moves) {
+                boolean current = Objects.equals(currentRooms.get(move.animalId), move.fromRoomId)
+                        && (move.swappedAnimalId == null || Objects.equals(currentRooms.get(move.swappedAnimalId), move.toRoomId));
+                if (!current || !zooService.moveAnimal(move.animalId, move.toRoomId).isPresent()) {
+                    movesSkipped.incrementAndGet();
+                    continue;
+                }
+                if (move.swappedAnimalId != null && !zooService.moveAnimal(move.swappedAnimalId, move.fromRoomId).isPresent()) {
+                    // the swapped animal moved since the read, undo the first half
+                    movesSkipped.incrementAndGet();
+                    if (!zooService.moveAnimal(move.animalId, move.fromRoomId).isPresent()) {
+                        log.warn("Rebalancer could not undo the half applied swap of animals {} and {}, batch rolled back",
+                                move.animalId, move.swappedAnimalId);
+                        status.setRollbackOnly();
+                        movesSkipped.addAndGet(logged.size());
+                        return 0;
+                    }
+                    continue;
+                }
+                logged.add(move.toLog(now));
+            }
+            rebalanceMoveRepository.saveAll(logged);
+            return logged.size();
+        });
+        int count = applied == null ? 0 : applied;
+        movesApplied.addAndGet(count);
+        movesCounter.increment(count);
+        return count;
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Candidate rooms found in a slice and the number of its animals searched.
+     */
+    private static final class SearchedSlice {
+        private final Map<Integer, int[]> candidates = new HashMap<>();
+
+        private int searched;
+    }
+
+    /**
+     * Placements read at the start of a run, by index, shared read-only by the search threads.
+     */
+    private static final class State {
+        private final Long[] roomIds;
+
+        private final Long[] roomSizes;
+
+        private final List<List<Integer>> roomAnimals;
+
+        private final Long[] animalIds;
+
+        private final String[] types;
+
+        private final Long[] preferences;
+
+        private final int[] rooms;
+
+        private State(int roomCount, int animalCount) {
+            roomIds = new Long[roomCount];
+            roomSizes = new Long[roomCount];
+            roomAnimals = new ArrayList<>(roomCount);
+            animalIds = new Long[animalCount];
+            types = new String[animalCount];
+            preferences = new Long[animalCount];
+            rooms = new int[animalCount];
+        }
+
+        private boolean isHappy(int a, int r) {
+            return HappyAnimalCounter.isHappy(types[a], preferences[a], roomSizes[r]);
+        }
+    }
+
+    /**
+     * A single move, or a swap when {@link #swappedAnimalId} is set.
+     */
+    private static final class Move {
+        private final Long animalId;
+
+        private final Long fromRoomId;
+
+        private final Long toRoomId;
+
+        private final int swapped;
+
+        private final Long swappedAnimalId;
+
+        private final int happyGain;
+
+        private Move(State state, int a, int from, int to, int swapped, int happyGain) {
+            this.animalId = state.animalIds[a];
+            this.fromRoomId = state.roomIds[from];
+            this.toRoomId = state.roomIds[to];
+            this.swapped = swapped;
+            this.swappedAnimalId = swapped == -1 ? null : state.animalIds[swapped];
+            this.happyGain = happyGain;
+        }
+
+        private RebalanceMove toLog(Instant applied) {
+            RebalanceMove move = new RebalanceMove();
+            move.setAnimalId(animalId);
+            move.setFromRoomId(fromRoomId);
+            move.setToRoomId(toRoomId);
+            move.setSwappedAnimalId(swappedAnimalId);
+            move.setHappyGain(happyGain);
+            move.setApplied(applied);
+            return move;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.SnapshotSummary;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Favorite;
+import com.java.zoo.entity.Room;
+import com.java.zoo.entity.User;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service class to export the whole zoo to a binary snapshot and to restore it on startup.
+ * <p>
+ * Layout (big endian): magic {@code ZOOS}, {@code short} version, {@code long} export time, then the sections users, rooms,
+ * animals and favorites. Each section starts with its tag, every record is preceded by {@code 1} and the section ends
+ * with {@code 0}. Strings are a length prefixed UTF-8 ({@code -1} for null), nullable numbers and instants a presence
+ * byte followed by the value. Ids are written as they are and remapped to the newly generated ones on restore.
+ */
+@Service
+public class SnapshotService {
+
+    static final int MAGIC = 0x5A4F4F53;
+    static final short VERSION = 1;
+
+    private static final byte SECTION_USERS = 1;
+    private static final byte SECTION_ROOMS = 2;
+    private static final byte SECTION_ANIMALS = 3;
+    private static final byte SECTION_FAVORITES = 4;
+    private static final byte RECORD = 1;
+    private static final byte END_OF_SECTION = 0;
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final UserRepository userRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final AnimalRepository animalRepository;
+
+    private final FavoriteRepository favoriteRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final DataLoadStatus dataLoadStatus;
+
+    @Value("${load.snapshot.file:snapshot/zoo.snapshot}")
+    private String snapshotFile;
+
+    @Value("${load.batch-size:500}")
+    private int batchSize;
+
+    public SnapshotService(UserRepository userRepository, RoomRepository roomRepository, AnimalRepository animalRepository,
+                           FavoriteRepository favoriteRepository, TransactionTemplate transactionTemplate, EntityManager entityManager,
+                           DataLoadStatus dataLoadStatus) {
+        this.userRepository = userRepository;
+        this.roomRepository = roomRepository;
+        this.animalRepository = animalRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.dataLoadStatus = dataLoadStatus;
+    }
+
+    public Path getSnapshotPath() {
+        return Paths.get(snapshotFile);
+    }
+
+    /**
+     * Write the current state to the snapshot file. The file is written next to the target and moved over it when complete.
+     *
+     * @return the counters of the export.
+     * @throws IOException when the snapshot file cannot be written.
+     */
+    public SnapshotSummary export() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Path target = getSnapshotPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        SnapshotSummary summary = newSummary(target);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(startedAt);
+            // one read only transaction, so the sections reference each other consistently
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try {
+                    summary.setUsers(writeSection(out, SECTION_USERS, userRepository::findByIdGreaterThanOrderByIdAsc, User::getId, SnapshotService::writeUser));
+                    summary.setRooms(writeSection(out, SECTION_ROOMS, roomRepository::findByIdGreaterThanOrderByIdAsc, Room::getId, SnapshotService::writeRoom));
+                    summary.setAnimals(writeSection(out, SECTION_ANIMALS, animalRepository::findByIdGreaterThanOrderByIdAsc, Animal::getId, SnapshotService::writeAnimal));
+                    summary.setFavorites(writeSection(out, SECTION_FAVORITES, favoriteRepository::findByIdGreaterThanOrderByIdAsc, Favorite::getId, SnapshotService::writeFavorite));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        summary.setBytes(Files.size(target));
+        summary.setElapsedMillis(System.currentTimeMillis() - startedAt);
+        log.info("Snapshot exported: {}", summary);
+        return summary;
+    }
+
+    /**
+     * Restore the snapshot file into the empty schema, replacing the CSV import on startup.
+     * The file is memory mapped and the stored password hashes are used as they are.
+     *
+     * @return the counters of the restore.
+     * @throws IOException when the snapshot file cannot be read or is not a supported snapshot.
+     */
+    public SnapshotSummary restore() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Path source = getSnapshotPath().toAbsolutePath();
+        SnapshotSummary summary = newSummary(source);
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + source + " is larger than 2 GB and cannot be mapped");
+            }
+            dataLoadStatus.start(DataLoadStatus.Phase.SNAPSHOT, size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(source + " is not a zoo snapshot");
+            }
+            short version = buffer.getShort();
+            if (version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ", this release reads up to " + VERSION);
+            }
+            log.info("Restoring snapshot version {} exported at {}", version, Instant.ofEpochMilli(buffer.getLong()));
+
+            Map<Long, Long> roomIds = new HashMap<>();
+            Map<Long, Long> animalIds = new HashMap<>();
+            summary.setUsers(readSection(buffer, SECTION_USERS, SnapshotService::readUser, row -> {
+            }, userRepository::saveAll, User::getId, null));
+            summary.setRooms(readSection(buffer, SECTION_ROOMS, SnapshotService::readRoom, row -> {
+            }, roomRepository::saveAll, Room::getId, roomIds));
+            summary.setAnimals(readSection(buffer, SECTION_ANIMALS, SnapshotService::readAnimal,
+                    row -> row.entity.setRoom(row.reference == null ? null : entityManager.getReference(Room.class, remap(roomIds, row.reference, "room"))),
+                    animalRepository::saveAll, Animal::getId, animalIds));
+            summary.setFavorites(readSection(buffer, SECTION_FAVORITES, SnapshotService::readFavorite,
+                    row -> {
+                        row.entity.setAnimal(row.reference == null ? null : entityManager.getReference(Animal.class, remap(animalIds, row.reference, "animal")));
+                        row.entity.setRoomId(row.entity.getRoomId() == null ? null : remap(roomIds, row.entity.getRoomId(), "room"));
+                    },
+                    favoriteRepository::saveAll, Favorite::getId, null));
+
+            summary.setVersion(version);
+            summary.setBytes(size);
+            summary.setElapsedMillis(System.currentTimeMillis() - startedAt);
+            dataLoadStatus.ready();
+            log.info("Snapshot restored: {}", summary);
+            return summary;
+        } catch (IOException | RuntimeException e) {
+            dataLoadStatus.failed(e);
+            throw e;
+        }
+    }
+
+    private SnapshotSummary newSummary(Path file) {
+        SnapshotSummary summary = new SnapshotSummary();
+        summary.setFile(file.toString());
+        summary.setVersion(VERSION);
+        return summary;
+    }
+
+    private <E> long writeSection(DataOutputStream out, byte section, BiFunction<Long, Pageable, List<E>> pageReader,
+                                  Function<E, Long> idOf, RecordWriter<E> writer) throws IOException {
+        out.writeByte(section);
+        long count = 0;
+        List<E> page = pageReader.apply(Long.MIN_VALUE, PageRequest.of(0, batchSize));
+        while (!page.isEmpty()) {
+            for (E entity : page) {
+                out.writeByte(RECORD);
+                writer.write(out, entity);
+            }
+            count += page.size();
+            Long lastId = idOf.apply(page.get(page.size() - 1));
+            // keep the persistence context from growing with the table
+            entityManager.clear();
+            page = pageReader.apply(lastId, PageRequest.of(0, batchSize));
+        }
+        out.writeByte(END_OF_SECTION);
+        return count;
+    }
+
+    private <E> long readSection(ByteBuffer buffer, byte section, Function<ByteBuffer, Row<E>> reader, Consumer<Row<E>> linker,
+                                 Function<List<E>, List<E>> saveAll, Function<E, Long> idOf, Map<Long, Long> newIds) throws IOException {
+        byte tag = buffer.get();
+        if (tag != section) {
+            throw new IOException("Corrupt snapshot, expected section " + section + " but found " + tag);
+        }
+        long count = 0;
+        int reported = buffer.position();
+        List<Row<E>> chunk = new ArrayList<>(batchSize);
+        while (buffer.get() == RECORD) {
+            chunk.add(reader.apply(buffer));
+            if (chunk.size() >= batchSize) {
+                count += persistChunk(chunk, linker, saveAll, idOf, newIds);
+                dataLoadStatus.progress(buffer.position() - (long) reported);
+                reported = buffer.position();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            count += persistChunk(chunk, linker, saveAll, idOf, newIds);
+        }
+        dataLoadStatus.progress(buffer.position() - (long) reported);
+        return count;
+    }
+
+    private <E> int persistChunk(List<Row<E>> chunk, Consumer<Row<E>> linker, Function<List<E>, List<E>> saveAll,
+                                 Function<E, Long> idOf, Map<Long, Long> newIds) {
+        int size = chunk.size();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<E> entities = new ArrayList<>(size);
+            for (Row<E> row : chunk) {
+                linker.accept(row);
+                entities.add(row.entity);
+            }
+            List<E> saved = saveAll.apply(entities);
+            if (newIds != null) {
+                for (int i = 0; i < size; i++) {
+                    newIds.put(chunk.get(i).id, idOf.apply(saved.get(i)));
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        chunk.clear();
+        return size;
+    }
+
+    private static Long remap(Map<Long, Long> newIds, Long oldId, String entityName) {
+        Long newId = newIds.get(oldId);
+        if (newId == null) {
+            throw new IllegalStateException("Corrupt snapshot, unknown " + entityName + " id " + oldId);
+        }
+        return newId;
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        out.writeLong(user.getId());
+        writeString(out, user.getLogin());
+        writeString(out, user.getPassword());
+        writeString(out, user.getFirstName());
+        writeString(out, user.getLastName());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLangKey());
+        writeString(out, user.getCreatedBy());
+        writeInstant(out, user.getCreatedDate());
+        writeInstant(out, user.getLastModifiedDate());
+    }
+
+    private static Row<User> readUser(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        User user = new User();
+        user.setLogin(readString(buffer));
+        user.setPassword(readString(buffer));
+        user.setFirstName(readString(buffer));
+        user.setLastName(readString(buffer));
+        user.setEmail(readString(buffer));
+        user.setLangKey(readString(buffer));
+        user.setCreatedBy(readString(buffer));
+        user.setCreatedDate(readInstant(buffer));
+        user.setLastModifiedDate(readInstant(buffer));
+        return new Row<>(id, user, null);
+    }
+
+    private static void writeRoom(DataOutputStream out, Room room) throws IOException {
+        out.writeLong(room.getId());
+        writeString(out, room.getTitle());
+        writeLong(out, room.getSize());
+        writeInstant(out, room.getCreated());
+    }
+
+    private static Row<Room> readRoom(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        Room room = new Room();
+        room.setTitle(readString(buffer));
+        room.setSize(readLong(buffer));
+        room.setCreated(readInstant(buffer));
+        return new Row<>(id, room, null);
+    }
+
+    private static void writeAnimal(DataOutputStream out, Animal animal) throws IOException {
+        out.writeLong(animal.getId());
+        writeString(out, animal.getTitle());
+        writeInstant(out, animal.getLocated());
+        writeString(out, animal.getType());
+        writeLong(out, animal.getPreference());
+        // the id of the lazy room proxy is read without initializing it
+        writeLong(out, animal.getRoom() == null ? null : animal.getRoom().getId());
+    }
+
+    private static Row<Animal> readAnimal(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        Animal animal = new Animal();
+        animal.setTitle(readString(buffer));
+        animal.setLocated(readInstant(buffer));
+        animal.setType(readString(buffer));
+        animal.setPreference(readLong(buffer));
+        return new Row<>(id, animal, readLong(buffer));
+    }
+
+    private static void writeFavorite(DataOutputStream out, Favorite favorite) throws IOException {
+        out.writeLong(favorite.getId());
+        writeLong(out, favorite.getAnimal() == null ? null : favorite.getAnimal().getId());
+        writeLong(out, favorite.getRoomId());
+    }
+
+    private static Row<Favorite> readFavorite(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        Long animalId = readLong(buffer);
+        Favorite favorite = new Favorite();
+        favorite.setRoomId(readLong(buffer));
+        return new Row<>(id, favorite, animalId);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getLong();
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter<E> {
+        void write(DataOutputStream out, E entity) throws IOException;
+    }
+
+    /**
+     * A restored entity with its id in the snapshot and the snapshot id of the entity it points to.
+     */
+    private static final class Row<E> {
+        private final long id;
+        private final E entity;
+        private final Long reference;
+
+        private Row(long id, E entity, Long reference) {
+            this.id = id;
+            this.entity = entity;
+            this.reference = reference;
+        }
+    }
+}
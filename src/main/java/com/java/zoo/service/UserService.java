@@ -2,18 +2,30 @@ package com.java.zoo.service;
 
 
 import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.KeysetRequest;
+import com.java.zoo.dto.KeysetSlice;
 import com.java.zoo.dto.UserDTO;
 import com.java.zoo.entity.User;
 import com.java.zoo.exception.InvalidPasswordException;
+import com.java.zoo.repository.Filters;
+import com.java.zoo.repository.KeysetRepository;
 import com.java.zoo.repository.UserRepository;
+import com.java.zoo.security.IssuedTokenRegistry;
+import com.java.zoo.security.VerifiedCredentialCache;
 import com.java.zoo.util.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -21,22 +33,141 @@ import java.util.stream.Collectors;
  */
 @Service
 public class UserService {
+    private static final Pattern BCRYPT_HASH = Pattern.compile(Constants.BCRYPT_HASH_REGEX);
+
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final JwtUserDetailsService jwtUserDetailsService;
+
+    private final VerifiedCredentialCache verifiedCredentialCache;
+
+    private final IssuedTokenRegistry issuedTokenRegistry;
+
+    private final KeysetRepository keysetRepository;
+
+    // BCrypt workers for bulk registration, sized to the cores unless configured
+    private final ForkJoinPool hashPool;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUserDetailsService jwtUserDetailsService,
+                       VerifiedCredentialCache verifiedCredentialCache, IssuedTokenRegistry issuedTokenRegistry,
+                       KeysetRepository keysetRepository,
+                       @Value("${load.hash-parallelism:0}") int hashParallelism) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.jwtUserDetailsService = jwtUserDetailsService;
+        this.verifiedCredentialCache = verifiedCredentialCache;
+        this.issuedTokenRegistry = issuedTokenRegistry;
+        this.keysetRepository = keysetRepository;
+        this.hashPool = new ForkJoinPool(hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors());
     }
 
 
     public User registerUser(UserDTO userDTO) {
 
+        User newUser = toNewUser(userDTO, passwordEncoder.encode(userDTO.getPassword()));
+        userRepository.save(newUser);
+        evictUserDetails(newUser.getLogin());
+        log.debug("Created Information for User: {}", newUser);
+        return newUser;
+    }
+
+    /**
+     * Register a chunk of users with a single saveAll, used by the CSV import.
+     * <p>
+     * Passwords are hashed in parallel on the hash pool. A password which is already a BCrypt hash is stored as is.
+     *
+     * @param userDTOs users to create.
+     * @return the created users.
+     */
+    public List<User> registerUsers(List<UserDTO> userDTOs) {
+        List<User> newUsers = hashPool.submit(() -> userDTOs.parallelStream()
+                .map(userDTO -> toNewUser(userDTO, encodeIfClearText(userDTO.getPassword())))
+                .collect(Collectors.toList()))
+                .join();
+        userRepository.saveAll(newUsers);
+        newUsers.forEach(user -> evictUserDetails(user.getLogin()));
+        log.debug("Created {} users", newUsers.size());
+        return newUsers;
+    }
+
+    /**
+     * Apply the profile of a chunk of existing users, used by the CSV sync.
+     * <p>
+     * The password is only replaced when the new value is a BCrypt hash, a clear text password would need a BCrypt
+     * check per row to detect a change.
+     *
+     * @param changes user id to its new values.
+     * @return the updated users.
+     */
+    public List<User> updateUsers(Map<Long, UserDTO> changes) {
+        List<User> users = userRepository.findAllById(changes.keySet());
+        for (User user : users) {
+            UserDTO userDTO = changes.get(user.getId());
+            user.setFirstName(userDTO.getFirstName());
+            user.setLastName(userDTO.getLastName());
+            if (userDTO.getEmail() != null) {
+                user.setEmail(userDTO.getEmail().toLowerCase());
+            }
+            user.setLangKey(userDTO.getLangKey());
+            if (isHash(userDTO.getPassword())) {
+                user.setPassword(userDTO.getPassword());
+            }
+            user.setLastModifiedDate(Instant.now());
+        }
+        userRepository.saveAll(users);
+        users.forEach(this::evictCaches);
+        log.debug("Updated {} users", users.size());
+        return users;
+    }
+
+    /**
+     * Delete a chunk of users, used by the CSV sync.
+     *
+     * @param ids ids of the users to delete.
+     */
+    public void deleteUsers(List<Long> ids) {
+        List<User> users = userRepository.findAllById(ids);
+        userRepository.deleteInBatch(users);
+        users.forEach(this::evictCaches);
+        log.debug("Deleted {} users", users.size());
+    }
+
+    public static boolean isHash(String password) {
+        return password != null && BCRYPT_HASH.matcher(password).matches();
+    }
+
+    /**
+     * Drop the cached user details once the change committed, so a concurrent request can not cache the old row again.
+     */
+    private void evictUserDetails(String login) {
+        TransactionHooks.afterCommit(() -> jwtUserDetailsService.evict(login));
+    }
+
+    /**
+     * Drop the cached user details and credentials once the change committed.
+     */
+    private void evictCaches(User user) {
+        String login = user.getLogin();
+        TransactionHooks.afterCommit(() -> {
+            jwtUserDetailsService.evict(login);
+            verifiedCredentialCache.evict(login);
+            issuedTokenRegistry.evict(login);
+        });
+    }
+
+    private String encodeIfClearText(String password) {
+        if (isHash(password)) {
+            return password;
+        }
+        return passwordEncoder.encode(password);
+    }
+
+    private User toNewUser(UserDTO userDTO, String encryptedPassword) {
         User newUser = new User();
-        String encryptedPassword = passwordEncoder.encode(userDTO.getPassword());
         newUser.setLogin(userDTO.getLogin().toLowerCase());
         // new user gets initially a generated password
         newUser.setPassword(encryptedPassword);
@@ -47,8 +178,6 @@ public class UserService {
         }
         newUser.setLangKey(userDTO.getLangKey());
         newUser.setCreatedBy(userDTO.getCreatedBy());
-        userRepository.save(newUser);
-        log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
 
@@ -66,6 +195,7 @@ public class UserService {
                 .map(Optional::get)
                 .map(
                         user -> {
+                            evictUserDetails(user.getLogin());
                             user.setLogin(userDTO.getLogin().toLowerCase());
                             user.setFirstName(userDTO.getFirstName());
                             user.setLastName(userDTO.getLastName());
@@ -74,6 +204,7 @@ public class UserService {
                             }
                             user.setLangKey(userDTO.getLangKey());
                             userRepository.save(user);
+                            evictUserDetails(user.getLogin());
                             log.debug("Changed Information for User: {}", user);
                             return user;
                         }
@@ -87,6 +218,7 @@ public class UserService {
                 .ifPresent(
                         user -> {
                             userRepository.delete(user);
+                            evictCaches(user);
                             log.debug("Deleted User: {}", user);
                         }
                 );
@@ -106,18 +238,17 @@ public class UserService {
                             String encryptedPassword = passwordEncoder.encode(newPassword);
                             user.setPassword(encryptedPassword);
                             userRepository.save(user);
+                            evictCaches(user);
                             log.debug("Changed password for User: {}", user);
                         }
                 );
     }
 
-    public List<UserDTO> getAllManagedUsers() {
-        return userRepository
-                .findAll()
-                .stream()
-                .filter(user -> !Constants.ANONYMOUS_USER.equals(user.getLogin()))
-                .map(UserDTO::new)
-                .collect(Collectors.toList());
+    /**
+     * A keyset page of the users, without the anonymous user.
+     */
+    public KeysetSlice<UserDTO> getManagedUsers(KeysetRequest request) {
+        return keysetRepository.find(User.class, Filters.notEqual("login", Constants.ANONYMOUS_USER), request).map(UserDTO::new);
     }
 
 
@@ -125,4 +256,9 @@ public class UserService {
         return userRepository.findOneByLogin(login);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdown();
+    }
+
 }
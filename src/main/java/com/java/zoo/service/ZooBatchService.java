@@ -0,0 +1,324 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.BatchItemResult;
+import com.java.zoo.dto.BatchMode;
+import com.java.zoo.dto.BatchOperation;
+import com.java.zoo.dto.BatchRequest;
+import com.java.zoo.dto.BatchResult;
+import com.java.zoo.entity.Favorite;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Applies a list of placement and favorite operations in one transaction.
+ * <p>
+ * The animals, rooms and favorites the batch refers to are read with one {@code in} query each, the operations are
+ * then checked in order against that state, each seeing the effect of the ones before it, with the same rules and
+ * error keys as the single animal endpoints. Only the net change is written: one JDBC batch of conditional room
+ * updates, one of favorite deletes and the favorite inserts, batched by Hibernate.
+ */
+@Service
+public class ZooBatchService {
+    private static final Logger log = LoggerFactory.getLogger(ZooBatchService.class);
+
+    private static final String ENTITY_NAME = "Batch Operations";
+
+    /**
+     * Largest {@code in} list sent to the database.
+     */
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final FavoriteRepository favoriteRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final HappyAnimalCounter happyAnimalCounter;
+
+    @Value("${zoo.batch.max-operations:10000}")
+    private int maxOperations;
+
+    public ZooBatchService(AnimalRepository animalRepository, RoomRepository roomRepository, FavoriteRepository favoriteRepository,
+                           JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, HappyAnimalCounter happyAnimalCounter) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.happyAnimalCounter = happyAnimalCounter;
+    }
+
+    /**
+     * @return the outcome of every operation, in the order of the request.
+     * @throws BadRequestAlertException if the batch has more than {@code zoo.batch.max-operations} operations.
+     */
+    public BatchResult execute(BatchRequest request) {
+        List<BatchOperation> operations = request.getOperations();
+        if (operations.size() > maxOperations) {
+            throw new BadRequestAlertException("Batch has " + operations.size() + " operations, at most " + maxOperations
+                    + " are allowed, request cannot be completed", ENTITY_NAME, "batchtoolarge");
+        }
+        BatchMode mode = request.getMode() == null ? BatchMode.ALL_OR_NOTHING : request.getMode();
+        return transactionTemplate.execute(status -> apply(operations, mode, status));
+    }
+
+    private BatchResult apply(List<BatchOperation> operations, BatchMode mode, TransactionStatus status) {
+        ZooState state = load(operations);
+        List<BatchItemResult> results = new ArrayList<>(operations.size());
+        boolean rejected = false;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchItemResult result = new BatchItemResult(i, operations.get(i));
+            if (state.apply(operations.get(i), result)) {
+                result.applied();
+            } else {
+                rejected = true;
+            }
+            results.add(result);
+        }
+        if (rejected && mode == BatchMode.ALL_OR_NOTHING) {
+            results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.APPLIED).forEach(BatchItemResult::skipped);
+            return new BatchResult(mode, false, results);
+        }
+
+        Set<Long> conflicts = writeRooms(state);
+        if (!conflicts.isEmpty()) {
+            // changed by another request since it was read
+            for (BatchItemResult result : results) {
+                if (result.getStatus() == BatchItemResult.Status.APPLIED && conflicts.contains(result.getAnimalId())) {
+                    result.rejected("concurrentupdate", "Animal or room was changed by another request");
+                }
+            }
+            if (mode == BatchMode.ALL_OR_NOTHING) {
+                status.setRollbackOnly();
+                results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.APPLIED).forEach(BatchItemResult::skipped);
+                return new BatchResult(mode, false, results);
+            }
+        }
+        writeFavorites(state);
+        // rooms were written through JDBC, counted again on the next read once committed
+        happyAnimalCounter.invalidate();
+        BatchResult batchResult = new BatchResult(mode, true, results);
+        log.debug("Batch of {} operations: {} applied, {} rejected", operations.size(), batchResult.getApplied(), batchResult.getRejected());
+        return batchResult;
+    }
+
+    private ZooState load(List<BatchOperation> operations) {
+        Set<Long> animalIds = new LinkedHashSet<>();
+        Set<Long> roomIds = new LinkedHashSet<>();
+        for (BatchOperation operation : operations) {
+            animalIds.add(operation.getAnimalId());
+            if (operation.getRoomId() != null) {
+                roomIds.add(operation.getRoomId());
+            }
+        }
+        ZooState state = new ZooState();
+        for (Object[] row : inChunks(animalIds, animalRepository::findRoomIdsByIdIn)) {
+            state.rooms.put((Long) row[0], (Long) row[1]);
+        }
+        state.existingRooms.addAll(inChunks(roomIds, roomRepository::findIdsByIdIn));
+        for (Object[] row : inChunks(state.rooms.keySet(), favoriteRepository::findRoomIdsByAnimalIdIn)) {
+            state.favorites.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        state.snapshot();
+        return state;
+    }
+
+    /**
+     * @return ids of the animals whose room changed since it was read, they were not updated.
+     */
+    private Set<Long> writeRooms(ZooState state) {
+        List<Long> fromNone = new ArrayList<>();
+        List<Object[]> fromNoneArgs = new ArrayList<>();
+        List<Long> fromRoom = new ArrayList<>();
+        List<Object[]> fromRoomArgs = new ArrayList<>();
+        state.rooms.forEach((animalId, roomId) -> {
+            Long initial = state.initialRooms.get(animalId);
+            if (Objects.equals(initial, roomId)) {
+                return;
+            }
+            if (initial == null) {
+                fromNone.add(animalId);
+                fromNoneArgs.add(new Object[]{roomId, animalId});
+            } else {
+                fromRoom.add(animalId);
+                fromRoomArgs.add(new Object[]{roomId, animalId, initial});
+            }
+        });
+        Set<Long> conflicts = new HashSet<>();
+        if (!fromNoneArgs.isEmpty()) {
+            conflicts(fromNone, jdbcTemplate.batchUpdate("update animal set room_id = ? where id = ? and room_id is null", fromNoneArgs), conflicts);
+        }
+        if (!fromRoomArgs.isEmpty()) {
+            conflicts(fromRoom, jdbcTemplate.batchUpdate("update animal set room_id = ? where id = ? and room_id = ?", fromRoomArgs), conflicts);
+        }
+        return conflicts;
+    }
+
+    private static void conflicts(List<Long> animalIds, int[] counts, Set<Long> conflicts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                conflicts.add(animalIds.get(i));
+            } else if (counts[i] != 1 && counts[i] != Statement.SUCCESS_NO_INFO) {
+                log.warn("Unexpected update count {} for animal {}", counts[i], animalIds.get(i));
+            }
+        }
+    }
+
+    private void writeFavorites(ZooState state) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Favorite> inserts = new ArrayList<>();
+        state.favorites.forEach((animalId, roomIds) -> {
+            Set<Long> initial = state.initialFavorites.getOrDefault(animalId, new HashSet<>());
+            for (Long roomId : initial) {
+                if (!roomIds.contains(roomId)) {
+                    deletes.add(new Object[]{animalId, roomId});
+                }
+            }
+            for (Long roomId : roomIds) {
+                if (!initial.contains(roomId)) {
+                    Favorite favorite = new Favorite();
+                    favorite.setRoomId(roomId);
+                    favorite.setAnimal(animalRepository.getOne(animalId));
+                    inserts.add(favorite);
+                }
+            }
+        });
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("delete from favorite where animal_id = ? and room_id = ?", deletes);
+        }
+        // inserted in hibernate.jdbc.batch_size batches on commit
+        favoriteRepository.saveAll(inserts);
+    }
+
+    private static <T> List<T> inChunks(Set<Long> ids, Function<List<Long>, List<T>> query) {
+        List<Long> list = new ArrayList<>(ids);
+        List<T> rows = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            rows.addAll(query.apply(list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size()))));
+        }
+        return rows;
+    }
+
+    /**
+     * Rooms and favorites of the animals of a batch, as read and as changed by the valid operations so far.
+     */
+    private static final class ZooState {
+        /**
+         * Room id by animal id, null if the animal is in no room. Animals which do not exist are missing.
+         */
+        private final Map<Long, Long> rooms = new HashMap<>();
+
+        private final Set<Long> existingRooms = new HashSet<>();
+
+        private final Map<Long, Set<Long>> favorites = new HashMap<>();
+
+        private Map<Long, Long> initialRooms;
+
+        private Map<Long, Set<Long>> initialFavorites;
+
+        private void snapshot() {
+            initialRooms = new HashMap<>(rooms);
+            initialFavorites = new HashMap<>();
+            favorites.forEach((animalId, roomIds) -> initialFavorites.put(animalId, new HashSet<>(roomIds)));
+        }
+
+        /**
+         * @return {@code false} with the result rejected if the operation is not valid in the current state.
+         */
+        private boolean apply(BatchOperation operation, BatchItemResult result) {
+            Long animalId = operation.getAnimalId();
+            Long roomId = operation.getRoomId();
+            if (!rooms.containsKey(animalId)) {
+                result.rejected("animalidwrong", "Couldn't find animal with given id");
+                return false;
+            }
+            Long current = rooms.get(animalId);
+            switch (operation.getType()) {
+                case PLACE:
+                    if (!roomExists(roomId, result)) {
+                        return false;
+                    }
+                    if (current != null) {
+                        result.rejected("animalPlacedAlready", "Animal is placed in room already");
+                        return false;
+                    }
+                    rooms.put(animalId, roomId);
+                    return true;
+                case MOVE:
+                    if (current == null) {
+                        result.rejected("notassociatedwithroom", "Animal is not associated with any room");
+                        return false;
+                    }
+                    if (current.equals(roomId)) {
+                        result.rejected("sameroomid", "Animal currently placed room and to be moved room are same");
+                        return false;
+                    }
+                    if (!roomExists(roomId, result)) {
+                        return false;
+                    }
+                    rooms.put(animalId, roomId);
+                    return true;
+                case REMOVE:
+                    if (current == null) {
+                        result.rejected("notassociatedwithroom", "Animal is not associated with any room");
+                        return false;
+                    }
+                    rooms.put(animalId, null);
+                    return true;
+                case ASSIGN_FAVORITE:
+                    if (!roomExists(roomId, result)) {
+                        return false;
+                    }
+                    if (!favorites.computeIfAbsent(animalId, id -> new HashSet<>()).add(roomId)) {
+                        result.rejected("roomidassignedalready", "Room is already assigned as favorite for the animal");
+                        return false;
+                    }
+                    return true;
+                case UNASSIGN_FAVORITE:
+                    if (!roomExists(roomId, result)) {
+                        return false;
+                    }
+                    if (!favorites.getOrDefault(animalId, new HashSet<>()).remove(roomId)) {
+                        result.rejected("roomidnotassigned", "Room is not assigned as favorite for the animal");
+                        return false;
+                    }
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation.getType());
+            }
+        }
+
+        private boolean roomExists(Long roomId, BatchItemResult result) {
+            if (roomId == null || !existingRooms.contains(roomId)) {
+                result.rejected("roomidwrong", "Couldn't find room with given id");
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -2,15 +2,18 @@ package com.java.zoo.service;
 
 import com.java.zoo.entity.Animal;
 import com.java.zoo.entity.Favorite;
-import com.java.zoo.entity.Room;
 import com.java.zoo.repository.AnimalRepository;
 import com.java.zoo.repository.FavoriteRepository;
 import com.java.zoo.repository.RoomRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Service
+@Transactional
 public class ZooService {
     private static final Logger log = LoggerFactory.getLogger(ZooService.class);
 
@@ -23,58 +26,95 @@ public class ZooService {
 
     private final FavoriteRepository favoriteRepository;
 
-    public ZooService(RoomRepository roomRepository, AnimalRepository animalRepository, FavoriteRepository favoriteRepository) {
+
+    private final HappyAnimalCounter happyAnimalCounter;
+
+    public ZooService(RoomRepository roomRepository, AnimalRepository animalRepository, FavoriteRepository favoriteRepository,
+                      HappyAnimalCounter happyAnimalCounter) {
         this.roomRepository = roomRepository;
         this.animalRepository = animalRepository;
         this.favoriteRepository = favoriteRepository;
+        this.happyAnimalCounter = happyAnimalCounter;
     }
 
 
-    public void placeAnimal(Animal animal, Room room) {
-        log.debug("Place animal service method animal id: {}, room id: {}", animal.getId(), room.getId());
-        addAnimalToRoomAndSave(animal, room);
+    /**
+     * Place the animal in the room with a single conditional update, the room's animals are not loaded.
+     *
+     * @return the animal with its room, or empty if the animal or room does not exist or the animal is placed already.
+     */
+    public Optional<Animal> placeAnimal(Long animalId, Long roomId) {
+        log.debug("Place animal service method animal id: {}, room id: {}", animalId, roomId);
+        if (animalRepository.placeInRoom(animalId, roomRepository.getOne(roomId)) == 0) {
+            return Optional.empty();
+        }
+        Optional<Animal> animal = animalRepository.findWithRoomById(animalId);
+        animal.ifPresent(happyAnimalCounter::animalChanged);
+        return animal;
     }
 
-    public void moveAnimal(Animal animal, Room room) {
-        log.debug("Move animal service method animal id: {}, room id: {}", animal.getId(), room.getId());
-        removeAssociatedAnimalAndSave(animal);
-        addAnimalToRoomAndSave(animal, room);
+    /**
+     * Move the animal to the room with a single conditional update, neither room's animals are loaded.
+     *
+     * @return the animal with its new room, or empty if the animal or room does not exist, the animal is in no room or already in this one.
+     */
+    public Optional<Animal> moveAnimal(Long animalId, Long roomId) {
+        log.debug("Move animal service method animal id: {}, room id: {}", animalId, roomId);
+        if (animalRepository.moveToRoom(animalId, roomRepository.getOne(roomId)) == 0) {
+            return Optional.empty();
+        }
+        Optional<Animal> animal = animalRepository.findWithRoomById(animalId);
+        animal.ifPresent(happyAnimalCounter::animalChanged);
+        return animal;
     }
 
-    public void deleteAnimalFromRoom(Animal animal) {
-        log.debug("Delete animal service method animal id: {}", animal.getId());
-        removeAssociatedAnimalAndSave(animal);
+    /**
+     * Take the animal out of its room with a single conditional update.
+     *
+     * @return {@code false} if the animal does not exist or is in no room.
+     */
+    public boolean deleteAnimalFromRoom(Long animalId) {
+        log.debug("Delete animal service method animal id: {}", animalId);
+        if (animalRepository.removeFromRoom(animalId) == 0) {
+            return false;
+        }
+        happyAnimalCounter.animalRemoved(animalId);
+        return true;
     }
 
-    public void assignFavoriteRoom(Animal animal, Room room) {
-        log.debug("Assign favorite room to animal service method animal id: {}, room id: {}", animal.getId(), room.getId());
-        Favorite fav = new Favorite();
-        fav.setRoomId(room.getId());
-        fav.setAnimal(animal);
-        animal.getFavorites().add(fav);
-        animalRepository.saveAndFlush(animal);
-
+    /**
+     * Add the room to the favorites of the animal, the insert is left to the commit of the transaction.
+     *
+     * @return the animal with its room and favorites, or empty if the animal does not exist.
+     */
+    public Optional<Animal> assignFavoriteRoom(Long animalId, Long roomId) {
+        log.debug("Assign favorite room to animal service method animal id: {}, room id: {}", animalId, roomId);
+        Optional<Animal> animal = animalRepository.findWithRoomById(animalId);
+        animal.ifPresent(existing -> {
+            Favorite fav = new Favorite();
+            fav.setRoomId(roomId);
+            fav.setAnimal(existing);
+            existing.getFavorites().add(fav);
+            favoriteRepository.save(fav);
+        });
+        return animal;
     }
 
-    public void unassignFavoriteRoom(Animal animal, Room room) {
-        log.debug("UnAssign favorite room to animal service method animal id: {}, room id: {}", animal.getId(), room.getId());
-        Favorite fav = favoriteRepository.findByRoomIdAndAnimalId(room.getId(), animal.getId());
-        animal.getFavorites().remove(fav);
-        animalRepository.saveAndFlush(animal);
-        favoriteRepository.deleteById(fav.getId());
-    }
-
-    private void removeAssociatedAnimalAndSave(Animal animal) {
-        Room presentRoom = animal.getRoom();
-        presentRoom.getAnimals().remove(animal);
-        roomRepository.saveAndFlush(presentRoom);
-    }
-
-
-    private void addAnimalToRoomAndSave(Animal animal, Room room) {
-        room.getAnimals().add(animal);
-        animal.setRoom(room);
-        roomRepository.saveAndFlush(room);
+    /**
+     * Remove the room from the favorites of the animal, the delete is left to the commit of the transaction.
+     *
+     * @return the animal with its room and remaining favorites, or empty if the room is not a favorite of the animal.
+     */
+    public Optional<Animal> unassignFavoriteRoom(Long animalId, Long roomId) {
+        log.debug("UnAssign favorite room to animal service method animal id: {}, room id: {}", animalId, roomId);
+        Favorite fav = favoriteRepository.findByRoomIdAndAnimalId(roomId, animalId);
+        if (fav == null) {
+            return Optional.empty();
+        }
+        Optional<Animal> animal = animalRepository.findWithRoomById(animalId);
+        animal.ifPresent(existing -> existing.getFavorites().remove(fav));
+        favoriteRepository.delete(fav);
+        return animal;
     }
 
 }
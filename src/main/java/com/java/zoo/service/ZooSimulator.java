@@ -0,0 +1,347 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.BatchItemResult;
+import com.java.zoo.dto.BatchOperation;
+import com.java.zoo.dto.RoomHappinessDelta;
+import com.java.zoo.dto.SimulationRequest;
+import com.java.zoo.dto.SimulationResult;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Evaluates place, move and remove operations against an in-memory copy of the zoo without writing anything,
+ * reporting how the happy animals and favorite matches of each room would change.
+ * <p>
+ * The copy is read with three projection queries and shared, never modified, by every simulation; it is read again
+ * once older than {@code zoo.simulation.max-snapshot-age-ms}. A simulation keeps its changes in an overlay of the
+ * animals it moved and the rooms it touched, so its cost follows the number of operations, not the size of the zoo,
+ * and any number of simulations run concurrently without locking. Operations are validated as
+ * {@code POST /api/batch} does, each one sees the effect of those before it.
+ */
+@Service
+public class ZooSimulator {
+    private static final Logger log = LoggerFactory.getLogger(ZooSimulator.class);
+
+    private static final String ENTITY_NAME = "Simulation";
+
+    private static final int NO_ROOM = -1;
+
+    private final AnimalRepository animalRepository;
+
+    private final RoomRepository roomRepository;
+
+    private final FavoriteRepository favoriteRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final long maxSnapshotAgeMillis;
+
+    private final int maxOperations;
+
+    private volatile Snapshot snapshot;
+
+    public ZooSimulator(AnimalRepository animalRepository, RoomRepository roomRepository, FavoriteRepository favoriteRepository,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${zoo.simulation.max-snapshot-age-ms:1000}") long maxSnapshotAgeMillis,
+                        @Value("${zoo.simulation.max-operations:100000}") int maxOperations) {
+        this.animalRepository = animalRepository;
+        this.roomRepository = roomRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxSnapshotAgeMillis = maxSnapshotAgeMillis;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * @return the outcome of every operation and the rooms whose animals changed.
+     * @throws BadRequestAlertException if there are more than {@code zoo.simulation.max-operations} operations.
+     */
+    public SimulationResult simulate(SimulationRequest request) {
+        List<BatchOperation> operations = request.getOperations();
+        if (operations.size() > maxOperations) {
+            throw new BadRequestAlertException("Simulation has " + operations.size() + " operations, at most " + maxOperations
+                    + " are allowed, request cannot be completed", ENTITY_NAME, "simulationtoolarge");
+        }
+        Snapshot base = currentSnapshot();
+        long started = System.nanoTime();
+        Overlay overlay = new Overlay(base);
+        List<BatchItemResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BatchItemResult result = new BatchItemResult(i, operations.get(i));
+            if (overlay.apply(operations.get(i), result)) {
+                result.applied();
+            }
+            results.add(result);
+        }
+        SimulationResult simulation = overlay.toResult(results, (System.nanoTime() - started) / 1000);
+        log.debug("Simulated {} operations on the snapshot of {}, happy animals {} -> {}", operations.size(), base.taken,
+                simulation.getHappyBefore(), simulation.getHappyAfter());
+        return simulation;
+    }
+
+    /**
+     * Read the zoo again on the next simulation.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.isFresh(maxSnapshotAgeMillis)) {
+            return current;
+        }
+        synchronized (this) {
+            // another simulation may have read it meanwhile
+            current = snapshot;
+            if (current == null || !current.isFresh(maxSnapshotAgeMillis)) {
+                current = readOnlyTransaction.execute(status -> load());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load() {
+        long started = System.currentTimeMillis();
+        List<Object[]> rooms = roomRepository.findSyncState();
+        List<Object[]> animals = animalRepository.findPlacementState();
+        List<Object[]> favorites = favoriteRepository.findAllRoomIds();
+        Snapshot loaded = new Snapshot(rooms.size(), animals.size());
+        for (int r = 0; r < rooms.size(); r++) {
+            Object[] row = rooms.get(r);
+            loaded.roomIndex.put((Long) row[0], r);
+            loaded.roomIds[r] = (Long) row[0];
+            loaded.roomTitles[r] = (String) row[1];
+            loaded.roomSizes[r] = (Long) row[2];
+        }
+        for (int a = 0; a < animals.size(); a++) {
+            Object[] row = animals.get(a);
+            loaded.animalIndex.put((Long) row[0], a);
+            // a room created after the rooms were read is treated as no room
+            Integer r = row[1] == null ? null : loaded.roomIndex.get((Long) row[1]);
+            loaded.animalRooms[a] = r == null ? NO_ROOM : r;
+            loaded.types[a] = (String) row[2];
+            loaded.preferences[a] = (Long) row[3];
+        }
+        for (Object[] row : favorites) {
+            Integer a = loaded.animalIndex.get((Long) row[0]);
+            Integer r = row[1] == null ? null : loaded.roomIndex.get((Long) row[1]);
+            if (a != null && r != null) {
+                loaded.favorites.add(Snapshot.key(a, r));
+            }
+        }
+        for (int a = 0; a < animals.size(); a++) {
+            int r = loaded.animalRooms[a];
+            if (r != NO_ROOM) {
+                loaded.animals[r]++;
+                loaded.happy[r] += loaded.isHappy(a, r) ? 1 : 0;
+                loaded.favoriteMatches[r] += loaded.favorites.contains(Snapshot.key(a, r)) ? 1 : 0;
+            }
+        }
+        for (int r = 0; r < rooms.size(); r++) {
+            loaded.totalHappy += loaded.happy[r];
+            loaded.totalFavoriteMatches += loaded.favoriteMatches[r];
+        }
+        log.debug("Simulation snapshot of {} rooms and {} animals read in {} ms", rooms.size(), animals.size(),
+                System.currentTimeMillis() - started);
+        return loaded;
+    }
+
+    /**
+     * Rooms, animals and favorites by index with the per-room counts, never modified once read.
+     */
+    private static final class Snapshot {
+        private final Instant taken = Instant.now();
+
+        private final Map<Long, Integer> roomIndex = new HashMap<>();
+
+        private final Long[] roomIds;
+
+        private final String[] roomTitles;
+
+        private final Long[] roomSizes;
+
+        private final int[] animals;
+
+        private final int[] happy;
+
+        private final int[] favoriteMatches;
+
+        private final Map<Long, Integer> animalIndex = new HashMap<>();
+
+        private final int[] animalRooms;
+
+        private final String[] types;
+
+        private final Long[] preferences;
+
+        /**
+         * Animal and room index pairs, see {@link #key(int, int)}.
+         */
+        private final Set<Long> favorites = new HashSet<>();
+
+        private long totalHappy;
+
+        private long totalFavoriteMatches;
+
+        private Snapshot(int roomCount, int animalCount) {
+            roomIds = new Long[roomCount];
+            roomTitles = new String[roomCount];
+            roomSizes = new Long[roomCount];
+            animals = new int[roomCount];
+            happy = new int[roomCount];
+            favoriteMatches = new int[roomCount];
+            animalRooms = new int[animalCount];
+            types = new String[animalCount];
+            preferences = new Long[animalCount];
+        }
+
+        private static long key(int a, int r) {
+            return ((long) a << 32) | r;
+        }
+
+        private boolean isFresh(long maxAgeMillis) {
+            return taken.plusMillis(maxAgeMillis).isAfter(Instant.now());
+        }
+
+        private boolean isHappy(int a, int r) {
+            return HappyAnimalCounter.isHappy(types[a], preferences[a], roomSizes[r]);
+        }
+
+        private boolean isFavorite(int a, int r) {
+            return favorites.contains(key(a, r));
+        }
+    }
+
+    /**
+     * The changes of one simulation on top of a {@link Snapshot}.
+     */
+    private static final class Overlay {
+        private final Snapshot base;
+
+        /**
+         * Room index of the animals the simulation moved, {@link #NO_ROOM} if taken out.
+         */
+        private final Map<Integer, Integer> animalRooms = new HashMap<>();
+
+        private final Map<Integer, int[]> roomDeltas = new HashMap<>();
+
+        private Overlay(Snapshot base) {
+            this.base = base;
+        }
+
+        private boolean apply(BatchOperation operation, BatchItemResult result) {
+            Integer a = operation.getAnimalId() == null ? null : base.animalIndex.get(operation.getAnimalId());
+            if (a == null) {
+                result.rejected("animalidwrong", "Couldn't find animal with given id");
+                return false;
+            }
+            int current = animalRooms.getOrDefault(a, base.animalRooms[a]);
+            switch (operation.getType()) {
+                case PLACE:
+                    Integer placed = room(operation, result);
+                    if (placed == null) {
+                        return false;
+                    }
+                    if (current != NO_ROOM) {
+                        result.rejected("animalPlacedAlready", "Animal is placed in room already");
+                        return false;
+                    }
+                    move(a, current, placed);
+                    return true;
+                case MOVE:
+                    if (current == NO_ROOM) {
+                        result.rejected("notassociatedwithroom", "Animal is not associated with any room");
+                        return false;
+                    }
+                    Integer moved = room(operation, result);
+                    if (moved == null) {
+                        return false;
+                    }
+                    if (moved == current) {
+                        result.rejected("sameroomid", "Animal currently placed room and to be moved room are same");
+                        return false;
+                    }
+                    move(a, current, moved);
+                    return true;
+                case REMOVE:
+                    if (current == NO_ROOM) {
+                        result.rejected("notassociatedwithroom", "Animal is not associated with any room");
+                        return false;
+                    }
+                    move(a, current, NO_ROOM);
+                    return true;
+                default:
+                    result.rejected("operationnotsupported", "Only place, move and remove operations can be simulated");
+                    return false;
+            }
+        }
+
+        private Integer room(BatchOperation operation, BatchItemResult result) {
+            Integer r = operation.getRoomId() == null ? null : base.roomIndex.get(operation.getRoomId());
+            if (r == null) {
+                result.rejected("roomidwrong", "Couldn't find room with given id");
+            }
+            return r;
+        }
+
+        private void move(int a, int from, int to) {
+            animalRooms.put(a, to);
+            if (from != NO_ROOM) {
+                count(a, from, -1);
+            }
+            if (to != NO_ROOM) {
+                count(a, to, 1);
+            }
+        }
+
+        /**
+         * Add or take away the animal from the animals, happy animals and favorite matches of the room.
+         */
+        private void count(int a, int r, int sign) {
+            int[] delta = roomDeltas.computeIfAbsent(r, key -> new int[3]);
+            delta[0] += sign;
+            delta[1] += base.isHappy(a, r) ? sign : 0;
+            delta[2] += base.isFavorite(a, r) ? sign : 0;
+        }
+
+        private SimulationResult toResult(List<BatchItemResult> results, long elapsedMicros) {
+            TreeSet<Integer> touched = new TreeSet<>(Comparator.comparing((Integer r) -> base.roomTitles[r],
+                    Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(r -> r));
+            touched.addAll(roomDeltas.keySet());
+            List<RoomHappinessDelta> rooms = new ArrayList<>(touched.size());
+            long happyDelta = 0;
+            long favoriteDelta = 0;
+            for (int r : touched) {
+                int[] delta = roomDeltas.get(r);
+                happyDelta += delta[1];
+                favoriteDelta += delta[2];
+                rooms.add(new RoomHappinessDelta(base.roomIds[r], base.roomTitles[r],
+                        base.animals[r], base.animals[r] + delta[0],
+                        base.happy[r], base.happy[r] + delta[1],
+                        base.favoriteMatches[r], base.favoriteMatches[r] + delta[2]));
+            }
+            return new SimulationResult(base.taken, base.totalHappy, base.totalHappy + happyDelta,
+                    base.totalFavoriteMatches, base.totalFavoriteMatches + favoriteDelta, rooms, results, elapsedMicros);
+        }
+    }
+}
@@ -14,6 +14,10 @@ import java.nio.charset.StandardCharsets;
 public final class HeaderUtil {
     private static final Logger log = LoggerFactory.getLogger(HeaderUtil.class);
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private HeaderUtil() {
     }
 
@@ -31,6 +35,28 @@ public final class HeaderUtil {
         return headers;
     }
 
+    /**
+     * {@code X-Next-Cursor} with the position to pass back for the next page, none on the last page.
+     */
+    public static HttpHeaders createCursorHeaders(String nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.add(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return headers;
+    }
+
+    /**
+     * {@link #createCursorHeaders(String)} and {@code X-Total-Count} when the total was counted.
+     */
+    public static HttpHeaders createPageHeaders(String nextCursor, Long total) {
+        HttpHeaders headers = createCursorHeaders(nextCursor);
+        if (total != null) {
+            headers.add(TOTAL_COUNT_HEADER, total.toString());
+        }
+        return headers;
+    }
+
     public static HttpHeaders createEntityCreationAlert(String applicationName, boolean enableTranslation, String entityName, String param) {
         String message = enableTranslation ? applicationName + "." + entityName + ".created" : "A new " + entityName + " is created with identifier " + param;
         return createAlert(applicationName, message, param);
@@ -2,16 +2,26 @@ package com.java.zoo.web.controller;
 
 
 import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.AnimalDTO;
+import com.java.zoo.dto.AnimalDetailDTO;
 import com.java.zoo.dto.AnimalsJsonObject;
+import com.java.zoo.dto.HappyAnimalsDrift;
 import com.java.zoo.dto.HappyAnimalsJsonObject;
+import com.java.zoo.dto.KeysetRequest;
+import com.java.zoo.dto.KeysetSlice;
 import com.java.zoo.entity.Animal;
 import com.java.zoo.exception.BadRequestAlertException;
 import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.Filters;
+import com.java.zoo.repository.KeysetRepository;
+import com.java.zoo.service.HappinessIndex;
+import com.java.zoo.service.HappyAnimalCounter;
 import com.java.zoo.util.HeaderUtil;
 import com.java.zoo.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -32,11 +42,22 @@ public class AnimalController {
 
     private final Logger log = LoggerFactory.getLogger(AnimalController.class);
     private final AnimalRepository animalRepository;
+    private final HappyAnimalCounter happyAnimalCounter;
+    private final HappinessIndex happinessIndex;
+    private final KeysetRepository keysetRepository;
     @Value("${spring.application.name}")
     private String applicationName;
+    @Value("${zoo.paging.default-page-size:100}")
+    private int defaultPageSize;
+    @Value("${zoo.paging.max-page-size:1000}")
+    private int maxPageSize;
 
-    public AnimalController(AnimalRepository animalRepository) {
+    public AnimalController(AnimalRepository animalRepository, HappyAnimalCounter happyAnimalCounter, HappinessIndex happinessIndex,
+                            KeysetRepository keysetRepository) {
         this.animalRepository = animalRepository;
+        this.happyAnimalCounter = happyAnimalCounter;
+        this.happinessIndex = happinessIndex;
+        this.keysetRepository = keysetRepository;
     }
 
     /**
@@ -54,6 +75,8 @@ public class AnimalController {
         }
         if (null == animal.getLocated()) animal.setLocated(Instant.now());
         Animal result = animalRepository.save(animal);
+        happyAnimalCounter.animalChanged(result);
+        happinessIndex.animalChanged(result);
         return ResponseEntity.created(new URI("/api/animals/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, result.getId().toString()))
                 .body(result);
@@ -74,32 +97,59 @@ public class AnimalController {
             throw new BadRequestAlertException("Invalid id", Constants.ANIMAL_ENTITY_NAME, "idnull");
         }
         Animal result = animalRepository.save(animal);
+        happyAnimalCounter.animalChanged(result);
+        happinessIndex.animalChanged(result);
         return ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, animal.getId().toString()))
                 .body(result);
     }
 
     /**
-     * {@code GET  /animals} : get all the animals.
+     * {@code GET  /animals} : get a page of the animals.
+     * <p>
+     * The {@code X-Next-Cursor} header is passed back as {@code cursor} for the next page and is missing on the last one.
      *
+     * @param sort          {@code id} or {@code located}, optionally followed by {@code ,asc} or {@code ,desc}; by id if missing.
+     * @param cursor        the {@code X-Next-Cursor} of the previous page.
+     * @param limit         the page size, capped at {@code zoo.paging.max-page-size}.
+     * @param total         {@code true} to count the matching animals into {@code X-Total-Count}.
+     * @param type          only animals of this type.
+     * @param minPreference only animals with at least this preference.
+     * @param maxPreference only animals with at most this preference.
+     * @param roomId        only animals in this room.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of animals in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the sort or the cursor is not valid.
      */
     @GetMapping("/animals")
-    public List<Animal> getAllAnimals() {
-        log.debug("REST request to get all Animals");
-        return animalRepository.findAll();
+    public ResponseEntity<List<AnimalDTO>> getAllAnimals(@RequestParam(required = false) String sort,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(defaultValue = "false") boolean total,
+                                                         @RequestParam(required = false) String type,
+                                                         @RequestParam(required = false) Long minPreference,
+                                                         @RequestParam(required = false) Long maxPreference,
+                                                         @RequestParam(required = false) Long roomId) {
+        log.debug("REST request to get a page of Animals after {}", cursor);
+        KeysetRequest request = KeysetRequest.of(sort, cursor, limit, total, defaultPageSize, maxPageSize, KeysetRequest.Field.LOCATED);
+        Specification<Animal> filter = Specification.where(Filters.<Animal>equal("type", type))
+                .and(Filters.atLeast("preference", minPreference))
+                .and(Filters.atMost("preference", maxPreference))
+                .and(Filters.associated("room", roomId));
+        KeysetSlice<AnimalDTO> page = keysetRepository.find(Animal.class, filter, request, AnimalDTO.class,
+                "id", "title", "located", "type", "preference", "room.id", "room.title", "room.size", "room.created");
+        return ResponseEntity.ok().headers(HeaderUtil.createPageHeaders(page.getNextCursor(), page.getTotal())).body(page.getContent());
     }
 
     /**
      * {@code GET  /animals/:id} : get the "id" animal.
      *
      * @param id the id of the animal to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the animal, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the animal with its room and favorites, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/animals/{id}")
-    public ResponseEntity<Animal> getAnimal(@PathVariable Long id) {
+    public ResponseEntity<AnimalDetailDTO> getAnimal(@PathVariable Long id) {
         log.debug("REST request to get Animal : {}", id);
-        Optional<Animal> animal = animalRepository.findById(id);
+        Optional<AnimalDetailDTO> animal = AnimalDetailDTO.of(animalRepository.findDetailById(id));
         return ResponseUtil.wrapOrNotFound(animal);
     }
 
@@ -113,6 +163,8 @@ public class AnimalController {
     public ResponseEntity<Void> deleteAnimal(@PathVariable Long id) {
         log.debug("REST request to delete Animal : {}", id);
         animalRepository.deleteById(id);
+        happyAnimalCounter.animalRemoved(id);
+        happinessIndex.animalRemoved(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, id.toString())).build();
     }
 
@@ -142,13 +194,28 @@ public class AnimalController {
 
     /**
      * {@code GET  /animals/happyanimals} : get all Happy animals in the rooms.
+     * <p>
+     * Served from the counters maintained by {@link HappyAnimalCounter}, ordered by room title.
      *
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of happy animals in the rooms in body.
      */
     @GetMapping("/animals/happyanimals")
     public List<HappyAnimalsJsonObject> getAllHappyAnimalsInRoom() {
         log.debug("REST request to get all happy animals in the Rooms");
-        return animalRepository.findAllHappyAnimals();
+        return happyAnimalCounter.getHappyAnimals();
+    }
+
+    /**
+     * {@code POST  /animals/happyanimals/check} : recompute the happy animals of every room from the tables.
+     * <p>
+     * Rooms whose maintained count differs are reported, and the counts are repaired.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the rooms which drifted in body.
+     */
+    @PostMapping("/animals/happyanimals/check")
+    public HappyAnimalsDrift checkHappyAnimals() {
+        log.debug("REST request to check the happy animal counts");
+        return happyAnimalCounter.check();
     }
 
 
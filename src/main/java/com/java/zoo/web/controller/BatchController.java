@@ -0,0 +1,54 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.BatchRequest;
+import com.java.zoo.dto.BatchResult;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.service.ZooBatchService;
+import com.java.zoo.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * REST controller for applying many placement and favorite operations in one request.
+ */
+@RestController
+@RequestMapping("/api")
+public class BatchController {
+
+    private final Logger log = LoggerFactory.getLogger(BatchController.class);
+    private final ZooBatchService zooBatchService;
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    public BatchController(ZooBatchService zooBatchService) {
+        this.zooBatchService = zooBatchService;
+    }
+
+    /**
+     * {@code POST  /batch} : apply place, move, remove, assign favorite and unassign favorite operations in one transaction
+     * <p>
+     * In {@code ALL_OR_NOTHING} mode (the default) nothing is written if any operation fails, in {@code BEST_EFFORT}
+     * mode the valid operations are written. Operations are checked in order, each sees the effect of the ones before.
+     *
+     * @param batchRequest the mode and the operations.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of every operation.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the batch has more than {@code zoo.batch.max-operations} operations.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> applyBatch(@Valid @RequestBody BatchRequest batchRequest) {
+        log.debug("REST request to apply a batch of {} operations", batchRequest.getOperations().size());
+        BatchResult result = zooBatchService.execute(batchRequest);
+        return ResponseEntity.ok()
+                .headers(HeaderUtil.createAlert(applicationName, "batch applied", String.valueOf(result.getApplied())))
+                .body(result);
+    }
+}
@@ -0,0 +1,110 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.ExportFormat;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.service.ExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST controller for streaming whole tables to downstream systems.
+ * <p>
+ * Rows are written to the response while they are read, {@code format} is {@code ndjson} (default) or {@code csv},
+ * {@code gzip=true} compresses on the fly and sets {@code Content-Encoding: gzip}.
+ */
+@RestController
+@RequestMapping("/api")
+public class ExportController {
+
+    private static final String ENTITY_NAME = "export";
+    private final Logger log = LoggerFactory.getLogger(ExportController.class);
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * {@code GET  /export/animals} : stream every animal.
+     *
+     * @param format {@code ndjson} or {@code csv}.
+     * @param gzip   {@code true} to compress the body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the animals in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the format is not known.
+     */
+    @GetMapping("/export/animals")
+    public ResponseEntity<StreamingResponseBody> exportAnimals(@RequestParam(defaultValue = "ndjson") String format,
+                                                               @RequestParam(defaultValue = "false") boolean gzip) {
+        log.debug("REST request to export the animals as {}", format);
+        return stream("animals", format, gzip, exportService::exportAnimals);
+    }
+
+    /**
+     * {@code GET  /export/rooms} : stream every room.
+     *
+     * @param format {@code ndjson} or {@code csv}.
+     * @param gzip   {@code true} to compress the body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the rooms in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the format is not known.
+     */
+    @GetMapping("/export/rooms")
+    public ResponseEntity<StreamingResponseBody> exportRooms(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        log.debug("REST request to export the rooms as {}", format);
+        return stream("rooms", format, gzip, exportService::exportRooms);
+    }
+
+    /**
+     * {@code GET  /export/favorites} : stream every favorite.
+     *
+     * @param format {@code ndjson} or {@code csv}.
+     * @param gzip   {@code true} to compress the body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the favorites in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the format is not known.
+     */
+    @GetMapping("/export/favorites")
+    public ResponseEntity<StreamingResponseBody> exportFavorites(@RequestParam(defaultValue = "ndjson") String format,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip) {
+        log.debug("REST request to export the favorites as {}", format);
+        return stream("favorites", format, gzip, exportService::exportFavorites);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(String name, String format, boolean gzip, Exporter exporter) {
+        ExportFormat exportFormat = ExportFormat.fromExtension(format).orElseThrow(() ->
+                new BadRequestAlertException("Export format has to be ndjson or csv", ENTITY_NAME, "formatwrong"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + exportFormat.getExtension() + "\"");
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                exporter.export(exportFormat, out);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+            exporter.export(exportFormat, compressed);
+            compressed.finish();
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    @FunctionalInterface
+    private interface Exporter {
+        long export(ExportFormat format, OutputStream out) throws IOException;
+    }
+}
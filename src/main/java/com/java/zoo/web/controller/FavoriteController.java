@@ -1,13 +1,19 @@
 package com.java.zoo.web.controller;
 
+import com.java.zoo.dto.FavoriteDTO;
+import com.java.zoo.dto.KeysetRequest;
+import com.java.zoo.dto.KeysetSlice;
 import com.java.zoo.entity.Favorite;
 import com.java.zoo.exception.BadRequestAlertException;
 import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.Filters;
+import com.java.zoo.repository.KeysetRepository;
 import com.java.zoo.util.HeaderUtil;
 import com.java.zoo.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -28,11 +34,17 @@ public class FavoriteController {
     private static final String ENTITY_NAME = "favorite";
     private final Logger log = LoggerFactory.getLogger(FavoriteController.class);
     private final FavoriteRepository favoriteRepository;
+    private final KeysetRepository keysetRepository;
     @Value("${spring.application.name}")
     private String applicationName;
+    @Value("${zoo.paging.default-page-size:100}")
+    private int defaultPageSize;
+    @Value("${zoo.paging.max-page-size:1000}")
+    private int maxPageSize;
 
-    public FavoriteController(FavoriteRepository favoriteRepository) {
+    public FavoriteController(FavoriteRepository favoriteRepository, KeysetRepository keysetRepository) {
         this.favoriteRepository = favoriteRepository;
+        this.keysetRepository = keysetRepository;
     }
 
     /**
@@ -75,14 +87,32 @@ public class FavoriteController {
     }
 
     /**
-     * {@code GET  /favorites} : get all the favorites.
+     * {@code GET  /favorites} : get a page of the favorites.
+     * <p>
+     * The {@code X-Next-Cursor} header is passed back as {@code cursor} for the next page and is missing on the last one.
      *
+     * @param sort     {@code id}, optionally followed by {@code ,asc} or {@code ,desc}.
+     * @param cursor   the {@code X-Next-Cursor} of the previous page.
+     * @param limit    the page size, capped at {@code zoo.paging.max-page-size}.
+     * @param total    {@code true} to count the matching favorites into {@code X-Total-Count}.
+     * @param animalId only favorites of this animal.
+     * @param roomId   only favorites of this room.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of favorites in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the sort or the cursor is not valid.
      */
     @GetMapping("/favorites")
-    public List<Favorite> getAllFavorites() {
-        log.debug("REST request to get all Favorites");
-        return favoriteRepository.findAll();
+    public ResponseEntity<List<FavoriteDTO>> getAllFavorites(@RequestParam(required = false) String sort,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(defaultValue = "false") boolean total,
+                                                             @RequestParam(required = false) Long animalId,
+                                                             @RequestParam(required = false) Long roomId) {
+        log.debug("REST request to get a page of Favorites after {}", cursor);
+        KeysetRequest request = KeysetRequest.of(sort, cursor, limit, total, defaultPageSize, maxPageSize);
+        Specification<Favorite> filter = Specification.where(Filters.<Favorite>associated("animal", animalId))
+                .and(Filters.equal("roomId", roomId));
+        KeysetSlice<FavoriteDTO> page = keysetRepository.find(Favorite.class, filter, request, FavoriteDTO.class, "id", "roomId", "animal.id");
+        return ResponseEntity.ok().headers(HeaderUtil.createPageHeaders(page.getNextCursor(), page.getTotal())).body(page.getContent());
     }
 
     /**
@@ -92,9 +122,9 @@ public class FavoriteController {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the favorite, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/favorites/{id}")
-    public ResponseEntity<Favorite> getFavorite(@PathVariable Long id) {
+    public ResponseEntity<FavoriteDTO> getFavorite(@PathVariable Long id) {
         log.debug("REST request to get Favorite : {}", id);
-        Optional<Favorite> favorite = favoriteRepository.findById(id);
+        Optional<FavoriteDTO> favorite = favoriteRepository.findDTOById(id);
         return ResponseUtil.wrapOrNotFound(favorite);
     }
 
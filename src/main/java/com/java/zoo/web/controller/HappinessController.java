@@ -0,0 +1,87 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.HappinessMatch;
+import com.java.zoo.dto.HappinessPage;
+import com.java.zoo.service.HappinessIndex;
+import com.java.zoo.util.HeaderUtil;
+import com.java.zoo.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for matching animals and rooms by happiness, served from the {@link HappinessIndex}.
+ * <p>
+ * Pages hold up to {@code limit} matches, the {@code X-Next-Cursor} header is passed back as {@code cursor} for the
+ * next page and is missing on the last one.
+ */
+@RestController
+@RequestMapping("/api")
+public class HappinessController {
+
+    private final Logger log = LoggerFactory.getLogger(HappinessController.class);
+    private final HappinessIndex happinessIndex;
+    @Value("${zoo.happiness.default-page-size:20}")
+    private int defaultPageSize;
+    @Value("${zoo.happiness.max-page-size:500}")
+    private int maxPageSize;
+
+    public HappinessController(HappinessIndex happinessIndex) {
+        this.happinessIndex = happinessIndex;
+    }
+
+    /**
+     * {@code GET  /animals/:id/happy-rooms} : get the rooms which would make the "id" animal happy, by size.
+     *
+     * @param id     the id of the animal.
+     * @param cursor the {@code X-Next-Cursor} of the previous page.
+     * @param limit  the page size, capped at {@code zoo.happiness.max-page-size}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the rooms in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/animals/{id}/happy-rooms")
+    public ResponseEntity<List<HappinessMatch>> getHappyRooms(@PathVariable Long id,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        log.debug("REST request to get the rooms which make animal {} happy", id);
+        return page(happinessIndex.roomsFor(id, cursor, pageSize(limit)));
+    }
+
+    /**
+     * {@code GET  /rooms/:id/happy-animals} : get the animals which would be happy in the "id" room, by type and preference.
+     *
+     * @param id     the id of the room.
+     * @param cursor the {@code X-Next-Cursor} of the previous page.
+     * @param limit  the page size, capped at {@code zoo.happiness.max-page-size}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the animals in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/rooms/{id}/happy-animals")
+    public ResponseEntity<List<HappinessMatch>> getHappyAnimals(@PathVariable Long id,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit) {
+        log.debug("REST request to get the animals which would be happy in room {}", id);
+        return page(happinessIndex.animalsFor(id, cursor, pageSize(limit)));
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static ResponseEntity<List<HappinessMatch>> page(Optional<HappinessPage> page) {
+        HttpHeaders headers = page.map(found -> HeaderUtil.createCursorHeaders(found.getNextCursor())).orElse(null);
+        return ResponseUtil.wrapOrNotFound(page.map(HappinessPage::getMatches), headers);
+    }
+}
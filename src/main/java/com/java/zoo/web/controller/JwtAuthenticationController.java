@@ -2,17 +2,16 @@ package com.java.zoo.web.controller;
 
 
 import com.java.zoo.dto.JwtRequest;
-import com.java.zoo.exception.BadRequestAlertException;
-import com.java.zoo.security.JwtTokenUtil;
+import com.java.zoo.exception.ServiceUnavailableException;
+import com.java.zoo.service.AuthenticationService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * REST controller for managing authenticating the User
  */
@@ -20,29 +19,26 @@ import org.springframework.web.bind.annotation.RestController;
 @CrossOrigin
 public class JwtAuthenticationController {
 
-    private final AuthenticationManager authenticationManager;
-
-    private final JwtTokenUtil jwtTokenUtil;
+    private final AuthenticationService authenticationService;
 
-    public JwtAuthenticationController(AuthenticationManager authenticationManager, JwtTokenUtil jwtTokenUtil) {
-        this.authenticationManager = authenticationManager;
-        this.jwtTokenUtil = jwtTokenUtil;
+    public JwtAuthenticationController(AuthenticationService authenticationService) {
+        this.authenticationService = authenticationService;
     }
 
     /**
      * {@code POST  /JwtRequest} : Authorize the user.
+     * <p>
+     * The credentials are verified asynchronously on the authentication pool, the request thread is released meanwhile.
      *
      * @param authenticationRequest UserName and Password of the user
      * @return JwtToken if authenticated
+     * @throws ServiceUnavailableException {@code 503 (Service Unavailable)} if too many logins are already waiting.
      */
     @PostMapping(value = "/authenticate")
-    public ResponseEntity<String> createAuthenticationToken(@RequestBody JwtRequest authenticationRequest) {
-        try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authenticationRequest.getUsername().toLowerCase(), authenticationRequest.getPassword()));
-            return ResponseEntity.ok(jwtTokenUtil.createToken(authenticationRequest.getUsername().toLowerCase()));
-        } catch (AuthenticationException e) {
-            throw new BadRequestAlertException("Authentication Denied", "zoo application", "Invalid Username/Password");
-        }
+    public CompletableFuture<ResponseEntity<String>> createAuthenticationToken(@RequestBody JwtRequest authenticationRequest) {
+        return authenticationService
+                .authenticate(authenticationRequest.getUsername().toLowerCase(), authenticationRequest.getPassword())
+                .thenApply(ResponseEntity::ok);
     }
 
 }
@@ -0,0 +1,69 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.BatchResult;
+import com.java.zoo.dto.PlacementPlan;
+import com.java.zoo.dto.PlacementRequest;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.service.PlacementOptimizer;
+import com.java.zoo.service.ZooBatchService;
+import com.java.zoo.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * REST controller for planning and applying room assignments which maximize happy animals and favorite rooms.
+ */
+@RestController
+@RequestMapping("/api")
+public class PlacementController {
+
+    private final Logger log = LoggerFactory.getLogger(PlacementController.class);
+    private final PlacementOptimizer placementOptimizer;
+    private final ZooBatchService zooBatchService;
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    public PlacementController(PlacementOptimizer placementOptimizer, ZooBatchService zooBatchService) {
+        this.placementOptimizer = placementOptimizer;
+        this.zooBatchService = zooBatchService;
+    }
+
+    /**
+     * {@code POST  /placements/plan} : compute a room for every unplaced animal, or for every animal, without applying it.
+     *
+     * @param placementRequest the scope, the optional room capacities and the time budget.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the plan and the batch which applies it.
+     */
+    @PostMapping("/placements/plan")
+    public ResponseEntity<PlacementPlan> planPlacements(@Valid @RequestBody PlacementRequest placementRequest) {
+        log.debug("REST request to plan placements : {}", placementRequest);
+        return ResponseEntity.ok(placementOptimizer.plan(placementRequest));
+    }
+
+    /**
+     * {@code POST  /placements/apply} : compute a plan as {@code /placements/plan} does and apply it in one batch.
+     *
+     * @param placementRequest the scope, the optional room capacities and the time budget.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of every operation of the plan,
+     * nothing is written if any of them fails.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the plan has more than {@code zoo.batch.max-operations} operations.
+     */
+    @PostMapping("/placements/apply")
+    public ResponseEntity<BatchResult> applyPlacements(@Valid @RequestBody PlacementRequest placementRequest) {
+        log.debug("REST request to apply placements : {}", placementRequest);
+        PlacementPlan plan = placementOptimizer.plan(placementRequest);
+        BatchResult result = zooBatchService.execute(plan.getBatch());
+        return ResponseEntity.ok()
+                .headers(HeaderUtil.createAlert(applicationName, "placements applied", String.valueOf(result.getApplied())))
+                .body(result);
+    }
+}
@@ -0,0 +1,86 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.RebalancerStatus;
+import com.java.zoo.entity.RebalanceMove;
+import com.java.zoo.repository.RebalanceMoveRepository;
+import com.java.zoo.service.Rebalancer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for pausing, resuming and watching the background {@link Rebalancer}.
+ */
+@RestController
+@RequestMapping("/api")
+public class RebalancerController {
+
+    private final Logger log = LoggerFactory.getLogger(RebalancerController.class);
+    private final Rebalancer rebalancer;
+    private final RebalanceMoveRepository rebalanceMoveRepository;
+    @Value("${zoo.rebalancer.max-log-page-size:500}")
+    private int maxLogPageSize;
+
+    public RebalancerController(Rebalancer rebalancer, RebalanceMoveRepository rebalanceMoveRepository) {
+        this.rebalancer = rebalancer;
+        this.rebalanceMoveRepository = rebalanceMoveRepository;
+    }
+
+    /**
+     * {@code GET  /rebalancer} : get the state and counters of the rebalancer.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the status in body.
+     */
+    @GetMapping("/rebalancer")
+    public ResponseEntity<RebalancerStatus> getStatus() {
+        log.debug("REST request to get the rebalancer status");
+        return ResponseEntity.ok(rebalancer.getStatus());
+    }
+
+    /**
+     * {@code POST  /rebalancer/pause} : stop applying moves until resumed, a run in progress completes.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the status in body.
+     */
+    @PostMapping("/rebalancer/pause")
+    public ResponseEntity<RebalancerStatus> pause() {
+        log.debug("REST request to pause the rebalancer");
+        rebalancer.pause();
+        return ResponseEntity.ok(rebalancer.getStatus());
+    }
+
+    /**
+     * {@code POST  /rebalancer/resume} : apply moves again from the next scheduled run.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the status in body.
+     */
+    @PostMapping("/rebalancer/resume")
+    public ResponseEntity<RebalancerStatus> resume() {
+        log.debug("REST request to resume the rebalancer");
+        rebalancer.resume();
+        return ResponseEntity.ok(rebalancer.getStatus());
+    }
+
+    /**
+     * {@code GET  /rebalancer/moves} : get the latest moves applied by the rebalancer, latest first.
+     *
+     * @param limit the number of moves, capped at {@code zoo.rebalancer.max-log-page-size}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the moves in body.
+     */
+    @GetMapping("/rebalancer/moves")
+    public ResponseEntity<List<RebalanceMove>> getMoves(@RequestParam(defaultValue = "50") int limit) {
+        log.debug("REST request to get the latest {} rebalancer moves", limit);
+        int size = Math.max(1, Math.min(limit, maxLogPageSize));
+        return ResponseEntity.ok(rebalanceMoveRepository.findAllByOrderByIdDesc(PageRequest.of(0, size)));
+    }
+}
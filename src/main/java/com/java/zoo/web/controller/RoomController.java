@@ -1,14 +1,22 @@
 package com.java.zoo.web.controller;
 
 
+import com.java.zoo.dto.KeysetRequest;
+import com.java.zoo.dto.KeysetSlice;
+import com.java.zoo.dto.RoomDTO;
 import com.java.zoo.entity.Room;
 import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.repository.Filters;
+import com.java.zoo.repository.KeysetRepository;
 import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.service.HappinessIndex;
+import com.java.zoo.service.HappyAnimalCounter;
 import com.java.zoo.util.HeaderUtil;
 import com.java.zoo.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -31,11 +39,22 @@ public class RoomController {
     private static final String ENTITY_NAME = "room";
     private final Logger log = LoggerFactory.getLogger(RoomController.class);
     private final RoomRepository roomRepository;
+    private final HappyAnimalCounter happyAnimalCounter;
+    private final HappinessIndex happinessIndex;
+    private final KeysetRepository keysetRepository;
     @Value("${spring.application.name}")
     private String applicationName;
+    @Value("${zoo.paging.default-page-size:100}")
+    private int defaultPageSize;
+    @Value("${zoo.paging.max-page-size:1000}")
+    private int maxPageSize;
 
-    public RoomController(RoomRepository roomRepository) {
+    public RoomController(RoomRepository roomRepository, HappyAnimalCounter happyAnimalCounter, HappinessIndex happinessIndex,
+                          KeysetRepository keysetRepository) {
         this.roomRepository = roomRepository;
+        this.happyAnimalCounter = happyAnimalCounter;
+        this.happinessIndex = happinessIndex;
+        this.keysetRepository = keysetRepository;
     }
 
     /**
@@ -53,6 +72,8 @@ public class RoomController {
         }
         if (null == room.getCreated()) room.setCreated(Instant.now());
         Room result = roomRepository.save(room);
+        happyAnimalCounter.roomChanged(result);
+        happinessIndex.roomChanged(result);
         return ResponseEntity.created(new URI("/api/rooms/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
                 .body(result);
@@ -73,20 +94,40 @@ public class RoomController {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
         Room result = roomRepository.save(room);
+        happyAnimalCounter.roomChanged(result);
+        happinessIndex.roomChanged(result);
         return ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, room.getId().toString()))
                 .body(result);
     }
 
     /**
-     * {@code GET  /rooms} : get all the rooms.
+     * {@code GET  /rooms} : get a page of the rooms.
+     * <p>
+     * The {@code X-Next-Cursor} header is passed back as {@code cursor} for the next page and is missing on the last one.
      *
+     * @param sort    {@code id}, optionally followed by {@code ,asc} or {@code ,desc}.
+     * @param cursor  the {@code X-Next-Cursor} of the previous page.
+     * @param limit   the page size, capped at {@code zoo.paging.max-page-size}.
+     * @param total   {@code true} to count the matching rooms into {@code X-Total-Count}.
+     * @param minSize only rooms of at least this size.
+     * @param maxSize only rooms of at most this size.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of rooms in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the sort or the cursor is not valid.
      */
     @GetMapping("/rooms")
-    public List<Room> getAllRooms() {
-        log.debug("REST request to get all Rooms");
-        return roomRepository.findAll();
+    public ResponseEntity<List<RoomDTO>> getAllRooms(@RequestParam(required = false) String sort,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(defaultValue = "false") boolean total,
+                                                     @RequestParam(required = false) Long minSize,
+                                                     @RequestParam(required = false) Long maxSize) {
+        log.debug("REST request to get a page of Rooms after {}", cursor);
+        KeysetRequest request = KeysetRequest.of(sort, cursor, limit, total, defaultPageSize, maxPageSize);
+        Specification<Room> filter = Specification.where(Filters.<Room>atLeast("size", minSize))
+                .and(Filters.atMost("size", maxSize));
+        KeysetSlice<RoomDTO> page = keysetRepository.find(Room.class, filter, request, RoomDTO.class, "id", "title", "size", "created");
+        return ResponseEntity.ok().headers(HeaderUtil.createPageHeaders(page.getNextCursor(), page.getTotal())).body(page.getContent());
     }
 
     /**
@@ -96,9 +137,9 @@ public class RoomController {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the room, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/rooms/{id}")
-    public ResponseEntity<Room> getRoom(@PathVariable Long id) {
+    public ResponseEntity<RoomDTO> getRoom(@PathVariable Long id) {
         log.debug("REST request to get Room : {}", id);
-        Optional<Room> room = roomRepository.findById(id);
+        Optional<RoomDTO> room = roomRepository.findDTOById(id);
         return ResponseUtil.wrapOrNotFound(room);
     }
 
@@ -112,6 +153,8 @@ public class RoomController {
     public ResponseEntity<Void> deleteRoom(@PathVariable Long id) {
         log.debug("REST request to delete Room : {}", id);
         roomRepository.deleteById(id);
+        happyAnimalCounter.roomRemoved(id);
+        happinessIndex.roomRemoved(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
     }
 
@@ -0,0 +1,47 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.SimulationRequest;
+import com.java.zoo.dto.SimulationResult;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.service.ZooSimulator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * REST controller for evaluating placement operations without applying them.
+ */
+@RestController
+@RequestMapping("/api")
+public class SimulationController {
+
+    private final Logger log = LoggerFactory.getLogger(SimulationController.class);
+    private final ZooSimulator zooSimulator;
+
+    public SimulationController(ZooSimulator zooSimulator) {
+        this.zooSimulator = zooSimulator;
+    }
+
+    /**
+     * {@code POST  /simulations} : apply place, move and remove operations to an in-memory copy of the zoo
+     * <p>
+     * Nothing is written. The copy may be up to {@code zoo.simulation.max-snapshot-age-ms} old.
+     *
+     * @param simulationRequest the operations.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of every operation and
+     * the happy animals and favorite matches of every room they change, before and after.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if there are more than {@code zoo.simulation.max-operations} operations.
+     */
+    @PostMapping("/simulations")
+    public ResponseEntity<SimulationResult> simulate(@Valid @RequestBody SimulationRequest simulationRequest) {
+        log.debug("REST request to simulate {} operations", simulationRequest.getOperations().size());
+        return ResponseEntity.ok(zooSimulator.simulate(simulationRequest));
+    }
+}
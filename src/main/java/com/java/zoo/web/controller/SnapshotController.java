@@ -0,0 +1,40 @@
+package com.java.zoo.web.controller;
+
+
+import com.java.zoo.dto.SnapshotSummary;
+import com.java.zoo.service.SnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * REST controller for exporting the binary snapshot of the zoo.
+ */
+@RestController
+@RequestMapping("/api")
+public class SnapshotController {
+
+    private final Logger log = LoggerFactory.getLogger(SnapshotController.class);
+    private final SnapshotService snapshotService;
+
+    public SnapshotController(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * {@code POST  /snapshot} : Export users, rooms, animals and favorites to the snapshot file {@code load.snapshot.file}.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the counters of the export.
+     * @throws IOException if the snapshot file cannot be written.
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<SnapshotSummary> exportSnapshot() throws IOException {
+        log.debug("REST request to export the snapshot");
+        return ResponseEntity.ok(snapshotService.export());
+    }
+}
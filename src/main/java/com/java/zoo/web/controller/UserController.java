@@ -2,6 +2,8 @@ package com.java.zoo.web.controller;
 
 
 import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.KeysetRequest;
+import com.java.zoo.dto.KeysetSlice;
 import com.java.zoo.dto.PasswordChangeDTO;
 import com.java.zoo.dto.UserDTO;
 import com.java.zoo.entity.User;
@@ -39,6 +41,10 @@ public class UserController {
     private final UserRepository userRepository;
     @Value("${spring.application.name}")
     private String applicationName;
+    @Value("${zoo.paging.default-page-size:100}")
+    private int defaultPageSize;
+    @Value("${zoo.paging.max-page-size:1000}")
+    private int maxPageSize;
 
     public UserController(UserService userService, UserRepository userRepository) {
         this.userService = userService;
@@ -113,13 +119,25 @@ public class UserController {
     }
 
     /**
-     * {@code GET /users} : get all users.
+     * {@code GET /users} : get a page of the users.
+     * <p>
+     * The {@code X-Next-Cursor} header is passed back as {@code cursor} for the next page and is missing on the last one.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @param sort   {@code id}, optionally followed by {@code ,asc} or {@code ,desc}.
+     * @param cursor the {@code X-Next-Cursor} of the previous page.
+     * @param limit  the page size, capped at {@code zoo.paging.max-page-size}.
+     * @param total  {@code true} to count the users into {@code X-Total-Count}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the users.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the sort or the cursor is not valid.
      */
     @GetMapping("/users")
-    public List<UserDTO> getAllUsers() {
-        return userService.getAllManagedUsers();
+    public ResponseEntity<List<UserDTO>> getAllUsers(@RequestParam(required = false) String sort,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(defaultValue = "false") boolean total) {
+        log.debug("REST request to get a page of Users after {}", cursor);
+        KeysetSlice<UserDTO> page = userService.getManagedUsers(KeysetRequest.of(sort, cursor, limit, total, defaultPageSize, maxPageSize));
+        return ResponseEntity.ok().headers(HeaderUtil.createPageHeaders(page.getNextCursor(), page.getTotal())).body(page.getContent());
     }
 
     /**
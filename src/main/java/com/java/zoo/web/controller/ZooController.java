@@ -1,6 +1,7 @@
 package com.java.zoo.web.controller;
 
 import com.java.zoo.constants.Constants;
+import com.java.zoo.dto.AnimalDetailDTO;
 import com.java.zoo.dto.InputRequest;
 import com.java.zoo.entity.Animal;
 import com.java.zoo.entity.Room;
@@ -8,8 +9,10 @@ import com.java.zoo.exception.BadRequestAlertException;
 import com.java.zoo.repository.AnimalRepository;
 import com.java.zoo.repository.FavoriteRepository;
 import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.service.GroupCommitExecutor;
 import com.java.zoo.service.ZooService;
 import com.java.zoo.util.HeaderUtil;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,23 +27,29 @@ import java.util.Optional;
 /**
  * REST controller for managing animals/room/favorite.
  * <p>
+ * Every operation is timed into {@code zoo.operations}, tagged with the operation next to the status and outcome
+ * tags of {@code http.server.requests}.
  */
 @RestController
 @RequestMapping("/api")
 public class ZooController {
+    private static final String OPERATIONS_TIMER = "zoo.operations";
     private final Logger log = LoggerFactory.getLogger(ZooController.class);
     private final ZooService zooService;
     private final AnimalRepository animalRepository;
     private final RoomRepository roomRepository;
     private final FavoriteRepository favoriteRepository;
+    private final GroupCommitExecutor groupCommit;
     @Value("${spring.application.name}")
     private String applicationName;
 
-    public ZooController(ZooService zooService, RoomRepository roomRepository, AnimalRepository animalRepository, FavoriteRepository favoriteRepository) {
+    public ZooController(ZooService zooService, RoomRepository roomRepository, AnimalRepository animalRepository, FavoriteRepository favoriteRepository,
+                         GroupCommitExecutor groupCommit) {
         this.zooService = zooService;
         this.roomRepository = roomRepository;
         this.animalRepository = animalRepository;
         this.favoriteRepository = favoriteRepository;
+        this.groupCommit = groupCommit;
     }
 
 
@@ -54,19 +63,24 @@ public class ZooController {
      * @throws BadRequestAlertException {@code 400 (Bad Request)} if the animal/room id is null  or for the given input animal/room id is not available in DB.
      */
     @PutMapping("/animal/place")
-    public ResponseEntity<Animal> placeAnimal(@Valid @RequestBody InputRequest inputRequest) {
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "place"}, histogram = true)
+    public ResponseEntity<AnimalDetailDTO> placeAnimal(@Valid @RequestBody InputRequest inputRequest) {
         log.debug("REST request to place animal in room : {}", inputRequest.getAnimalId());
 
         String requestType = "Place Animal";
-        Animal animal = validateAnimalId(inputRequest.getAnimalId(), requestType);
-        Room room = validateRoomId(inputRequest.getRoomId(), requestType);
-        if (null != animal.getRoom()) {
-            throw new BadRequestAlertException("Animal is placed in room already! Try moving the animal to different room or remove animal from the existing room, request cannot be completed", requestType, "animalPlacedAlready");
-        }
-        zooService.placeAnimal(animal, room);
+        // the checks are part of the update, the lookups below only run to tell why it was refused
+        Animal animal = groupCommit.execute(() -> zooService.placeAnimal(inputRequest.getAnimalId(), inputRequest.getRoomId()))
+                .orElseThrow(() -> {
+                    Animal existing = validateAnimalId(inputRequest.getAnimalId(), requestType);
+                    validateRoomId(inputRequest.getRoomId(), requestType);
+                    if (null != existing.getRoom()) {
+                        return new BadRequestAlertException("Animal is placed in room already! Try moving the animal to different room or remove animal from the existing room, request cannot be completed", requestType, "animalPlacedAlready");
+                    }
+                    return concurrentUpdate(requestType);
+                });
         return ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, animal.getId().toString()))
-                .body(animal);
+                .body(AnimalDetailDTO.of(animal));
 
 
     }
@@ -83,21 +97,25 @@ public class ZooController {
      * @throws BadRequestAlertException {@code 400 (Bad Request)} if the animal/room id is null  or for the given input animal/room id is not available in DB.
      */
     @PutMapping("/animal/move")
-    public ResponseEntity<Animal> moveAnimal(@Valid @RequestBody InputRequest inputRequest) {
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "move"}, histogram = true)
+    public ResponseEntity<AnimalDetailDTO> moveAnimal(@Valid @RequestBody InputRequest inputRequest) {
         log.debug("REST request to move animal to another room : {}", inputRequest.getAnimalId());
 
         String requestType = "Move Animal";
-        Animal animal = validateAnimalId(inputRequest.getAnimalId(), requestType);
-        validateAnimalRoomAvailable(requestType, animal);
-        if (animal.getRoom().getId().equals(inputRequest.getRoomId())) {
-            throw new BadRequestAlertException("Animal currently placed room and to be moved room are same Please check, request cannot be completed", requestType, "sameroomid");
-        }
-        Room room = validateRoomId(inputRequest.getRoomId(), requestType);
-        zooService.moveAnimal(animal, room);
+        Animal animal = groupCommit.execute(() -> zooService.moveAnimal(inputRequest.getAnimalId(), inputRequest.getRoomId()))
+                .orElseThrow(() -> {
+                    Animal existing = validateAnimalId(inputRequest.getAnimalId(), requestType);
+                    validateAnimalRoomAvailable(requestType, existing);
+                    if (existing.getRoom().getId().equals(inputRequest.getRoomId())) {
+                        return new BadRequestAlertException("Animal currently placed room and to be moved room are same Please check, request cannot be completed", requestType, "sameroomid");
+                    }
+                    validateRoomId(inputRequest.getRoomId(), requestType);
+                    return concurrentUpdate(requestType);
+                });
 
         return ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, animal.getId().toString()))
-                .body(animal);
+                .body(AnimalDetailDTO.of(animal));
     }
 
     /**
@@ -108,12 +126,15 @@ public class ZooController {
      * @throws BadRequestAlertException {@code 400 (Bad Request)} if the animalid is not available in DB.
      */
     @DeleteMapping("/animal/remove/{animalId}")
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "remove"}, histogram = true)
     public ResponseEntity<Void> removeAnimal(@PathVariable String animalId) {
         log.debug("REST request to delete animal from room: {}", animalId);
         String requestType = "Delete Animal";
-        Animal animal = validateAnimalId(Long.parseLong(animalId), requestType);
-        validateAnimalRoomAvailable(requestType, animal);
-        zooService.deleteAnimalFromRoom(animal);
+        if (!groupCommit.execute(() -> zooService.deleteAnimalFromRoom(Long.parseLong(animalId)))) {
+            Animal animal = validateAnimalId(Long.parseLong(animalId), requestType);
+            validateAnimalRoomAvailable(requestType, animal);
+            throw concurrentUpdate(requestType);
+        }
 
         return ResponseEntity.noContent().headers(HeaderUtil.createAlert(applicationName, "animal deleted from room", animalId)).build();
 
@@ -131,19 +152,21 @@ public class ZooController {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/favorite/assign")
-    public ResponseEntity<Animal> assignFavorite(@Valid @RequestBody InputRequest inputRequest) throws URISyntaxException {
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "assign"}, histogram = true)
+    public ResponseEntity<AnimalDetailDTO> assignFavorite(@Valid @RequestBody InputRequest inputRequest) throws URISyntaxException {
         log.debug("REST request to assign room as favorite for  animal: {}", inputRequest.getAnimalId());
 
         String requestType = "Assign Favorite Room";
-        Animal animal = validateAnimalId(inputRequest.getAnimalId(), requestType);
-        Room room = validateRoomId(inputRequest.getRoomId(), requestType);
-        if (null != favoriteRepository.findByRoomIdAndAnimalId(room.getId(), animal.getId())) {
+        validateAnimalId(inputRequest.getAnimalId(), requestType);
+        validateRoomId(inputRequest.getRoomId(), requestType);
+        if (null != favoriteRepository.findByRoomIdAndAnimalId(inputRequest.getRoomId(), inputRequest.getAnimalId())) {
             throw new BadRequestAlertException("Room is already assigned as favorite for the animal! Try with another room id, request cannot be completed", requestType, "roomidassignedalready");
         }
-        zooService.assignFavoriteRoom(animal, room);
+        Animal animal = groupCommit.execute(() -> zooService.assignFavoriteRoom(inputRequest.getAnimalId(), inputRequest.getRoomId()))
+                .orElseThrow(() -> concurrentUpdate(requestType));
         return ResponseEntity.created(new URI("api//favorite/assign/" + animal.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, animal.getId().toString()))
-                .body(animal);
+                .body(AnimalDetailDTO.of(animal));
     }
 
     /**
@@ -156,16 +179,18 @@ public class ZooController {
      * @throws BadRequestAlertException {@code 400 (Bad Request)}if the animal/room id is null  or for the given input animal/room id is not available in DB.
      */
     @DeleteMapping("/favorite/unassign")
-    public ResponseEntity<Animal> unassignFavorite(@Valid @RequestBody InputRequest inputRequest) {
+    @Timed(value = OPERATIONS_TIMER, extraTags = {"operation", "unassign"}, histogram = true)
+    public ResponseEntity<AnimalDetailDTO> unassignFavorite(@Valid @RequestBody InputRequest inputRequest) {
         log.debug("REST request to unassign room as favorite for  animal: {}", inputRequest.getAnimalId());
 
         String requestType = "UnAssign Favorite Room";
-        Animal animal = validateAnimalId(inputRequest.getAnimalId(), requestType);
-        Room room = validateRoomId(inputRequest.getRoomId(), requestType);
-        zooService.unassignFavoriteRoom(animal, room);
+        validateAnimalId(inputRequest.getAnimalId(), requestType);
+        validateRoomId(inputRequest.getRoomId(), requestType);
+        Animal animal = groupCommit.execute(() -> zooService.unassignFavoriteRoom(inputRequest.getAnimalId(), inputRequest.getRoomId()))
+                .orElseThrow(() -> new BadRequestAlertException("Room is not assigned as favorite for the animal, request cannot be completed", requestType, "roomidnotassigned"));
         return ResponseEntity.ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, Constants.ANIMAL_ENTITY_NAME, animal.getId().toString()))
-                .body(animal);
+                .body(AnimalDetailDTO.of(animal));
     }
 
     private Room validateRoomId(Long roomId, String requestType) {
@@ -185,6 +210,10 @@ public class ZooController {
         return animal.get();
     }
 
+    private static BadRequestAlertException concurrentUpdate(String requestType) {
+        return new BadRequestAlertException("Animal or room was changed by another request, request cannot be completed", requestType, "concurrentupdate");
+    }
+
     private void validateAnimalRoomAvailable(String requestType, Animal animal) {
         if (null == animal.getRoom()) {
             throw new BadRequestAlertException("Animal is not associated with any room try placing the animal to a room, request cannot be completed", requestType, "notassociatedwithroom");
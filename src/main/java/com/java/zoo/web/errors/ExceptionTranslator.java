@@ -5,8 +5,10 @@ import com.java.zoo.constants.ErrorConstants;
 import com.java.zoo.exception.BadRequestAlertException;
 import com.java.zoo.exception.EmailAlreadyUsedException;
 import com.java.zoo.exception.InvalidPasswordException;
+import com.java.zoo.exception.ServiceUnavailableException;
 import com.java.zoo.util.HeaderUtil;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -97,4 +99,11 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
                 HeaderUtil.createFailureAlert(applicationName, true, ex.getEntityName(), ex.getErrorKey(), ex.getMessage())
         );
     }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleServiceUnavailableException(ServiceUnavailableException ex, NativeWebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return create(ex, request, headers);
+    }
 }
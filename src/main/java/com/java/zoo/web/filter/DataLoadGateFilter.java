@@ -0,0 +1,84 @@
+package com.java.zoo.web.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.zoo.constants.ErrorConstants;
+import com.java.zoo.service.DataLoadStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.zalando.problem.Status;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Answers {@code 503 (Service Unavailable)} with a {@code Retry-After} header while the seed data is still loading,
+ * and {@code 500 (Internal Server Error)} without one once the load failed, as retrying will not help.
+ * <p>
+ * {@code /authenticate} is opened as soon as the users are loaded, {@code /api/**} once the whole load is done.
+ * Runs ahead of the security chain so no user lookup is attempted against a half loaded table.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DataLoadGateFilter extends OncePerRequestFilter {
+
+    private static final String PROBLEM_JSON = "application/problem+json";
+
+    private final DataLoadStatus dataLoadStatus;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${load.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    public DataLoadGateFilter(DataLoadStatus dataLoadStatus, ObjectMapper objectMapper) {
+        this.dataLoadStatus = dataLoadStatus;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return dataLoadStatus.isReady();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean blocked = path.startsWith("/api/")
+                || ("/authenticate".equals(path) && !dataLoadStatus.isUsersLoaded());
+        if (!blocked) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Map<String, Object> problem = new LinkedHashMap<>();
+        if (dataLoadStatus.getPhase() == DataLoadStatus.Phase.FAILED) {
+            problem.put("type", ErrorConstants.DATA_LOAD_FAILED_TYPE.toString());
+            problem.put("title", Status.INTERNAL_SERVER_ERROR.getReasonPhrase());
+            problem.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
+            problem.put("detail", "Data load failed");
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        } else {
+            problem.put("type", ErrorConstants.SERVICE_UNAVAILABLE_TYPE.toString());
+            problem.put("title", Status.SERVICE_UNAVAILABLE.getReasonPhrase());
+            problem.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+            problem.put("detail", "Data is loading: " + dataLoadStatus.getPhase() + " " + dataLoadStatus.getPercent() + "%");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        }
+        problem.put("path", path);
+
+        response.setContentType(PROBLEM_JSON);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+}
@@ -0,0 +1,38 @@
+package com.java.zoo.web.health;
+
+import com.java.zoo.service.DataLoadStatus;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health of the seed data load, exposed as {@code dataLoad} and part of the readiness group.
+ * <p>
+ * {@code OUT_OF_SERVICE} while loading, {@code DOWN} if the load failed, {@code UP} once done.
+ */
+@Component
+public class DataLoadHealthIndicator implements HealthIndicator {
+
+    private final DataLoadStatus dataLoadStatus;
+
+    public DataLoadHealthIndicator(DataLoadStatus dataLoadStatus) {
+        this.dataLoadStatus = dataLoadStatus;
+    }
+
+    @Override
+    public Health health() {
+        DataLoadStatus.Phase phase = dataLoadStatus.getPhase();
+        Health.Builder builder;
+        if (phase == DataLoadStatus.Phase.READY) {
+            builder = Health.up();
+        } else if (phase == DataLoadStatus.Phase.FAILED) {
+            builder = Health.down().withDetail("error", String.valueOf(dataLoadStatus.getFailure()));
+        } else {
+            builder = Health.outOfService();
+        }
+        return builder
+                .withDetail("phase", phase)
+                .withDetail("percent", dataLoadStatus.getPercent())
+                .build();
+    }
+}
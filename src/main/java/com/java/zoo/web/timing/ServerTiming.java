@@ -0,0 +1,113 @@
+package com.java.zoo.web.timing;
+
+import java.util.Locale;
+
+/**
+ * Where the time of one sampled request went, sent back in the {@code Server-Timing} header.
+ * <p>
+ * Bound to the request thread by {@link ServerTimingFilter}; everywhere else {@link #current()} is null for
+ * requests which are not sampled, so recording costs one thread local lookup. Work handed to another thread, such
+ * as the group commit worker or a streamed export, is not recorded.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private final long[] nanos = new long[Metric.values().length];
+
+    private int statements;
+
+    private boolean written;
+
+    /**
+     * The parts of a request which are timed, in the order of the header.
+     */
+    public enum Metric {
+        JWT("jwt"), USER("user"), DB("db"), SERIALIZATION("ser");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+    }
+
+    private ServerTiming() {
+    }
+
+    static ServerTiming start() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the timing of the request on this thread, null if it is not sampled.
+     */
+    public static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Add to the time of the metric on the current request, if sampled.
+     *
+     * @param startNanos the {@link System#nanoTime()} the measured part started at.
+     */
+    public static void record(Metric metric, long startNanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(metric, System.nanoTime() - startNanos);
+        }
+    }
+
+    public void add(Metric metric, long elapsedNanos) {
+        nanos[metric.ordinal()] += elapsedNanos;
+    }
+
+    public void statement() {
+        statements++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos(Metric metric) {
+        return nanos[metric.ordinal()];
+    }
+
+    boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * The header value, with the total up to now; the request is not timed any further once it is taken.
+     */
+    String header() {
+        written = true;
+        StringBuilder header = new StringBuilder();
+        for (Metric metric : Metric.values()) {
+            duration(header, metric.key, nanos[metric.ordinal()]);
+            if (metric == Metric.DB) {
+                header.append(", sql;desc=\"").append(statements).append(" statements\"");
+            }
+        }
+        duration(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void duration(StringBuilder header, String name, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,53 @@
+package com.java.zoo.web.timing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times {@code zoo.server-timing.sample-percent} of the {@code /api/**} requests and answers them with a
+ * {@code Server-Timing} header: JWT verification, user lookup, database time and statements, serialization and total.
+ * <p>
+ * Runs right after the data load gate, ahead of the security chain, so the JWT filter is inside the timing. A JSON
+ * body gets the header from {@link ServerTimingJsonConverter} just before it is written, any other response which
+ * is not committed yet gets it here on the way out.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Value("${zoo.server-timing.sample-percent:0}")
+    private double samplePercent;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return samplePercent <= 0 || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (samplePercent < 100 && ThreadLocalRandom.current().nextDouble(100) >= samplePercent) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ServerTiming timing = ServerTiming.start();
+        try {
+            filterChain.doFilter(request, response);
+            if (!timing.isWritten() && !response.isCommitted()) {
+                response.setHeader(ServerTiming.HEADER, timing.header());
+            }
+        } finally {
+            ServerTiming.end();
+        }
+    }
+}
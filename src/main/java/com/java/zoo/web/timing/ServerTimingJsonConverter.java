@@ -0,0 +1,49 @@
+package com.java.zoo.web.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * The JSON converter of the application, in place of the default one. On a sampled request the body is serialized
+ * into memory first, so the serialization time can go into the {@code Server-Timing} header before the body is sent.
+ */
+@Component
+public class ServerTimingJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    public ServerTimingJsonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        ServerTiming timing = ServerTiming.current();
+        if (timing == null || timing.isWritten()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        timing.add(ServerTiming.Metric.SERIALIZATION, System.nanoTime() - start);
+        outputMessage.getHeaders().set(ServerTiming.HEADER, timing.header());
+        body.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,43 @@
+package com.java.zoo.web.timing;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the statements of a session and the time they took to execute to the {@link ServerTiming} of the request.
+ * <p>
+ * Registered through {@code hibernate.session.events.auto}, Hibernate creates one per session.
+ */
+public class StatementTimingListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long executeStart;
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null) {
+            timing.statement();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        ServerTiming.record(ServerTiming.Metric.DB, executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        ServerTiming.record(ServerTiming.Metric.DB, executeStart);
+    }
+}
@@ -12,6 +12,8 @@ public class ConstantsTest {
         assertThat(Constants.CREATED_BY).isEqualTo("SYSTEM");
         assertThat(Constants.ANIMAL_ENTITY_NAME).isEqualTo("animal");
         assertThat(Constants.ANONYMOUS_USER).isEqualTo("anonymoususer");
+        assertThat("$2a$12$Ycwo7AMNnQ5Ocbs0CTvMguXbBc0Ug9HhIkyv9Mkm1dTS3mR.TbZ5q").matches(Constants.BCRYPT_HASH_REGEX);
+        assertThat("admin").doesNotMatch(Constants.BCRYPT_HASH_REGEX);
         assertThat(Constants.LOGIN_REGEX).isEqualTo("^(?>[a-zA-Z0-9!$&*+=?^_`{|}~.-]+@[a-zA-Z0-9-]+(?:\\.[a-zA-Z0-9-]+)*)|(?>[_.@A-Za-z0-9-]+)$");
     }
 
@@ -16,6 +16,7 @@ public final class ErrorConstantsTest {
         assertThat(ErrorConstants.DEFAULT_TYPE).isEqualTo(URI.create(ErrorConstants.PROBLEM_BASE_URL + "/problem-with-message"));
         assertThat(ErrorConstants.EMAIL_ALREADY_USED_TYPE).isEqualTo(URI.create(ErrorConstants.PROBLEM_BASE_URL + "/email-already-used"));
         assertThat(ErrorConstants.LOGIN_ALREADY_USED_TYPE).isEqualTo(URI.create(ErrorConstants.PROBLEM_BASE_URL + "/login-already-used"));
+        assertThat(ErrorConstants.SERVICE_UNAVAILABLE_TYPE).isEqualTo(URI.create(ErrorConstants.PROBLEM_BASE_URL + "/service-unavailable"));
         assertThat(ErrorConstants.ERR_VALIDATION).isEqualTo("error.validation");
     }
 }
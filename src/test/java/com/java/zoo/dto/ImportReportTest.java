@@ -0,0 +1,36 @@
+package com.java.zoo.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImportReportTest {
+
+    @Test
+    public void testImportReportCounters() {
+        ImportReport report = new ImportReport("room");
+        report.rowRead();
+        report.rowRead();
+        report.rowRead();
+        report.rowsImported(2);
+        report.rowRejected();
+
+        assertThat(report.getEntityName()).isEqualTo("room");
+        assertThat(report.getRead()).isEqualTo(3);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getRowsPerSecond()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void testImportReportBulkCounters() {
+        ImportReport report = new ImportReport("animal");
+        report.rowsRead(10);
+        report.rowsImported(8);
+        report.rowsRejected(2);
+
+        assertThat(report.getRead()).isEqualTo(10);
+        assertThat(report.getImported()).isEqualTo(8);
+        assertThat(report.getRejected()).isEqualTo(2);
+    }
+}
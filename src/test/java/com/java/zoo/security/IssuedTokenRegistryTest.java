@@ -0,0 +1,38 @@
+package com.java.zoo.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssuedTokenRegistryTest {
+
+    private IssuedTokenRegistry issuedTokenRegistry;
+
+    @BeforeEach
+    public void init() {
+        JwtTokenUtil jwtTokenUtil = mock(JwtTokenUtil.class);
+        when(jwtTokenUtil.getValidityInMilliseconds()).thenReturn(60000L);
+        issuedTokenRegistry = new IssuedTokenRegistry(jwtTokenUtil);
+    }
+
+    @Test
+    public void issuedLoginIsFoundIgnoringCase() {
+        issuedTokenRegistry.issued("admin");
+
+        assertThat(issuedTokenRegistry.isIssued("Admin")).isTrue();
+        assertThat(issuedTokenRegistry.isIssued("usera")).isFalse();
+    }
+
+    @Test
+    public void evictLetsTheLoginUseBasicAgain() {
+        issuedTokenRegistry.issued("admin");
+        issuedTokenRegistry.issued("usera");
+        issuedTokenRegistry.evict("ADMIN");
+
+        assertThat(issuedTokenRegistry.isIssued("admin")).isFalse();
+        assertThat(issuedTokenRegistry.isIssued("usera")).isTrue();
+    }
+}
@@ -0,0 +1,73 @@
+package com.java.zoo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the per request cost of the JWT verification in {@link JwtTokenFilter}.
+ * <p>
+ * {@code twoParses} is the former filter path (validateToken followed by getUsername), {@code singleParse} the
+ * current one and {@code cachedVerification} the current one with the verified token cache enabled.
+ * Not part of the surefire run, start it from the IDE or with {@code java -cp <test classpath> com.java.zoo.security.JwtTokenUtilBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenUtilBenchmark {
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    private JwtTokenUtil cachingJwtTokenUtil;
+
+    private String token;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtTokenUtilBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static JwtTokenUtil createJwtTokenUtil(boolean tokenCacheEnabled) {
+        JwtTokenUtil util = new JwtTokenUtil();
+        ReflectionTestUtils.setField(util, "secretKey", "XkkTy12");
+        ReflectionTestUtils.setField(util, "tokenCacheEnabled", tokenCacheEnabled);
+        ReflectionTestUtils.setField(util, "tokenCacheMaxSize", 10000L);
+        ReflectionTestUtils.setField(util, "meterRegistry", new SimpleMeterRegistry());
+        util.init();
+        return util;
+    }
+
+    @Setup
+    public void setup() {
+        jwtTokenUtil = createJwtTokenUtil(false);
+        cachingJwtTokenUtil = createJwtTokenUtil(true);
+        token = jwtTokenUtil.createToken("admin");
+    }
+
+    @Benchmark
+    public String twoParses() {
+        jwtTokenUtil.validateToken(token);
+        return jwtTokenUtil.getUsername(token);
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return jwtTokenUtil.verifyToken(token).getSubject();
+    }
+
+    @Benchmark
+    public String cachedVerification() {
+        return cachingJwtTokenUtil.verifyToken(token).getSubject();
+    }
+}
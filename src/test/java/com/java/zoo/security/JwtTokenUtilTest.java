@@ -0,0 +1,72 @@
+package com.java.zoo.security;
+
+import com.java.zoo.exception.BadRequestAlertException;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JwtTokenUtilTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JwtTokenUtil createJwtTokenUtil(boolean tokenCacheEnabled) {
+        JwtTokenUtil util = new JwtTokenUtil();
+        ReflectionTestUtils.setField(util, "secretKey", "XkkTy12");
+        ReflectionTestUtils.setField(util, "tokenCacheEnabled", tokenCacheEnabled);
+        ReflectionTestUtils.setField(util, "tokenCacheMaxSize", 10L);
+        ReflectionTestUtils.setField(util, "meterRegistry", meterRegistry);
+        util.init();
+        return util;
+    }
+
+    @Test
+    public void verifyTokenReturnsSubject() {
+        JwtTokenUtil util = createJwtTokenUtil(false);
+        String token = util.createToken("admin");
+
+        assertThat(util.verifyToken(token).getSubject()).isEqualTo("admin");
+        assertThat(util.getUsername(token)).isEqualTo("admin");
+    }
+
+    @Test
+    public void cachedTokenIsVerifiedOnce() {
+        JwtTokenUtil util = createJwtTokenUtil(true);
+        String token = util.createToken("admin");
+
+        Claims first = util.verifyToken(token);
+        Claims second = util.verifyToken(token);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void invalidTokenIsRejected() {
+        JwtTokenUtil util = createJwtTokenUtil(true);
+        String token = util.createToken("admin") + "x";
+
+        assertThrows(BadRequestAlertException.class, () -> util.verifyToken(token));
+    }
+
+    @Test
+    public void verificationOutcomesAreCounted() {
+        JwtTokenUtil util = createJwtTokenUtil(true);
+        String token = util.createToken("admin");
+
+        util.verifyToken(token);
+        util.verifyToken(token);
+        assertThrows(BadRequestAlertException.class, () -> util.verifyToken(token + "x"));
+
+        assertThat(verifications("valid")).isEqualTo(1.0);
+        assertThat(verifications("cached")).isEqualTo(1.0);
+        assertThat(verifications("invalid")).isEqualTo(1.0);
+        assertThat(verifications("expired")).isZero();
+    }
+
+    private double verifications(String outcome) {
+        return meterRegistry.get("zoo.jwt.verifications").tag("outcome", outcome).counter().count();
+    }
+}
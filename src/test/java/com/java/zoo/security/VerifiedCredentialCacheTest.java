@@ -0,0 +1,36 @@
+package com.java.zoo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VerifiedCredentialCacheTest {
+
+    private final VerifiedCredentialCache verifiedCredentialCache = new VerifiedCredentialCache(new SimpleMeterRegistry(), 100, 60);
+
+    @Test
+    public void verifiedCredentialIsFound() {
+        verifiedCredentialCache.put("admin", "admin", "hash");
+
+        assertThat(verifiedCredentialCache.isVerified("admin", "admin", "hash")).isTrue();
+        assertThat(verifiedCredentialCache.isVerified("admin", "wrong", "hash")).isFalse();
+    }
+
+    @Test
+    public void changedPasswordHashIsAMiss() {
+        verifiedCredentialCache.put("admin", "admin", "hash");
+
+        assertThat(verifiedCredentialCache.isVerified("admin", "admin", "newhash")).isFalse();
+    }
+
+    @Test
+    public void evictRemovesAllCredentialsOfLogin() {
+        verifiedCredentialCache.put("admin", "admin", "hash");
+        verifiedCredentialCache.put("usera", "usera", "hash");
+        verifiedCredentialCache.evict("admin");
+
+        assertThat(verifiedCredentialCache.isVerified("admin", "admin", "hash")).isFalse();
+        assertThat(verifiedCredentialCache.isVerified("usera", "usera", "hash")).isTrue();
+    }
+}
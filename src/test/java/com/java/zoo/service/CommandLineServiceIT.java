@@ -0,0 +1,61 @@
+package com.java.zoo.service;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.dto.ImportReport;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the streamed, chunked CSV import of {@link CommandLineService}.
+ * <p>
+ * Chunks hold two rows, so the duplicate title fails a whole chunk which is then written row by row. The context
+ * runs on a database of its own and is closed afterwards.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@TestPropertySource(properties = {"spring.datasource.url=jdbc:h2:mem:import;DB_CLOSE_DELAY=-1", "load.batch-size=2",
+        "load.progress-interval=0"})
+@DirtiesContext
+public class CommandLineServiceIT {
+
+    @Autowired
+    private CommandLineService commandLineService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Test
+    public void badAndDuplicateRowsAreRejectedAndTheRestImported() throws IOException {
+        long rooms = roomRepository.count();
+        Object roomFilePath = ReflectionTestUtils.getField(commandLineService, "roomFilePath");
+        ReflectionTestUtils.setField(commandLineService, "roomFilePath", "classpath:dataset/roomimport.csv");
+        try {
+            ImportReport report = commandLineService.saveRoomData();
+
+            // a size which is no number, a duplicate of lion and a missing title
+            assertThat(report.getRead()).isEqualTo(7);
+            assertThat(report.getImported()).isEqualTo(4);
+            assertThat(report.getRejected()).isEqualTo(3);
+            assertThat(roomRepository.count()).isEqualTo(rooms + 4);
+            Map<String, Room> imported = roomRepository.findAll().stream().collect(Collectors.toMap(Room::getTitle, Function.identity()));
+            assertThat(imported).containsKeys("lion", "tiger", "wolf", "eagle").doesNotContainKey("bear");
+            // the first of the duplicates is kept
+            assertThat(imported.get("lion").getSize()).isEqualTo(10L);
+            assertThat(imported.get("wolf").getSize()).isEqualTo(15L);
+        } finally {
+            ReflectionTestUtils.setField(commandLineService, "roomFilePath", roomFilePath);
+        }
+    }
+}
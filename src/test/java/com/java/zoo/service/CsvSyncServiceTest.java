@@ -0,0 +1,216 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.SyncReport;
+import com.java.zoo.dto.UserDTO;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the user, room and animal sync of {@link CsvSyncService}, against classpath:dataset/room.csv and files
+ * written by the tests.
+ */
+public class CsvSyncServiceTest {
+
+    private static final String HASH = "$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW";
+
+    @TempDir
+    Path directory;
+
+    private UserService userService;
+
+    private UserRepository userRepository;
+
+    private RoomRepository roomRepository;
+
+    private AnimalRepository animalRepository;
+
+    private FavoriteRepository favoriteRepository;
+
+    private CsvSyncService csvSyncService;
+
+    private Room blue;
+
+    @BeforeEach
+    public void init() {
+        roomRepository = mock(RoomRepository.class);
+        animalRepository = mock(AnimalRepository.class);
+        favoriteRepository = mock(FavoriteRepository.class);
+        userService = mock(UserService.class);
+        userRepository = mock(UserRepository.class);
+        csvSyncService = new CsvSyncService(new DefaultResourceLoader(), userService, userRepository,
+                roomRepository, animalRepository, favoriteRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(EntityManager.class), mock(HappyAnimalCounter.class),
+                mock(HappinessIndex.class));
+        ReflectionTestUtils.setField(csvSyncService, "roomFilePath", "classpath:dataset/room.csv");
+        ReflectionTestUtils.setField(csvSyncService, "batchSize", 500);
+        ReflectionTestUtils.setField(csvSyncService, "deleteMissing", true);
+
+        List<Object[]> state = new ArrayList<>();
+        state.add(new Object[]{1L, "green", 10L});
+        state.add(new Object[]{2L, "blue", 99L});
+        state.add(new Object[]{3L, "yellow", 40L});
+        state.add(new Object[]{4L, "black", 100L});
+        state.add(new Object[]{7L, "gone", 1L});
+        when(roomRepository.findSyncState()).thenReturn(state);
+        blue = new Room();
+        blue.setId(2L);
+        blue.setTitle("blue");
+        blue.setSize(99L);
+        when(roomRepository.findAllById(any())).thenReturn(Collections.singletonList(blue));
+    }
+
+    @Test
+    public void syncWritesOnlyTheDifferences() throws IOException {
+        SyncReport report = csvSyncService.syncRooms();
+
+        assertThat(report.getRead()).isEqualTo(5);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getDeleted()).isEqualTo(1);
+        assertThat(report.getUnchanged()).isEqualTo(3);
+        // one insert chunk (orange) and one update chunk (blue)
+        verify(roomRepository, times(2)).saveAll(any());
+        assertThat(blue.getSize()).isEqualTo(15L);
+        verify(animalRepository).clearRoom(Collections.singletonList(7L));
+        verify(favoriteRepository).deleteByRoomIdIn(Collections.singletonList(7L));
+        verify(roomRepository).deleteByIdIn(Collections.singletonList(7L));
+    }
+
+    @Test
+    public void unchangedFileIsSkipped() throws IOException {
+        csvSyncService.syncRooms();
+        SyncReport report = csvSyncService.syncRooms();
+
+        assertThat(report.isSkipped()).isTrue();
+        verify(roomRepository, times(1)).findSyncState();
+    }
+
+    @Test
+    public void changedFileIsComparedByTheChangedLinesOnly() throws IOException {
+        List<Object[]> state = new ArrayList<>();
+        state.add(new Object[]{1L, "green", 10L});
+        state.add(new Object[]{2L, "blue", 15L});
+        state.add(new Object[]{3L, "yellow", 40L});
+        when(roomRepository.findSyncState()).thenReturn(state);
+        when(roomRepository.findSyncStateByTitleIn(any())).thenAnswer(invocation -> {
+            Collection<?> titles = invocation.getArgument(0);
+            return state.stream().filter(row -> titles.contains(row[1])).collect(Collectors.toList());
+        });
+        ReflectionTestUtils.setField(csvSyncService, "roomFilePath", write("room.csv", "Title;Size", "Green;10", "Blue;15", "Yellow;40"));
+        assertThat(csvSyncService.syncRooms().getUnchanged()).isEqualTo(3);
+
+        write("room.csv", "Title;Size", "Green;10", "Blue;20", "Purple;5");
+        SyncReport report = csvSyncService.syncRooms();
+
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getDeleted()).isEqualTo(1);
+        assertThat(blue.getSize()).isEqualTo(20L);
+        verify(roomRepository, times(1)).findSyncState();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> titles = ArgumentCaptor.forClass(Collection.class);
+        verify(roomRepository, times(2)).findSyncStateByTitleIn(titles.capture());
+        // green did not change and is never read
+        assertThat(titles.getAllValues().get(0)).containsExactlyInAnyOrder("blue", "purple");
+        assertThat(titles.getAllValues().get(1)).containsExactly("yellow");
+        verify(roomRepository).deleteByIdIn(Collections.singletonList(3L));
+    }
+
+    @Test
+    public void userSyncWritesOnlyTheDifferences() throws IOException {
+        List<Object[]> state = new ArrayList<>();
+        state.add(new Object[]{1L, "usera", "usera@domain.com", "user", "a", "EN", HASH});
+        state.add(new Object[]{2L, "userb", "userb@domain.com", "user", "b", "EN", HASH.replace('W', 'V')});
+        state.add(new Object[]{3L, "gone", "gone@domain.com", "user", "g", "EN", HASH});
+        when(userRepository.findSyncState()).thenReturn(state);
+        ReflectionTestUtils.setField(csvSyncService, "userFilePath", write("user.csv", "UserName;email;Password;firstname;lastname;langkey",
+                // a clear text password is not compared, a hash is
+                "UserA;usera@domain.com;UserA;User;A;EN",
+                "UserB;userb@domain.com;" + HASH + ";User;B;EN",
+                "UserC;userc@domain.com;UserC;User;C;EN"));
+
+        SyncReport report = csvSyncService.syncUsers();
+
+        assertThat(report.getRead()).isEqualTo(3);
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getDeleted()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UserDTO>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(userService).registerUsers(inserts.capture());
+        assertThat(inserts.getValue()).extracting(UserDTO::getLogin).containsExactly("userc");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, UserDTO>> updates = ArgumentCaptor.forClass(Map.class);
+        verify(userService).updateUsers(updates.capture());
+        assertThat(updates.getValue()).containsOnlyKeys(2L);
+        assertThat(updates.getValue().get(2L).getPassword()).isEqualTo(HASH);
+        verify(userService).deleteUsers(Collections.singletonList(3L));
+    }
+
+    @Test
+    public void animalSyncWritesOnlyTheDifferences() throws IOException {
+        List<Object[]> state = new ArrayList<>();
+        state.add(new Object[]{1L, "dog", "<=", 34L});
+        state.add(new Object[]{2L, "cat", ">=", 10L});
+        state.add(new Object[]{9L, "gone", "<=", 1L});
+        when(animalRepository.findSyncState()).thenReturn(state);
+        Animal cat = new Animal();
+        cat.setId(2L);
+        cat.setTitle("cat");
+        cat.setType(">=");
+        cat.setPreference(10L);
+        when(animalRepository.findAllById(any())).thenReturn(Collections.singletonList(cat));
+        ReflectionTestUtils.setField(csvSyncService, "animalFilePath", write("animal.csv", "Title;Type;Preference",
+                "Dog;<=;34", "Cat;<=;15", "Lion;>=;50"));
+
+        SyncReport report = csvSyncService.syncAnimals();
+
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getDeleted()).isEqualTo(1);
+        assertThat(cat.getType()).isEqualTo("<=");
+        assertThat(cat.getPreference()).isEqualTo(15L);
+        // one insert chunk (lion) and one update chunk (cat)
+        verify(animalRepository, times(2)).saveAll(any());
+        verify(favoriteRepository).deleteByAnimalIdIn(Collections.singletonList(9L));
+        verify(animalRepository).deleteByIdIn(Collections.singletonList(9L));
+    }
+
+    private String write(String name, String... lines) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return "file:" + file.toAbsolutePath();
+    }
+}
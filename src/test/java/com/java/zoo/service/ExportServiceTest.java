@@ -0,0 +1,20 @@
+package com.java.zoo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the CSV values of {@link ExportService}.
+ */
+public class ExportServiceTest {
+
+    @Test
+    public void valuesHoldingTheSeparatorOrAQuoteAreQuoted() {
+        assertThat(ExportService.csvValue(null)).isEmpty();
+        assertThat(ExportService.csvValue("green, large")).isEqualTo("green, large");
+        assertThat(ExportService.csvValue("green;large")).isEqualTo("\"green;large\"");
+        assertThat(ExportService.csvValue("the \"green\" one")).isEqualTo("\"the \"\"green\"\" one\"");
+        assertThat(ExportService.csvValue("green\nlarge")).isEqualTo("\"green\nlarge\"");
+    }
+}
@@ -0,0 +1,103 @@
+package com.java.zoo.service;
+
+import com.java.zoo.exception.BadRequestAlertException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link GroupCommitExecutor} over a mocked transaction manager.
+ */
+public class GroupCommitExecutorTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private GroupCommitExecutor executor;
+
+    private GroupCommitExecutor create(boolean enabled, long maxWaitMillis) {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        executor = new GroupCommitExecutor(new TransactionTemplate(transactionManager), new SimpleMeterRegistry(),
+                enabled, 64, maxWaitMillis, 100, 1);
+        executor.start();
+        return executor;
+    }
+
+    @AfterEach
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void disabledRunsInTheCallerThread() {
+        create(false, 5);
+        Thread caller = Thread.currentThread();
+
+        assertThat(executor.execute(() -> Thread.currentThread() == caller)).isTrue();
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    public void concurrentCommandsShareTransactions() throws Exception {
+        create(true, 200);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                int value = i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return executor.execute(() -> value);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < callers; i++) {
+                assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(transactionManager, atMost(callers - 1)).commit(any(TransactionStatus.class));
+        verify(transactionManager, never()).rollback(any(TransactionStatus.class));
+    }
+
+    @Test
+    public void failingCommandOnlyFailsItsCaller() {
+        create(false, 5);
+        GroupCommitExecutor.Command<String> first = new GroupCommitExecutor.Command<>(() -> "first");
+        GroupCommitExecutor.Command<String> failing = new GroupCommitExecutor.Command<>(() -> {
+            throw new BadRequestAlertException("refused", "test", "refused");
+        });
+        GroupCommitExecutor.Command<String> last = new GroupCommitExecutor.Command<>(() -> "last");
+
+        executor.commit(Arrays.asList(first, failing, last));
+
+        assertThat(first.getFuture().join()).isEqualTo("first");
+        assertThat(last.getFuture().join()).isEqualTo("last");
+        assertThatThrownBy(() -> failing.getFuture().join()).hasCauseInstanceOf(BadRequestAlertException.class);
+        // the shared transaction and the one of the failing command are rolled back, the other two commit alone
+        verify(transactionManager, times(2)).rollback(any(TransactionStatus.class));
+        verify(transactionManager, times(2)).commit(any(TransactionStatus.class));
+    }
+}
@@ -0,0 +1,131 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.HappinessMatch;
+import com.java.zoo.dto.HappinessPage;
+import com.java.zoo.entity.Room;
+import com.java.zoo.exception.BadRequestAlertException;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the range queries and paging of {@link HappinessIndex}.
+ */
+public class HappinessIndexTest {
+
+    private final List<Object[]> rooms = new ArrayList<>();
+
+    private RoomRepository roomRepository;
+
+    private HappinessIndex happinessIndex;
+
+    @BeforeEach
+    public void init() {
+        roomRepository = mock(RoomRepository.class);
+        AnimalRepository animalRepository = mock(AnimalRepository.class);
+        rooms.add(new Object[]{1L, "tiny", 5L});
+        rooms.add(new Object[]{2L, "small", 10L});
+        rooms.add(new Object[]{3L, "other small", 10L});
+        rooms.add(new Object[]{4L, "medium", 20L});
+        rooms.add(new Object[]{5L, "large", 50L});
+        when(roomRepository.findSyncState()).thenReturn(rooms);
+        List<Object[]> animals = new ArrayList<>();
+        animals.add(new Object[]{10L, "mouse", "<=", 10L});
+        animals.add(new Object[]{11L, "horse", ">=", 10L});
+        animals.add(new Object[]{12L, "dog", "<=", 30L});
+        animals.add(new Object[]{13L, "elephant", ">=", 60L});
+        animals.add(new Object[]{14L, "ant", "<=", 5L});
+        when(animalRepository.findSyncState()).thenReturn(animals);
+        happinessIndex = new HappinessIndex(animalRepository, roomRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private static List<Long> ids(HappinessPage page) {
+        return page.getMatches().stream().map(HappinessMatch::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void roomsForAnimalArePagedBySize() {
+        HappinessPage first = happinessIndex.roomsFor(10L, null, 2).orElseThrow(IllegalStateException::new);
+        assertThat(ids(first)).containsExactly(1L, 2L);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        HappinessPage second = happinessIndex.roomsFor(10L, first.getNextCursor(), 2).orElseThrow(IllegalStateException::new);
+        assertThat(ids(second)).containsExactly(3L);
+        assertThat(second.getNextCursor()).isNull();
+
+        assertThat(ids(happinessIndex.roomsFor(11L, null, 10).orElseThrow(IllegalStateException::new))).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(ids(happinessIndex.roomsFor(13L, null, 10).orElseThrow(IllegalStateException::new))).isEmpty();
+    }
+
+    @Test
+    public void animalsForRoomCoverBothTypes() {
+        HappinessPage first = happinessIndex.animalsFor(2L, null, 2).orElseThrow(IllegalStateException::new);
+        assertThat(ids(first)).containsExactly(10L, 12L);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        HappinessPage second = happinessIndex.animalsFor(2L, first.getNextCursor(), 2).orElseThrow(IllegalStateException::new);
+        assertThat(ids(second)).containsExactly(11L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void unknownIdsAreEmpty() {
+        assertThat(happinessIndex.roomsFor(99L, null, 10)).isNotPresent();
+        assertThat(happinessIndex.animalsFor(99L, null, 10)).isNotPresent();
+    }
+
+    @Test
+    public void roomChangesAreApplied() {
+        happinessIndex.roomsFor(10L, null, 10);
+
+        Room room = new Room();
+        room.setId(3L);
+        room.setTitle("other small");
+        room.setSize(40L);
+        happinessIndex.roomChanged(room);
+        happinessIndex.roomRemoved(1L);
+
+        assertThat(ids(happinessIndex.roomsFor(10L, null, 10).orElseThrow(IllegalStateException::new))).containsExactly(2L);
+        assertThat(ids(happinessIndex.roomsFor(12L, null, 10).orElseThrow(IllegalStateException::new))).containsExactly(2L, 4L);
+    }
+
+    @Test
+    public void cursorOfAnotherQueryIsRejected() {
+        String roomCursor = happinessIndex.roomsFor(11L, null, 1).orElseThrow(IllegalStateException::new).getNextCursor();
+
+        assertThatThrownBy(() -> happinessIndex.animalsFor(2L, roomCursor, 1)).isInstanceOf(BadRequestAlertException.class);
+        assertThatThrownBy(() -> happinessIndex.roomsFor(10L, "not-a-cursor", 1)).isInstanceOf(BadRequestAlertException.class);
+    }
+
+    @Test
+    public void invalidationDuringABuildIsNotLost() throws Exception {
+        List<Object[]> before = new ArrayList<>(rooms);
+        Thread invalidating = new Thread(happinessIndex::invalidate);
+        when(roomRepository.findSyncState()).thenAnswer(invocation -> {
+            // a sync commits while the old rows are read
+            invalidating.start();
+            while (invalidating.getState() != Thread.State.BLOCKED && invalidating.isAlive()) {
+                Thread.sleep(1);
+            }
+            rooms.add(new Object[]{6L, "new small", 8L});
+            return before;
+        }).thenReturn(rooms);
+
+        assertThat(ids(happinessIndex.roomsFor(10L, null, 10).orElseThrow(IllegalStateException::new))).containsExactly(1L, 2L, 3L);
+        invalidating.join();
+
+        assertThat(ids(happinessIndex.roomsFor(10L, null, 10).orElseThrow(IllegalStateException::new))).containsExactly(1L, 6L, 2L, 3L);
+    }
+}
@@ -0,0 +1,157 @@
+package com.java.zoo.service;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.dto.HappyAnimalsDrift;
+import com.java.zoo.dto.HappyAnimalsJsonObject;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link HappyAnimalCounter}, fed by the placement operations of {@link ZooService}.
+ * <p>
+ * The rooms and animals created here are deleted again after each test.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+public class HappyAnimalCounterIT {
+
+    @Autowired
+    private HappyAnimalCounter happyAnimalCounter;
+
+    @Autowired
+    private ZooService zooService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Room small;
+
+    private Room large;
+
+    private Animal likesSmall;
+
+    private Animal likesLarge;
+
+    @BeforeEach
+    public void init() {
+        small = createRoom("happy-small", 5L);
+        large = createRoom("happy-large", 50L);
+        likesSmall = createAnimal("happy-likes-small", "<=", 10L);
+        likesLarge = createAnimal("happy-likes-large", ">=", 20L);
+        happyAnimalCounter.invalidate();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            animalRepository.deleteByIdIn(Arrays.asList(likesSmall.getId(), likesLarge.getId()));
+            roomRepository.deleteByIdIn(Arrays.asList(small.getId(), large.getId()));
+        });
+        // the deletes above bypass the counter
+        happyAnimalCounter.invalidate();
+    }
+
+    private Room createRoom(String title, Long size) {
+        Room room = new Room();
+        room.setTitle(title);
+        room.setSize(size);
+        room.setCreated(Instant.now());
+        return roomRepository.save(room);
+    }
+
+    private Animal createAnimal(String title, String type, Long preference) {
+        Animal animal = new Animal();
+        animal.setTitle(title);
+        animal.setType(type);
+        animal.setPreference(preference);
+        animal.setLocated(Instant.now());
+        return animalRepository.save(animal);
+    }
+
+    private Map<String, Long> happyByTitle() {
+        return happyAnimalCounter.getHappyAnimals().stream()
+                .filter(count -> count.getRoomtitle().startsWith("happy-"))
+                .collect(Collectors.toMap(HappyAnimalsJsonObject::getRoomtitle, HappyAnimalsJsonObject::getHappyAnimals));
+    }
+
+    @Test
+    public void countsFollowPlacementsAndRoomSizes() {
+        assertThat(happyByTitle()).isEmpty();
+
+        zooService.placeAnimal(likesSmall.getId(), small.getId());
+        zooService.placeAnimal(likesLarge.getId(), small.getId());
+        assertThat(happyByTitle()).containsEntry("happy-small", 1L).doesNotContainKey("happy-large");
+
+        zooService.moveAnimal(likesLarge.getId(), large.getId());
+        assertThat(happyByTitle()).containsEntry("happy-small", 1L).containsEntry("happy-large", 1L);
+
+        // read again so its animals are not loaded, saving it then keeps them in the room
+        Room resized = roomRepository.findById(small.getId()).orElseThrow(IllegalStateException::new);
+        resized.setSize(100L);
+        happyAnimalCounter.roomChanged(roomRepository.save(resized));
+        assertThat(happyByTitle()).containsEntry("happy-small", 0L).containsEntry("happy-large", 1L);
+
+        zooService.deleteAnimalFromRoom(likesSmall.getId());
+        assertThat(happyByTitle()).doesNotContainKey("happy-small").containsEntry("happy-large", 1L);
+
+        assertThat(happyAnimalCounter.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    public void readRunsNoQueryOnceBuilt() {
+        zooService.placeAnimal(likesSmall.getId(), small.getId());
+        happyAnimalCounter.getHappyAnimals();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(happyByTitle()).containsEntry("happy-small", 1L);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void checkReportsAndRepairsDrift() {
+        zooService.placeAnimal(likesLarge.getId(), large.getId());
+        assertThat(happyByTitle()).containsEntry("happy-large", 1L);
+
+        // taken out of the room without telling the counter
+        transactionTemplate.executeWithoutResult(status -> animalRepository.clearRoom(Collections.singletonList(large.getId())));
+
+        HappyAnimalsDrift drift = happyAnimalCounter.check();
+        assertThat(drift.isConsistent()).isFalse();
+        assertThat(drift.getRooms()).hasSize(1);
+        HappyAnimalsDrift.RoomDrift room = drift.getRooms().get(0);
+        assertThat(room.getRoomId()).isEqualTo(large.getId());
+        assertThat(room.getExpectedHappy()).isZero();
+        assertThat(room.getMaintainedHappy()).isEqualTo(1L);
+
+        assertThat(happyByTitle()).doesNotContainKey("happy-large");
+        assertThat(happyAnimalCounter.check().isConsistent()).isTrue();
+    }
+}
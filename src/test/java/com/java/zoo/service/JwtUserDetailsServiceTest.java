@@ -0,0 +1,69 @@
+package com.java.zoo.service;
+
+import com.java.zoo.entity.User;
+import com.java.zoo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the principal cache of {@link JwtUserDetailsService}.
+ */
+public class JwtUserDetailsServiceTest {
+
+    private static final String LOGIN = "cacheduser";
+
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JwtUserDetailsService jwtUserDetailsService;
+
+    @BeforeEach
+    public void init() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUserDetailsService = new JwtUserDetailsService(userRepository, meterRegistry, 100, 300);
+        User user = new User();
+        user.setLogin(LOGIN);
+        user.setPassword("hash");
+        when(userRepository.findOneByLogin(LOGIN)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    public void loadUserHitsDatabaseOnce() {
+        UserDetails first = jwtUserDetailsService.loadUserByUsername(LOGIN);
+        UserDetails second = jwtUserDetailsService.loadUserByUsername(LOGIN);
+
+        assertThat(first.getPassword()).isEqualTo("hash");
+        assertThat(second.getPassword()).isEqualTo("hash");
+        verify(userRepository, times(1)).findOneByLogin(LOGIN);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void evictForcesDatabaseLookup() {
+        jwtUserDetailsService.loadUserByUsername(LOGIN);
+        jwtUserDetailsService.evict(LOGIN);
+        jwtUserDetailsService.loadUserByUsername(LOGIN);
+
+        verify(userRepository, times(2)).findOneByLogin(LOGIN);
+    }
+
+    @Test
+    public void unknownUserIsNotCached() {
+        when(userRepository.findOneByLogin("unknown")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> jwtUserDetailsService.loadUserByUsername("unknown"));
+        assertThrows(UsernameNotFoundException.class, () -> jwtUserDetailsService.loadUserByUsername("unknown"));
+        verify(userRepository, times(2)).findOneByLogin("unknown");
+    }
+}
@@ -0,0 +1,113 @@
+package com.java.zoo.service;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.dto.ImportReport;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@code load.mode=NATIVE} import through {@link NativeCsvLoader}, on H2 with {@code CSVREAD}.
+ * <p>
+ * The files loaded on startup repeat a title with another case, which is kept once. The context runs on a database
+ * of its own and is closed afterwards.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@TestPropertySource(properties = {"spring.datasource.url=jdbc:h2:mem:native;DB_CLOSE_DELAY=-1", "load.mode=NATIVE",
+        "inputfile.user-name=classpath:dataset/usertest.csv", "inputfile.room-name=classpath:dataset/roomnative.csv",
+        "inputfile.animal-name=classpath:dataset/animalnative.csv"})
+@DirtiesContext
+public class NativeCsvLoaderIT {
+
+    @Autowired
+    private NativeCsvLoader nativeCsvLoader;
+
+    @Autowired
+    private CommandLineService commandLineService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    private Map<String, Room> roomsByTitle() {
+        return roomRepository.findAll().stream().collect(Collectors.toMap(Room::getTitle, Function.identity()));
+    }
+
+    @Test
+    public void startupLoadLowercasesTitlesAndKeepsTheFirstOfDuplicates() {
+        Map<String, Room> rooms = roomsByTitle();
+        assertThat(rooms).containsOnlyKeys("green", "blue", "red");
+        assertThat(rooms.get("green").getSize()).isEqualTo(10L);
+        assertThat(rooms.values()).allSatisfy(room -> assertThat(room.getCreated()).isNotNull().isBeforeOrEqualTo(Instant.now()));
+
+        Map<String, Animal> animals = animalRepository.findAll().stream().collect(Collectors.toMap(Animal::getTitle, Function.identity()));
+        assertThat(animals).containsOnlyKeys("dog", "cat");
+        assertThat(animals.get("dog").getType()).isEqualTo("<=");
+        assertThat(animals.get("dog").getPreference()).isEqualTo(34L);
+        assertThat(animals.values()).allSatisfy(animal -> assertThat(animal.getLocated()).isNotNull());
+    }
+
+    @Test
+    public void idsComeFromTheSequence() {
+        Room room = new Room();
+        room.setTitle("sequence-check");
+        room.setSize(5L);
+        room.setCreated(Instant.now());
+        Room saved = roomRepository.save(room);
+        try {
+            assertThat(roomsByTitle().values()).extracting(Room::getId).doesNotHaveDuplicates().contains(saved.getId());
+        } finally {
+            roomRepository.delete(saved);
+        }
+    }
+
+    @Test
+    public void existingTitlesAreRejected() throws IOException {
+        long rooms = roomRepository.count();
+
+        ImportReport report = commandLineService.saveRoomData();
+
+        assertThat(report.getRead()).isEqualTo(4);
+        assertThat(report.getImported()).isZero();
+        assertThat(report.getRejected()).isEqualTo(4);
+        assertThat(roomRepository.count()).isEqualTo(rooms);
+    }
+
+    @Test
+    public void failedStatementFallsBackToJpa() throws IOException {
+        long rooms = roomRepository.count();
+        assertThat(nativeCsvLoader.loadRooms(new ClassPathResource("dataset/roombroken.csv"))).isEmpty();
+        assertThat(roomRepository.count()).isEqualTo(rooms);
+
+        Object roomFilePath = ReflectionTestUtils.getField(commandLineService, "roomFilePath");
+        ReflectionTestUtils.setField(commandLineService, "roomFilePath", "classpath:dataset/roombroken.csv");
+        try {
+            ImportReport report = commandLineService.saveRoomData();
+
+            assertThat(report.getImported()).isEqualTo(1);
+            assertThat(report.getRejected()).isEqualTo(1);
+            assertThat(roomsByTitle()).containsKey("purple").doesNotContainKey("orange");
+        } finally {
+            ReflectionTestUtils.setField(commandLineService, "roomFilePath", roomFilePath);
+            roomRepository.findAll().stream().filter(room -> "purple".equals(room.getTitle())).forEach(roomRepository::delete);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.BatchOperation;
+import com.java.zoo.dto.BatchOperationType;
+import com.java.zoo.dto.PlacementPlan;
+import com.java.zoo.dto.PlacementRequest;
+import com.java.zoo.dto.PlacementScope;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the plans of {@link PlacementOptimizer}.
+ */
+public class PlacementOptimizerTest {
+
+    private final List<Object[]> rooms = new ArrayList<>();
+
+    private final List<Object[]> animals = new ArrayList<>();
+
+    private final List<Object[]> favorites = new ArrayList<>();
+
+    private PlacementOptimizer placementOptimizer;
+
+    @BeforeEach
+    public void init() {
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        AnimalRepository animalRepository = mock(AnimalRepository.class);
+        FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+        rooms.add(new Object[]{1L, "small", 5L});
+        rooms.add(new Object[]{2L, "large", 50L});
+        when(roomRepository.findSyncState()).thenReturn(rooms);
+        when(animalRepository.findPlacementState()).thenReturn(animals);
+        when(favoriteRepository.findAllRoomIds()).thenReturn(favorites);
+        placementOptimizer = new PlacementOptimizer(animalRepository, roomRepository, favoriteRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 2, 100L, 1000L);
+        ReflectionTestUtils.setField(placementOptimizer, "happyWeight", 10L);
+        ReflectionTestUtils.setField(placementOptimizer, "favoriteWeight", 3L);
+        ReflectionTestUtils.setField(placementOptimizer, "moveCost", 1L);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        placementOptimizer.shutdown();
+    }
+
+    private static Map<Long, BatchOperation> operationsByAnimal(PlacementPlan plan) {
+        Map<Long, BatchOperation> operations = new HashMap<>();
+        plan.getBatch().getOperations().forEach(operation -> operations.put(operation.getAnimalId(), operation));
+        return operations;
+    }
+
+    @Test
+    public void unplacedAnimalsGetTheirBestRoom() {
+        animals.add(new Object[]{10L, null, "<=", 10L});
+        animals.add(new Object[]{11L, 1L, ">=", 20L});
+        animals.add(new Object[]{12L, null, ">=", 20L});
+        favorites.add(new Object[]{12L, 1L});
+
+        PlacementPlan plan = placementOptimizer.plan(new PlacementRequest());
+
+        assertThat(plan.getScope()).isEqualTo(PlacementScope.UNPLACED);
+        assertThat(plan.getAnimals()).isEqualTo(2);
+        assertThat(plan.getHappyAnimals()).isEqualTo(2);
+        assertThat(plan.getWorkers()).isEqualTo(1);
+        Map<Long, BatchOperation> operations = operationsByAnimal(plan);
+        assertThat(operations).containsOnlyKeys(10L, 12L);
+        assertThat(operations.get(10L).getType()).isEqualTo(BatchOperationType.PLACE);
+        assertThat(operations.get(10L).getRoomId()).isEqualTo(1L);
+        // happy in the large room outweighs the favorite small one
+        assertThat(operations.get(12L).getRoomId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void capacitiesAreSearchedForTheBestScore() {
+        // the greedy pass puts 20 in the small room first, only a swap makes both count
+        animals.add(new Object[]{20L, null, "<=", 10L});
+        animals.add(new Object[]{21L, null, "<=", 10L});
+        favorites.add(new Object[]{20L, 2L});
+        PlacementRequest request = new PlacementRequest();
+        request.setMaxAnimalsPerRoom(1);
+
+        PlacementPlan plan = placementOptimizer.plan(request);
+
+        assertThat(plan.getWorkers()).isEqualTo(2);
+        assertThat(plan.getScore()).isEqualTo(13L);
+        assertThat(plan.getHappyAnimals()).isEqualTo(1);
+        assertThat(plan.getFavoriteMatches()).isEqualTo(1);
+        Map<Long, BatchOperation> operations = operationsByAnimal(plan);
+        assertThat(operations.get(20L).getRoomId()).isEqualTo(2L);
+        assertThat(operations.get(21L).getRoomId()).isEqualTo(1L);
+    }
+
+    @Test
+    public void rebalanceRemovesAnimalsBeyondCapacity() {
+        animals.add(new Object[]{30L, 1L, "<=", 10L});
+        animals.add(new Object[]{31L, 1L, "<=", 10L});
+        animals.add(new Object[]{32L, 2L, ">=", 20L});
+        PlacementRequest request = new PlacementRequest();
+        request.setScope(PlacementScope.REBALANCE);
+        request.getRoomCapacities().put(1L, 1);
+        request.getRoomCapacities().put(2L, 1);
+
+        PlacementPlan plan = placementOptimizer.plan(request);
+
+        assertThat(plan.getAnimals()).isEqualTo(2);
+        assertThat(plan.getUnassigned()).isEqualTo(1);
+        assertThat(plan.getHappyAnimals()).isEqualTo(2);
+        List<BatchOperation> operations = plan.getBatch().getOperations();
+        assertThat(operations).hasSize(1);
+        assertThat(operations.get(0).getType()).isEqualTo(BatchOperationType.REMOVE);
+        assertThat(operations.get(0).getAnimalId()).isIn(30L, 31L);
+    }
+
+    @Test
+    public void animalsInARoomCreatedAfterTheRoomsWereReadAreLeftOut() {
+        animals.add(new Object[]{40L, 3L, "<=", 10L});
+        animals.add(new Object[]{41L, null, "<=", 10L});
+        PlacementRequest request = new PlacementRequest();
+        request.setMaxAnimalsPerRoom(1);
+
+        PlacementPlan unplaced = placementOptimizer.plan(request);
+
+        assertThat(unplaced.getAnimals()).isEqualTo(1);
+        assertThat(operationsByAnimal(unplaced)).containsOnlyKeys(41L);
+        assertThat(operationsByAnimal(unplaced).get(41L).getRoomId()).isEqualTo(1L);
+
+        request.setScope(PlacementScope.REBALANCE);
+        PlacementPlan rebalance = placementOptimizer.plan(request);
+
+        assertThat(rebalance.getAnimals()).isEqualTo(1);
+        assertThat(operationsByAnimal(rebalance)).containsOnlyKeys(41L);
+    }
+}
@@ -0,0 +1,175 @@
+package com.java.zoo.service;
+
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.RebalanceMove;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RebalanceMoveRepository;
+import com.java.zoo.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the moves and swaps of {@link Rebalancer}.
+ */
+public class RebalancerTest {
+
+    private final List<Object[]> placements = new ArrayList<>();
+
+    private final List<Object[]> currentRooms = new ArrayList<>();
+
+    private RoomRepository roomRepository;
+
+    private AnimalRepository animalRepository;
+
+    private RebalanceMoveRepository rebalanceMoveRepository;
+
+    private ZooService zooService;
+
+    private Rebalancer rebalancer;
+
+    @BeforeEach
+    public void init() {
+        roomRepository = mock(RoomRepository.class);
+        animalRepository = mock(AnimalRepository.class);
+        rebalanceMoveRepository = mock(RebalanceMoveRepository.class);
+        zooService = mock(ZooService.class);
+        List<Object[]> rooms = new ArrayList<>();
+        rooms.add(new Object[]{1L, "small", 5L});
+        rooms.add(new Object[]{2L, "large", 50L});
+        when(roomRepository.findSyncState()).thenReturn(rooms);
+        when(animalRepository.findPlacements()).thenReturn(placements);
+        when(animalRepository.findRoomIdsByIdIn(any())).thenReturn(currentRooms);
+        when(zooService.moveAnimal(anyLong(), anyLong())).thenReturn(Optional.of(new Animal()));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        rebalancer.shutdown();
+    }
+
+    private Rebalancer rebalancer(int maxAnimalsPerRoom) {
+        return rebalancer(1000L, 2, maxAnimalsPerRoom);
+    }
+
+    private Rebalancer rebalancer(long cpuBudgetMillis, int maxConcurrency, int maxAnimalsPerRoom) {
+        rebalancer = new Rebalancer(animalRepository, roomRepository, rebalanceMoveRepository, zooService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(),
+                false, 1000L, 10, cpuBudgetMillis, maxConcurrency, maxAnimalsPerRoom);
+        return rebalancer;
+    }
+
+    private void place(Long animalId, Long roomId, String type, Long preference) {
+        placements.add(new Object[]{animalId, roomId, type, preference});
+        currentRooms.add(new Object[]{animalId, roomId});
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RebalanceMove> savedMoves() {
+        ArgumentCaptor<List<RebalanceMove>> moves = ArgumentCaptor.forClass(List.class);
+        verify(rebalanceMoveRepository).saveAll(moves.capture());
+        return moves.getValue();
+    }
+
+    @Test
+    public void unhappyAnimalsAreMovedToHappyRooms() {
+        place(10L, 2L, "<=", 10L);
+        place(11L, 1L, ">=", 20L);
+        place(12L, 1L, "<=", 10L);
+
+        assertThat(rebalancer(0).runOnce()).isEqualTo(2);
+
+        verify(zooService).moveAnimal(10L, 1L);
+        verify(zooService).moveAnimal(11L, 2L);
+        verify(zooService, never()).moveAnimal(12L, 2L);
+        assertThat(savedMoves()).extracting(RebalanceMove::getAnimalId).containsExactly(10L, 11L);
+        assertThat(rebalancer.getStatus().getMovesApplied()).isEqualTo(2L);
+    }
+
+    @Test
+    public void fullRoomsAreSwapped() {
+        place(10L, 2L, "<=", 10L);
+        place(11L, 1L, ">=", 20L);
+
+        assertThat(rebalancer(1).runOnce()).isEqualTo(1);
+
+        verify(zooService).moveAnimal(10L, 1L);
+        verify(zooService).moveAnimal(11L, 2L);
+        RebalanceMove swap = savedMoves().get(0);
+        assertThat(swap.getSwappedAnimalId()).isEqualTo(11L);
+        assertThat(swap.getHappyGain()).isEqualTo(2);
+    }
+
+    @Test
+    public void halfAppliedSwapIsUndone() {
+        place(10L, 2L, "<=", 10L);
+        place(11L, 1L, ">=", 20L);
+        // 11 moved after its room was checked
+        when(zooService.moveAnimal(11L, 2L)).thenReturn(Optional.empty());
+
+        assertThat(rebalancer(1).runOnce()).isZero();
+
+        verify(zooService).moveAnimal(10L, 1L);
+        verify(zooService).moveAnimal(10L, 2L);
+        assertThat(savedMoves()).isEmpty();
+        assertThat(rebalancer.getStatus().getMovesSkipped()).isEqualTo(1L);
+    }
+
+    @Test
+    public void animalsMovedSinceTheReadAreSkipped() {
+        place(10L, 2L, "<=", 10L);
+        currentRooms.clear();
+        currentRooms.add(new Object[]{10L, 1L});
+
+        assertThat(rebalancer(0).runOnce()).isZero();
+
+        verify(zooService, never()).moveAnimal(anyLong(), anyLong());
+        assertThat(savedMoves()).isEmpty();
+        assertThat(rebalancer.getStatus().getMovesSkipped()).isEqualTo(1L);
+    }
+
+    @Test
+    public void animalsBehindThoseWithoutHappyRoomAreReachedWithinTheBudget() {
+        // no room is small enough for any of these
+        for (long id = 10L; id < 20L; id++) {
+            place(id, 2L, "<=", 1L);
+        }
+        place(20L, 2L, "<=", 10L);
+        rebalancer(0L, 1, 0);
+
+        for (int run = 0; run < 11; run++) {
+            rebalancer.runOnce();
+        }
+
+        verify(zooService, atLeastOnce()).moveAnimal(20L, 1L);
+    }
+
+    @Test
+    public void animalsInARoomCreatedAfterTheRoomsWereReadAreLeftAlone() {
+        place(10L, 3L, "<=", 10L);
+        place(11L, 2L, "<=", 10L);
+
+        rebalancer(0).runOnce();
+
+        verify(zooService).moveAnimal(11L, 1L);
+        verify(zooService, never()).moveAnimal(eq(10L), anyLong());
+    }
+}
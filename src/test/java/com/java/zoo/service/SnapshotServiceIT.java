@@ -0,0 +1,154 @@
+package com.java.zoo.service;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.dto.SnapshotSummary;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Favorite;
+import com.java.zoo.entity.Room;
+import com.java.zoo.entity.User;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the snapshot export and restore of {@link SnapshotService}.
+ * <p>
+ * The restore wipes the tables and gives every row a new id, so this runs on a database of its own and the context
+ * is closed afterwards.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1")
+@DirtiesContext
+public class SnapshotServiceIT {
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void exportWritesEveryRecordWithVersionedHeader() throws IOException {
+        SnapshotSummary summary = snapshotService.export();
+
+        Path file = Paths.get(summary.getFile());
+        assertThat(file).exists();
+        assertThat(summary.getBytes()).isEqualTo(Files.size(file));
+        assertThat(summary.getUsers()).isEqualTo(userRepository.count());
+        assertThat(summary.getRooms()).isEqualTo(roomRepository.count());
+        assertThat(summary.getAnimals()).isEqualTo(animalRepository.count());
+        assertThat(summary.getFavorites()).isEqualTo(favoriteRepository.count());
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            assertThat(in.readInt()).isEqualTo(SnapshotService.MAGIC);
+            assertThat(in.readShort()).isEqualTo(SnapshotService.VERSION);
+        }
+    }
+
+    @Test
+    public void restoreRemapsIdsAndKeepsPlacementsAndFavorites() throws IOException {
+        Map<String, Long> oldRoomIds = placeAndFavorite();
+        Set<String> placements = placements();
+        Set<String> favorites = favorites();
+        Map<String, String> passwords = passwords();
+        SnapshotSummary exported = snapshotService.export();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            favoriteRepository.deleteAllInBatch();
+            animalRepository.deleteAllInBatch();
+            roomRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+        });
+        SnapshotSummary restored = snapshotService.restore();
+
+        assertThat(restored.getUsers()).isEqualTo(exported.getUsers()).isEqualTo(userRepository.count());
+        assertThat(restored.getRooms()).isEqualTo(exported.getRooms()).isEqualTo(roomRepository.count());
+        assertThat(restored.getAnimals()).isEqualTo(exported.getAnimals()).isEqualTo(animalRepository.count());
+        assertThat(restored.getFavorites()).isEqualTo(exported.getFavorites()).isEqualTo(favoriteRepository.count());
+        assertThat(roomRepository.findAll()).allSatisfy(room -> assertThat(room.getId()).isNotEqualTo(oldRoomIds.get(room.getTitle())));
+        assertThat(placements()).isEqualTo(placements);
+        assertThat(favorites()).isEqualTo(favorites);
+        assertThat(passwords()).isEqualTo(passwords);
+    }
+
+    /**
+     * Place the first two animals in the first room and make the second room a favorite of both.
+     *
+     * @return the ids of the rooms by title.
+     */
+    private Map<String, Long> placeAndFavorite() {
+        return transactionTemplate.execute(status -> {
+            List<Room> rooms = roomRepository.findAll();
+            List<Animal> animals = animalRepository.findAll();
+            assertThat(rooms).hasSizeGreaterThanOrEqualTo(2);
+            assertThat(animals).hasSizeGreaterThanOrEqualTo(2);
+            for (Animal animal : animals.subList(0, 2)) {
+                animal.setRoom(rooms.get(0));
+                Favorite favorite = new Favorite();
+                favorite.setAnimal(animal);
+                favorite.setRoomId(rooms.get(1).getId());
+                favoriteRepository.save(favorite);
+            }
+            return rooms.stream().collect(Collectors.toMap(Room::getTitle, Room::getId));
+        });
+    }
+
+    /**
+     * @return animal title and room title of every placed animal.
+     */
+    private Set<String> placements() {
+        return transactionTemplate.execute(status -> animalRepository.findAll().stream()
+                .filter(animal -> animal.getRoom() != null)
+                .map(animal -> animal.getTitle() + "->" + animal.getRoom().getTitle())
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * @return animal title and room title of every favorite.
+     */
+    private Set<String> favorites() {
+        return transactionTemplate.execute(status -> {
+            Map<Long, String> roomTitles = roomRepository.findAll().stream().collect(Collectors.toMap(Room::getId, Room::getTitle));
+            Set<String> favorites = new HashSet<>();
+            for (Favorite favorite : favoriteRepository.findAll()) {
+                favorites.add(favorite.getAnimal().getTitle() + "->" + roomTitles.get(favorite.getRoomId()));
+            }
+            return favorites;
+        });
+    }
+
+    private Map<String, String> passwords() {
+        return userRepository.findAll().stream().collect(Collectors.toMap(User::getLogin, User::getPassword));
+    }
+}
@@ -0,0 +1,111 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.UserDTO;
+import com.java.zoo.entity.User;
+import com.java.zoo.repository.KeysetRepository;
+import com.java.zoo.repository.UserRepository;
+import com.java.zoo.security.IssuedTokenRegistry;
+import com.java.zoo.security.VerifiedCredentialCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the bulk registration of {@link UserService}.
+ */
+public class UserServiceTest {
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(4);
+
+    // threads which hashed a password
+    private final Set<Thread> hashThreads = ConcurrentHashMap.newKeySet();
+
+    private UserRepository userRepository;
+
+    private UserService userService;
+
+    @BeforeEach
+    public void init() {
+        userRepository = mock(UserRepository.class);
+        PasswordEncoder passwordEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashThreads.add(Thread.currentThread());
+                return bCryptPasswordEncoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return bCryptPasswordEncoder.matches(rawPassword, encodedPassword);
+            }
+        };
+        userService = new UserService(userRepository, passwordEncoder, mock(JwtUserDetailsService.class),
+                mock(VerifiedCredentialCache.class), mock(IssuedTokenRegistry.class), mock(KeysetRepository.class), 2);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        userService.shutdown();
+    }
+
+    private static UserDTO user(String login, String password) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setLogin(login);
+        userDTO.setPassword(password);
+        return userDTO;
+    }
+
+    @Test
+    public void clearTextPasswordsAreHashed() {
+        List<UserDTO> userDTOs = IntStream.range(0, 8).mapToObj(i -> user("User" + i, "password" + i)).collect(Collectors.toList());
+
+        List<User> users = userService.registerUsers(userDTOs);
+
+        assertThat(users).hasSize(8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(users.get(i).getLogin()).isEqualTo("user" + i);
+            assertThat(UserService.isHash(users.get(i).getPassword())).isTrue();
+            assertThat(bCryptPasswordEncoder.matches("password" + i, users.get(i).getPassword())).isTrue();
+        }
+        verify(userRepository).saveAll(users);
+    }
+
+    @Test
+    public void hashedPasswordsAreStoredAsIs() {
+        String hash = bCryptPasswordEncoder.encode("secret");
+
+        List<User> users = userService.registerUsers(Arrays.asList(user("hashed", hash), user("clear", "secret")));
+
+        assertThat(users.get(0).getPassword()).isEqualTo(hash);
+        assertThat(users.get(1).getPassword()).isNotEqualTo("secret").isNotEqualTo(hash);
+        assertThat(hashThreads).hasSize(1);
+    }
+
+    @Test
+    public void passwordsAreHashedOnTheHashPool() {
+        ForkJoinPool hashPool = (ForkJoinPool) ReflectionTestUtils.getField(userService, "hashPool");
+
+        userService.registerUsers(IntStream.range(0, 16).mapToObj(i -> user("user" + i, "password" + i)).collect(Collectors.toList()));
+
+        assertThat(hashThreads).isNotEmpty().allSatisfy(thread -> {
+            assertThat(thread).isInstanceOf(ForkJoinWorkerThread.class);
+            assertThat(((ForkJoinWorkerThread) thread).getPool()).isSameAs(hashPool);
+        });
+    }
+}
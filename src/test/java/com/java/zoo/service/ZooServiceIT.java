@@ -0,0 +1,118 @@
+package com.java.zoo.service;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts of the id based equality of the entities on a large room, based on the Hibernate statistics.
+ * <p>
+ * The placement operations are covered by {@link ZooServicePlacementIT}. The room and animals created here are
+ * deleted again after each test.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+public class ZooServiceIT {
+
+    private static final int LARGE_ROOM_SIZE = 2000;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Room largeRoom;
+
+    private final List<Long> animalIds = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        largeRoom = createRoom("benchmark-large");
+        createAnimals(largeRoom, "benchmark-a-");
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            animalRepository.deleteByIdIn(animalIds);
+            roomRepository.deleteByIdIn(Collections.singletonList(largeRoom.getId()));
+        });
+        animalIds.clear();
+    }
+
+    private Room createRoom(String title) {
+        Room room = new Room();
+        room.setTitle(title);
+        room.setSize(10L);
+        room.setCreated(Instant.now());
+        return roomRepository.save(room);
+    }
+
+    private void createAnimals(Room room, String prefix) {
+        List<Animal> animals = new ArrayList<>(LARGE_ROOM_SIZE);
+        for (int i = 0; i < LARGE_ROOM_SIZE; i++) {
+            animals.add(newAnimal(prefix + i, room));
+        }
+        animalRepository.saveAll(animals).forEach(animal -> animalIds.add(animal.getId()));
+    }
+
+    private static Animal newAnimal(String title, Room room) {
+        Animal animal = new Animal();
+        animal.setTitle(title);
+        animal.setType("<=");
+        animal.setPreference(5L);
+        animal.setLocated(Instant.now());
+        animal.setRoom(room);
+        return animal;
+    }
+
+    @Test
+    public void hashingRoomAnimalsDoesNotLoadFavorites() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Room room = roomRepository.getOne(largeRoom.getId());
+            Set<Animal> animals = room.getAnimals();
+            // initializes the collection once
+            assertThat(animals).hasSize(LARGE_ROOM_SIZE);
+
+            statistics.clear();
+            List<Animal> copies = animals.stream().limit(100).collect(Collectors.toList());
+            for (Animal animal : copies) {
+                assertThat(animals.contains(animal)).isTrue();
+                animals.remove(animal);
+                animals.add(animal);
+            }
+            assertThat(statistics.getCollectionLoadCount()).isZero();
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            status.setRollbackOnly();
+        });
+    }
+}
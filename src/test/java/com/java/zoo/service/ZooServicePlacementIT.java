@@ -0,0 +1,162 @@
+package com.java.zoo.service;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts of the conditional updates placing, moving and removing animals in {@link ZooService} on large
+ * rooms, based on the Hibernate statistics.
+ * <p>
+ * The rooms and animals created here are deleted again after each test.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+public class ZooServicePlacementIT {
+
+    private static final Logger log = LoggerFactory.getLogger(ZooServicePlacementIT.class);
+
+    private static final int LARGE_ROOM_SIZE = 2000;
+
+    @Autowired
+    private ZooService zooService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Room largeRoom;
+
+    private Room otherLargeRoom;
+
+    private Room emptyRoom;
+
+    private Animal unplacedAnimal;
+
+    private final List<Long> animalIds = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        largeRoom = createRoom("placement-large");
+        otherLargeRoom = createRoom("placement-other-large");
+        emptyRoom = createRoom("placement-empty");
+        createAnimals(largeRoom, "placement-a-");
+        createAnimals(otherLargeRoom, "placement-b-");
+        unplacedAnimal = animalRepository.save(newAnimal("placement-unplaced", null));
+        animalIds.add(unplacedAnimal.getId());
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            animalRepository.deleteByIdIn(animalIds);
+            roomRepository.deleteByIdIn(Arrays.asList(largeRoom.getId(), otherLargeRoom.getId(), emptyRoom.getId()));
+        });
+        animalIds.clear();
+    }
+
+    private Room createRoom(String title) {
+        Room room = new Room();
+        room.setTitle(title);
+        room.setSize(10L);
+        room.setCreated(Instant.now());
+        return roomRepository.save(room);
+    }
+
+    private void createAnimals(Room room, String prefix) {
+        List<Animal> animals = new ArrayList<>(LARGE_ROOM_SIZE);
+        for (int i = 0; i < LARGE_ROOM_SIZE; i++) {
+            animals.add(newAnimal(prefix + i, room));
+        }
+        animalRepository.saveAll(animals).forEach(animal -> animalIds.add(animal.getId()));
+    }
+
+    private static Animal newAnimal(String title, Room room) {
+        Animal animal = new Animal();
+        animal.setTitle(title);
+        animal.setType("<=");
+        animal.setPreference(5L);
+        animal.setLocated(Instant.now());
+        animal.setRoom(room);
+        return animal;
+    }
+
+    private long roomAnimalsLoadCount() {
+        return statistics.getCollectionStatistics(Room.class.getName() + ".animals").getLoadCount();
+    }
+
+    @Test
+    public void moveBetweenLargeRoomsDoesNotLoadTheirAnimals() {
+        Long animalId = animalIds.get(0);
+
+        statistics.clear();
+        long started = System.nanoTime();
+        Animal moved = zooService.moveAnimal(animalId, otherLargeRoom.getId()).orElseThrow(IllegalStateException::new);
+        long largeRoomNanos = System.nanoTime() - started;
+
+        assertThat(moved.getRoom().getId()).isEqualTo(otherLargeRoom.getId());
+        // the conditional update and the reload of the animal with its room and favorites
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(roomAnimalsLoadCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(2);
+
+        statistics.clear();
+        started = System.nanoTime();
+        zooService.moveAnimal(animalId, emptyRoom.getId()).orElseThrow(IllegalStateException::new);
+        long emptyRoomNanos = System.nanoTime() - started;
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        log.info("Move of one animal: {} µs out of a room of {} animals, {} µs into an empty room",
+                largeRoomNanos / 1000, LARGE_ROOM_SIZE, emptyRoomNanos / 1000);
+    }
+
+    @Test
+    public void placeAndRemoveInLargeRoomDoNotLoadItsAnimals() {
+        statistics.clear();
+        zooService.placeAnimal(unplacedAnimal.getId(), largeRoom.getId()).orElseThrow(IllegalStateException::new);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(roomAnimalsLoadCount()).isZero();
+
+        statistics.clear();
+        assertThat(zooService.deleteAnimalFromRoom(unplacedAnimal.getId())).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    public void refusedPlacementCostsOneStatement() {
+        statistics.clear();
+        assertThat(zooService.placeAnimal(animalIds.get(0), emptyRoom.getId())).isNotPresent();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
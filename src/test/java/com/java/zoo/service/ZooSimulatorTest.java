@@ -0,0 +1,129 @@
+package com.java.zoo.service;
+
+import com.java.zoo.dto.BatchItemResult;
+import com.java.zoo.dto.BatchOperation;
+import com.java.zoo.dto.BatchOperationType;
+import com.java.zoo.dto.RoomHappinessDelta;
+import com.java.zoo.dto.SimulationRequest;
+import com.java.zoo.dto.SimulationResult;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the happiness deltas of {@link ZooSimulator}.
+ */
+public class ZooSimulatorTest {
+
+    private final List<Object[]> animals = new ArrayList<>();
+
+    private RoomRepository roomRepository;
+
+    private ZooSimulator zooSimulator;
+
+    @BeforeEach
+    public void init() {
+        roomRepository = mock(RoomRepository.class);
+        AnimalRepository animalRepository = mock(AnimalRepository.class);
+        FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+        List<Object[]> rooms = new ArrayList<>();
+        rooms.add(new Object[]{1L, "small", 5L});
+        rooms.add(new Object[]{2L, "large", 50L});
+        when(roomRepository.findSyncState()).thenReturn(rooms);
+        animals.add(new Object[]{10L, 2L, "<=", 10L});
+        animals.add(new Object[]{11L, 2L, ">=", 20L});
+        animals.add(new Object[]{12L, null, "<=", 10L});
+        when(animalRepository.findPlacementState()).thenReturn(animals);
+        List<Object[]> favorites = new ArrayList<>();
+        favorites.add(new Object[]{12L, 1L});
+        when(favoriteRepository.findAllRoomIds()).thenReturn(favorites);
+        zooSimulator = new ZooSimulator(animalRepository, roomRepository, favoriteRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 60000L, 100);
+    }
+
+    private static SimulationRequest request(BatchOperation... operations) {
+        return new SimulationRequest(Arrays.asList(operations));
+    }
+
+    @Test
+    public void roomDeltasFollowTheOperations() {
+        SimulationResult result = zooSimulator.simulate(request(
+                new BatchOperation(BatchOperationType.MOVE, 10L, 1L),
+                new BatchOperation(BatchOperationType.PLACE, 12L, 1L),
+                new BatchOperation(BatchOperationType.REMOVE, 11L, null),
+                new BatchOperation(BatchOperationType.MOVE, 99L, 1L),
+                new BatchOperation(BatchOperationType.ASSIGN_FAVORITE, 10L, 1L)));
+
+        assertThat(result.getHappyBefore()).isEqualTo(1L);
+        assertThat(result.getHappyAfter()).isEqualTo(2L);
+        assertThat(result.getFavoriteMatchesBefore()).isZero();
+        assertThat(result.getFavoriteMatchesAfter()).isEqualTo(1L);
+        assertThat(result.getRooms()).extracting(RoomHappinessDelta::getRoomtitle).containsExactly("large", "small");
+        RoomHappinessDelta large = result.getRooms().get(0);
+        assertThat(large.getAnimalsBefore()).isEqualTo(2);
+        assertThat(large.getAnimalsAfter()).isZero();
+        assertThat(large.getHappyDelta()).isEqualTo(-1);
+        RoomHappinessDelta small = result.getRooms().get(1);
+        assertThat(small.getAnimalsAfter()).isEqualTo(2);
+        assertThat(small.getHappyAfter()).isEqualTo(2);
+        assertThat(small.getFavoriteMatchesAfter()).isEqualTo(1);
+        assertThat(result.getResults()).extracting(BatchItemResult::getStatus).containsExactly(BatchItemResult.Status.APPLIED,
+                BatchItemResult.Status.APPLIED, BatchItemResult.Status.APPLIED, BatchItemResult.Status.REJECTED, BatchItemResult.Status.REJECTED);
+        assertThat(result.getResults().get(3).getErrorKey()).isEqualTo("animalidwrong");
+        assertThat(result.getResults().get(4).getErrorKey()).isEqualTo("operationnotsupported");
+    }
+
+    @Test
+    public void operationsSeeTheEffectOfThoseBefore() {
+        SimulationResult result = zooSimulator.simulate(request(
+                new BatchOperation(BatchOperationType.REMOVE, 10L, null),
+                new BatchOperation(BatchOperationType.REMOVE, 10L, null),
+                new BatchOperation(BatchOperationType.PLACE, 10L, 2L)));
+
+        assertThat(result.getResults().get(1).getErrorKey()).isEqualTo("notassociatedwithroom");
+        assertThat(result.getResults().get(2).getStatus()).isEqualTo(BatchItemResult.Status.APPLIED);
+        assertThat(result.getRooms()).hasSize(1);
+        assertThat(result.getRooms().get(0).getHappyDelta()).isZero();
+        assertThat(result.getRooms().get(0).getAnimalsAfter()).isEqualTo(2);
+    }
+
+    @Test
+    public void simulationsShareTheSnapshotWithoutSeeingEachOther() {
+        List<CompletableFuture<SimulationResult>> simulations = IntStream.range(0, 16)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> zooSimulator.simulate(request(
+                        new BatchOperation(BatchOperationType.MOVE, 10L, 1L)))))
+                .collect(Collectors.toList());
+
+        simulations.forEach(simulation -> assertThat(simulation.join().getHappyAfter()).isEqualTo(2L));
+        verify(roomRepository, times(1)).findSyncState();
+    }
+
+    @Test
+    public void animalInARoomCreatedAfterTheRoomsWereReadIsInNoRoom() {
+        animals.add(new Object[]{13L, 3L, "<=", 10L});
+
+        SimulationResult result = zooSimulator.simulate(request(
+                new BatchOperation(BatchOperationType.PLACE, 13L, 1L)));
+
+        assertThat(result.getResults().get(0).getStatus()).isEqualTo(BatchItemResult.Status.APPLIED);
+        assertThat(result.getHappyBefore()).isEqualTo(1L);
+        assertThat(result.getHappyAfter()).isEqualTo(2L);
+    }
+}
@@ -8,8 +8,12 @@ import com.java.zoo.entity.Animal;
 import com.java.zoo.entity.Room;
 import com.java.zoo.repository.AnimalRepository;
 import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.util.HeaderUtil;
+import com.java.zoo.web.util.QueryBudget;
+import com.java.zoo.web.util.QueryBudgetExtension;
 import com.java.zoo.web.util.TestUtil;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -27,6 +31,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -40,6 +45,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class AnimalControllerIT {
 
+    @RegisterExtension
+    static QueryBudgetExtension queryBudget = new QueryBudgetExtension();
+
     private static final String DEFAULT_TITLE = "AAAAAAAAAA";
     private static final String UPDATED_TITLE = "BBBBBBBBBB";
 
@@ -139,7 +147,7 @@ public class AnimalControllerIT {
         animalRepository.saveAndFlush(animal);
 
         // Get all the animalList
-        restAnimalMockMvc.perform(get("/api/animals?sort=id,desc"))
+        queryBudget.perform(restAnimalMockMvc, get("/api/animals?sort=id,desc"), QueryBudget.statements(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.[*].id").value(hasItem(animal.getId().intValue())))
@@ -149,6 +157,67 @@ public class AnimalControllerIT {
                 .andExpect(jsonPath("$.[*].preference").value(hasItem(DEFAULT_PREFERENCE.intValue())));
     }
 
+    @Test
+    @Transactional
+    public void getAnimalsByPages() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Animal paged = createEntity();
+            paged.setTitle("PAGED" + i);
+            paged.setType("PAGED");
+            paged.setLocated(DEFAULT_LOCATED.plusSeconds(i));
+            animalRepository.saveAndFlush(paged);
+        }
+
+        // Newest first, two per page, with the total
+        MvcResult first = queryBudget.perform(restAnimalMockMvc, get("/api/animals?type=PAGED&sort=located,desc&limit=2&total=true"),
+                QueryBudget.statements(2).queryRows(4))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HeaderUtil.TOTAL_COUNT_HEADER, "3"))
+                .andExpect(header().exists(HeaderUtil.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.[*].title").value(contains("PAGED2", "PAGED1")))
+                .andReturn();
+        String cursor = first.getResponse().getHeader(HeaderUtil.NEXT_CURSOR_HEADER);
+
+        queryBudget.perform(restAnimalMockMvc, get("/api/animals?type=PAGED&sort=located,desc&limit=2").param("cursor", cursor),
+                QueryBudget.statements(1).queryRows(1))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HeaderUtil.NEXT_CURSOR_HEADER))
+                .andExpect(header().doesNotExist(HeaderUtil.TOTAL_COUNT_HEADER))
+                .andExpect(jsonPath("$.[*].title").value(contains("PAGED0")));
+
+        // The cursor belongs to the located order
+        restAnimalMockMvc.perform(get("/api/animals?type=PAGED&limit=2").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getAnimalsByPagesInDefaultOrder() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Animal paged = createEntity();
+            paged.setTitle("IDPAGED" + i);
+            paged.setType("IDPAGED");
+            animalRepository.saveAndFlush(paged);
+        }
+
+        // By id ascending, two per page
+        MvcResult first = queryBudget.perform(restAnimalMockMvc, get("/api/animals?type=IDPAGED&limit=2"), QueryBudget.statements(1))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HeaderUtil.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.[*].title").value(contains("IDPAGED0", "IDPAGED1")))
+                .andReturn();
+        String cursor = first.getResponse().getHeader(HeaderUtil.NEXT_CURSOR_HEADER);
+
+        queryBudget.perform(restAnimalMockMvc, get("/api/animals?type=IDPAGED&limit=2").param("cursor", cursor), QueryBudget.statements(1))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HeaderUtil.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.[*].title").value(contains("IDPAGED2")));
+
+        // The cursor belongs to the id order
+        restAnimalMockMvc.perform(get("/api/animals?type=IDPAGED&sort=id,desc&limit=2").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getAnimal() throws Exception {
@@ -157,7 +226,7 @@ public class AnimalControllerIT {
         animalRepository.saveAndFlush(animal);
 
         // Get the animal
-        restAnimalMockMvc.perform(get("/api/animals/{id}", animal.getId()))
+        queryBudget.perform(restAnimalMockMvc, get("/api/animals/{id}", animal.getId()), QueryBudget.statements(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id").value(animal.getId().intValue()))
@@ -171,7 +240,7 @@ public class AnimalControllerIT {
     @Transactional
     public void getNonExistingAnimal() throws Exception {
         // Get the animal
-        restAnimalMockMvc.perform(get("/api/animals/{id}", Long.MAX_VALUE))
+        queryBudget.perform(restAnimalMockMvc, get("/api/animals/{id}", Long.MAX_VALUE), QueryBudget.statements(1))
                 .andExpect(status().isNotFound());
     }
 
@@ -248,8 +317,8 @@ public class AnimalControllerIT {
         int databaseSizeOfAnimalWihtoutRoom = animalRepository.findAllByRoomIsNullOrderByLocatedDesc().size();
 
         // Get Animals Without Room
-        MvcResult result = restAnimalMockMvc.perform(get("/api/animals/withoutroom")
-                .accept(MediaType.APPLICATION_JSON))
+        MvcResult result = queryBudget.perform(restAnimalMockMvc, get("/api/animals/withoutroom")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.statements(1))
                 .andExpect(status().isOk())
                 .andReturn();
 
@@ -289,8 +358,8 @@ public class AnimalControllerIT {
                 .content(TestUtil.convertObjectToJsonBytes(inputRequest1)))
                 .andExpect(status().isOk());
         // Get Animals Without Room
-        MvcResult result = restAnimalMockMvc.perform(get("/api/animals/room/2")
-                .accept(MediaType.APPLICATION_JSON))
+        MvcResult result = queryBudget.perform(restAnimalMockMvc, get("/api/animals/room/2")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.statements(1).queryRows(2))
                 .andExpect(status().isOk())
                 .andReturn();
 
@@ -308,9 +377,9 @@ public class AnimalControllerIT {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(TestUtil.convertObjectToJsonBytes(inputRequest)))
                 .andExpect(status().isOk());
-        // Get Happy Animals in each room
-        restAnimalMockMvc.perform(get("/api/animals/happyanimals")
-                .accept(MediaType.APPLICATION_JSON))
+        // Get Happy Animals in each room, from the counters once they are loaded
+        queryBudget.perform(restAnimalMockMvc, get("/api/animals/happyanimals")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.statements(2))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.[0].happyAnimals").value(1))
                 .andExpect(jsonPath("$.[0].roomtitle").value("blue"))
@@ -0,0 +1,188 @@
+package com.java.zoo.web.controller;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.dto.BatchMode;
+import com.java.zoo.dto.BatchOperation;
+import com.java.zoo.dto.BatchOperationType;
+import com.java.zoo.dto.BatchRequest;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.web.util.TestUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link BatchController} REST controller.
+ * <p>
+ * The rooms and animals created here are deleted again after each test.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class BatchControllerIT {
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc restBatchMockMvc;
+
+    private Room first;
+
+    private Room second;
+
+    private Animal lion;
+
+    private Animal zebra;
+
+    private Animal tiger;
+
+    @BeforeEach
+    public void init() {
+        first = createRoom("batch-first");
+        second = createRoom("batch-second");
+        lion = createAnimal("batch-lion");
+        zebra = createAnimal("batch-zebra");
+        tiger = createAnimal("batch-tiger");
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            favoriteRepository.deleteByAnimalIdIn(Arrays.asList(lion.getId(), zebra.getId(), tiger.getId()));
+            animalRepository.deleteByIdIn(Arrays.asList(lion.getId(), zebra.getId(), tiger.getId()));
+            roomRepository.deleteByIdIn(Arrays.asList(first.getId(), second.getId()));
+        });
+    }
+
+    private Room createRoom(String title) {
+        Room room = new Room();
+        room.setTitle(title);
+        room.setSize(10L);
+        room.setCreated(Instant.now());
+        return roomRepository.save(room);
+    }
+
+    private Animal createAnimal(String title) {
+        Animal animal = new Animal();
+        animal.setTitle(title);
+        animal.setType(">=");
+        animal.setPreference(5L);
+        animal.setLocated(Instant.now());
+        return animalRepository.save(animal);
+    }
+
+    private Long roomOf(Animal animal) {
+        Room room = animalRepository.findWithRoomById(animal.getId()).orElseThrow(IllegalStateException::new).getRoom();
+        return room == null ? null : room.getId();
+    }
+
+    @Test
+    public void bestEffortAppliesTheValidOperations() throws Exception {
+        BatchRequest batchRequest = new BatchRequest(BatchMode.BEST_EFFORT, Arrays.asList(
+                new BatchOperation(BatchOperationType.PLACE, lion.getId(), first.getId()),
+                new BatchOperation(BatchOperationType.PLACE, lion.getId(), second.getId()),
+                new BatchOperation(BatchOperationType.MOVE, lion.getId(), second.getId()),
+                new BatchOperation(BatchOperationType.ASSIGN_FAVORITE, zebra.getId(), first.getId()),
+                new BatchOperation(BatchOperationType.ASSIGN_FAVORITE, zebra.getId(), first.getId()),
+                new BatchOperation(BatchOperationType.REMOVE, tiger.getId(), null),
+                new BatchOperation(BatchOperationType.PLACE, 0L, first.getId())));
+
+        restBatchMockMvc.perform(post("/api/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtil.convertObjectToJsonBytes(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(true))
+                .andExpect(jsonPath("$.applied").value(3))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[1].errorKey").value("animalPlacedAlready"))
+                .andExpect(jsonPath("$.results[2].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[3].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[4].errorKey").value("roomidassignedalready"))
+                .andExpect(jsonPath("$.results[5].errorKey").value("notassociatedwithroom"))
+                .andExpect(jsonPath("$.results[6].errorKey").value("animalidwrong"));
+
+        assertThat(roomOf(lion)).isEqualTo(second.getId());
+        assertThat(roomOf(tiger)).isNull();
+        assertThat(favoriteRepository.findByRoomIdAndAnimalId(first.getId(), zebra.getId())).isNotNull();
+    }
+
+    @Test
+    public void allOrNothingWritesNothingIfAnOperationFails() throws Exception {
+        BatchRequest batchRequest = new BatchRequest(BatchMode.ALL_OR_NOTHING, Arrays.asList(
+                new BatchOperation(BatchOperationType.PLACE, lion.getId(), first.getId()),
+                new BatchOperation(BatchOperationType.ASSIGN_FAVORITE, zebra.getId(), second.getId()),
+                new BatchOperation(BatchOperationType.PLACE, tiger.getId(), 0L)));
+
+        restBatchMockMvc.perform(post("/api/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtil.convertObjectToJsonBytes(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(false))
+                .andExpect(jsonPath("$.applied").value(0))
+                .andExpect(jsonPath("$.results[0].status").value("SKIPPED"))
+                .andExpect(jsonPath("$.results[1].status").value("SKIPPED"))
+                .andExpect(jsonPath("$.results[2].errorKey").value("roomidwrong"));
+
+        assertThat(roomOf(lion)).isNull();
+        assertThat(favoriteRepository.findByRoomIdAndAnimalId(second.getId(), zebra.getId())).isNull();
+    }
+
+    @Test
+    public void laterOperationsSeeEarlierOnes() throws Exception {
+        BatchRequest batchRequest = new BatchRequest(BatchMode.ALL_OR_NOTHING, Arrays.asList(
+                new BatchOperation(BatchOperationType.ASSIGN_FAVORITE, tiger.getId(), second.getId()),
+                new BatchOperation(BatchOperationType.PLACE, tiger.getId(), first.getId()),
+                new BatchOperation(BatchOperationType.UNASSIGN_FAVORITE, tiger.getId(), second.getId()),
+                new BatchOperation(BatchOperationType.REMOVE, tiger.getId(), null),
+                new BatchOperation(BatchOperationType.ASSIGN_FAVORITE, tiger.getId(), first.getId())));
+
+        restBatchMockMvc.perform(post("/api/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtil.convertObjectToJsonBytes(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(true))
+                .andExpect(jsonPath("$.applied").value(5));
+
+        assertThat(roomOf(tiger)).isNull();
+        assertThat(favoriteRepository.findByRoomIdAndAnimalId(second.getId(), tiger.getId())).isNull();
+        assertThat(favoriteRepository.findByRoomIdAndAnimalId(first.getId(), tiger.getId())).isNotNull();
+    }
+
+    @Test
+    public void emptyBatchIsRejected() throws Exception {
+        restBatchMockMvc.perform(post("/api/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtil.convertObjectToJsonBytes(new BatchRequest(BatchMode.BEST_EFFORT, Collections.emptyList()))))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,96 @@
+package com.java.zoo.web.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.java.zoo.ZooApplication;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.web.util.TestUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ExportController} REST controller, over the seed data.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class ExportControllerIT {
+
+    @Autowired
+    private MockMvc restExportMockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private MvcResult export(String url) throws Exception {
+        MvcResult asyncResult = restExportMockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return restExportMockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    @Test
+    public void exportAnimalsAsNdjson() throws Exception {
+        MvcResult result = export("/api/export/animals");
+
+        assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson");
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize((int) animalRepository.count());
+        JsonNode first = TestUtil.mapper.readTree(lines[0]);
+        assertThat(first.has("id")).isTrue();
+        assertThat(first.has("title")).isTrue();
+        assertThat(first.has("roomId")).isTrue();
+    }
+
+    @Test
+    public void exportRoomsAsGzippedCsv() throws Exception {
+        MvcResult result = export("/api/export/rooms?format=csv&gzip=true");
+
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        String csv = gunzip(result.getResponse().getContentAsByteArray());
+        String[] lines = csv.split("\n");
+        assertThat(lines[0]).isEqualTo("id;title;size;created");
+        assertThat(lines).hasSize((int) roomRepository.count() + 1);
+        assertThat(csv.toLowerCase()).contains(";green;");
+    }
+
+    @Test
+    public void unknownFormatIsRejected() throws Exception {
+        restExportMockMvc.perform(get("/api/export/favorites?format=xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
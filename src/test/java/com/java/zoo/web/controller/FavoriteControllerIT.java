@@ -5,9 +5,12 @@ import com.java.zoo.ZooApplication;
 import com.java.zoo.dto.InputRequest;
 import com.java.zoo.entity.Favorite;
 import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.web.util.QueryBudget;
+import com.java.zoo.web.util.QueryBudgetExtension;
 import com.java.zoo.web.util.TestUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -33,6 +36,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WithMockUser
 public class FavoriteControllerIT {
 
+    @RegisterExtension
+    static QueryBudgetExtension queryBudget = new QueryBudgetExtension();
+
     private static final Long DEFAULT_ROOM_ID = 1L;
     private static final Long UPDATED_ROOM_ID = 2L;
 
@@ -111,7 +117,7 @@ public class FavoriteControllerIT {
         favoriteRepository.saveAndFlush(favorite);
 
         // Get all the favoriteList
-        restFavoriteMockMvc.perform(get("/api/favorites?sort=id,desc"))
+        queryBudget.perform(restFavoriteMockMvc, get("/api/favorites?sort=id,desc"), QueryBudget.statements(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.[*].id").value(hasItem(favorite.getId().intValue())))
@@ -125,7 +131,7 @@ public class FavoriteControllerIT {
         favoriteRepository.saveAndFlush(favorite);
 
         // Get the favorite
-        restFavoriteMockMvc.perform(get("/api/favorites/{id}", favorite.getId()))
+        queryBudget.perform(restFavoriteMockMvc, get("/api/favorites/{id}", favorite.getId()), QueryBudget.statements(1).queryRows(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id").value(favorite.getId().intValue()))
@@ -136,7 +142,7 @@ public class FavoriteControllerIT {
     @Transactional
     public void getNonExistingFavorite() throws Exception {
         // Get the favorite
-        restFavoriteMockMvc.perform(get("/api/favorites/{id}", Long.MAX_VALUE))
+        queryBudget.perform(restFavoriteMockMvc, get("/api/favorites/{id}", Long.MAX_VALUE), QueryBudget.statements(1).queryRows(0))
                 .andExpect(status().isNotFound());
     }
 
@@ -217,8 +223,8 @@ public class FavoriteControllerIT {
                 .content(TestUtil.convertObjectToJsonBytes(inputRequest1)))
                 .andExpect(status().isCreated());
         // Get the favorite
-        MvcResult result = restFavoriteMockMvc.perform(get("/api/favorites/room/54")
-                .accept(MediaType.APPLICATION_JSON))
+        MvcResult result = queryBudget.perform(restFavoriteMockMvc, get("/api/favorites/room/54")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.statements(1).queryRows(2))
                 .andExpect(status().isOk())
                 .andReturn();
         JsonNode node = TestUtil.mapper.readTree(result.getResponse().getContentAsString());
@@ -12,9 +12,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -44,10 +47,15 @@ public class JwtAuthenticationControllerIT {
         request.setPassword("admin");
 
 
-        jwtAuthenticateMvcMock
+        MvcResult asyncResult = jwtAuthenticateMvcMock
                 .perform(post("/authenticate")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(TestUtil.convertObjectToJsonBytes(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        jwtAuthenticateMvcMock
+                .perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
                 .andReturn();
 
@@ -60,10 +68,15 @@ public class JwtAuthenticationControllerIT {
         request.setPassword("admin");
 
 
-        jwtAuthenticateMvcMock
+        MvcResult asyncResult = jwtAuthenticateMvcMock
                 .perform(post("/authenticate")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(TestUtil.convertObjectToJsonBytes(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        jwtAuthenticateMvcMock
+                .perform(asyncDispatch(asyncResult))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Authentication Denied"))
                 .andReturn();
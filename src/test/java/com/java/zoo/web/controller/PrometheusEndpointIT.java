@@ -0,0 +1,56 @@
+package com.java.zoo.web.controller;
+
+import com.java.zoo.ZooApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the Prometheus scrape endpoint and the metrics of the application published through it.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class PrometheusEndpointIT {
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Test
+    public void scrapeContainsTheApplicationMetrics() throws Exception {
+        restMockMvc.perform(delete("/api/animal/remove/" + Long.MAX_VALUE))
+                .andExpect(status().isBadRequest());
+        restMockMvc.perform(post("/api/animals/happyanimals/check"))
+                .andExpect(status().isOk());
+
+        String scrape = restMockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape).contains(
+                "zoo_operations_seconds_bucket{",
+                "operation=\"remove\"",
+                "zoo_happy_animals_load_seconds_bucket{",
+                "zoo_password_hash_seconds_count{operation=\"encode\"",
+                "zoo_jwt_verifications_total{outcome=\"invalid\"",
+                "hikaricp_connections_acquire_seconds_bucket{",
+                "http_server_requests_seconds_bucket{");
+    }
+
+    @Test
+    @WithAnonymousUser
+    public void scrapeRequiresAuthentication() throws Exception {
+        restMockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+}
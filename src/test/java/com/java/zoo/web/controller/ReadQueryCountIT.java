@@ -0,0 +1,158 @@
+package com.java.zoo.web.controller;
+
+import com.java.zoo.ZooApplication;
+import com.java.zoo.entity.Animal;
+import com.java.zoo.entity.Favorite;
+import com.java.zoo.entity.Room;
+import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.repository.FavoriteRepository;
+import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.web.util.QueryBudget;
+import com.java.zoo.web.util.QueryBudgetExtension;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement counts of the read endpoints, checked by {@link QueryBudgetExtension}: each one reads its projection in
+ * a single select, with one more for {@code total=true}, and never loads an entity or a lazy association.
+ * <p>
+ * The room, animal and favorites created here are deleted again after each test.
+ */
+@SpringBootTest(classes = ZooApplication.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class ReadQueryCountIT {
+
+    @RegisterExtension
+    static QueryBudgetExtension queryBudget = new QueryBudgetExtension();
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Room room;
+
+    private Animal animal;
+
+    private Favorite favorite;
+
+    @BeforeEach
+    public void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        room = new Room();
+        room.setTitle("query-count-room");
+        room.setSize(10L);
+        room.setCreated(Instant.now());
+        room = roomRepository.save(room);
+        animal = new Animal();
+        animal.setTitle("query-count-animal");
+        animal.setType("<=");
+        animal.setPreference(5L);
+        animal.setLocated(Instant.now());
+        animal.setRoom(room);
+        animal = animalRepository.save(animal);
+        favorite = favoriteRepository.save(newFavorite(room.getId()));
+        favoriteRepository.save(newFavorite(room.getId() + 1));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            favoriteRepository.deleteByAnimalIdIn(Collections.singletonList(animal.getId()));
+            animalRepository.deleteByIdIn(Collections.singletonList(animal.getId()));
+            roomRepository.deleteByIdIn(Collections.singletonList(room.getId()));
+        });
+    }
+
+    private Favorite newFavorite(Long roomId) {
+        Favorite newFavorite = new Favorite();
+        newFavorite.setRoomId(roomId);
+        newFavorite.setAnimal(animal);
+        return newFavorite;
+    }
+
+    private ResultActions perform(String url, long statements) throws Exception {
+        ResultActions result = queryBudget.perform(restMockMvc, get(url), QueryBudget.statements(statements))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).as(url).isEqualTo(statements);
+        assertThat(statistics.getEntityLoadCount()).as(url).isZero();
+        assertThat(statistics.getCollectionLoadCount()).as(url).isZero();
+        return result;
+    }
+
+    @Test
+    public void animalEndpointsReadOneSelect() throws Exception {
+        perform("/api/animals?roomId=" + room.getId(), 1)
+                .andExpect(jsonPath("$.[0].id").value(animal.getId().intValue()))
+                .andExpect(jsonPath("$.[0].room.title").value(room.getTitle()))
+                .andExpect(jsonPath("$.[0].favorites").doesNotExist());
+        perform("/api/animals?sort=located,desc&limit=5&total=true", 2);
+        perform("/api/animals/" + animal.getId(), 1)
+                .andExpect(jsonPath("$.room.id").value(room.getId().intValue()))
+                .andExpect(jsonPath("$.favorites.[*].roomId").value(hasItems(room.getId().intValue(), (int) (room.getId() + 1))));
+    }
+
+    @Test
+    public void roomEndpointsReadOneSelect() throws Exception {
+        perform("/api/rooms?limit=5", 1)
+                .andExpect(jsonPath("$.[0].animals").doesNotExist());
+        perform("/api/rooms?limit=5&total=true", 2);
+        perform("/api/rooms/" + room.getId(), 1)
+                .andExpect(jsonPath("$.title").value(room.getTitle()));
+    }
+
+    @Test
+    public void favoriteEndpointsReadOneSelect() throws Exception {
+        perform("/api/favorites?animalId=" + animal.getId(), 1)
+                .andExpect(jsonPath("$.[*].animalId").value(hasItems(animal.getId().intValue())));
+        perform("/api/favorites/" + favorite.getId(), 1)
+                .andExpect(jsonPath("$.roomId").value(room.getId().intValue()))
+                .andExpect(jsonPath("$.animalId").value(animal.getId().intValue()));
+    }
+
+    @Test
+    public void missingRowsAreNotFound() throws Exception {
+        for (String url : Arrays.asList("/api/animals/", "/api/rooms/", "/api/favorites/")) {
+            queryBudget.perform(restMockMvc, get(url + Long.MAX_VALUE), QueryBudget.statements(1))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.java.zoo.web.controller;
 import com.java.zoo.ZooApplication;
 import com.java.zoo.entity.Room;
 import com.java.zoo.repository.RoomRepository;
+import com.java.zoo.web.util.QueryBudget;
+import com.java.zoo.web.util.QueryBudgetExtension;
 import com.java.zoo.web.util.TestUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -32,6 +35,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WithMockUser
 public class RoomControllerIT {
 
+    @RegisterExtension
+    static QueryBudgetExtension queryBudget = new QueryBudgetExtension();
+
     private static final String DEFAULT_TITLE = "AAAAAAAAAA";
 
     private static final Long DEFAULT_SIZE = 0L;
@@ -115,7 +121,7 @@ public class RoomControllerIT {
         roomRepository.saveAndFlush(room);
 
         // Get all the roomList
-        restRoomMockMvc.perform(get("/api/rooms?sort=id,desc"))
+        queryBudget.perform(restRoomMockMvc, get("/api/rooms?sort=id,desc"), QueryBudget.statements(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.[*].id").value(hasItem(room.getId().intValue())))
@@ -132,7 +138,7 @@ public class RoomControllerIT {
         roomRepository.saveAndFlush(room);
 
         // Get the room
-        restRoomMockMvc.perform(get("/api/rooms/{id}", room.getId()))
+        queryBudget.perform(restRoomMockMvc, get("/api/rooms/{id}", room.getId()), QueryBudget.statements(1).queryRows(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id").value(room.getId().intValue()))
@@ -145,7 +151,7 @@ public class RoomControllerIT {
     @Transactional
     public void getNonExistingRoom() throws Exception {
         // Get the room
-        restRoomMockMvc.perform(get("/api/rooms/{id}", Long.MAX_VALUE))
+        queryBudget.perform(restRoomMockMvc, get("/api/rooms/{id}", Long.MAX_VALUE), QueryBudget.statements(1).queryRows(0))
                 .andExpect(status().isNotFound());
     }
 
@@ -4,11 +4,14 @@ import com.java.zoo.ZooApplication;
 import com.java.zoo.dto.InputRequest;
 import com.java.zoo.entity.Animal;
 import com.java.zoo.repository.AnimalRepository;
+import com.java.zoo.web.util.QueryBudget;
+import com.java.zoo.web.util.QueryBudgetExtension;
 import com.java.zoo.web.util.TestUtil;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -35,6 +38,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class ZooControllerIT {
 
+    @RegisterExtension
+    static QueryBudgetExtension queryBudget = new QueryBudgetExtension();
+
     @Autowired
     private AnimalRepository animalRepository;
 
@@ -47,9 +53,9 @@ public class ZooControllerIT {
     public void placeAnimal() throws Exception {
         InputRequest inputRequest = new InputRequest(52L, 1L);
         // Place Animal in the room and expect status 200
-        restZooMockMvc.perform(put("/api/animal/place")
+        queryBudget.perform(restZooMockMvc, put("/api/animal/place")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(TestUtil.convertObjectToJsonBytes(inputRequest)))
+                .content(TestUtil.convertObjectToJsonBytes(inputRequest)), QueryBudget.statements(2))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.room.id").value(inputRequest.getRoomId().intValue()))
@@ -101,9 +107,9 @@ public class ZooControllerIT {
     public void moveAnimal() throws Exception {
         InputRequest inputRequest = new InputRequest(52L, 2L);
         // Move Animal from existing room to the other and expect status 200
-        restZooMockMvc.perform(put("/api/animal/move")
+        queryBudget.perform(restZooMockMvc, put("/api/animal/move")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(TestUtil.convertObjectToJsonBytes(inputRequest)))
+                .content(TestUtil.convertObjectToJsonBytes(inputRequest)), QueryBudget.statements(2))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.room.id").value(inputRequest.getRoomId().intValue()))
@@ -161,9 +167,9 @@ public class ZooControllerIT {
     public void placeAnotherAnimal() throws Exception {
         InputRequest inputRequest = new InputRequest(53L, 2L);
         // Place Animal in the room and expect status 200
-        restZooMockMvc.perform(put("/api/animal/place")
+        queryBudget.perform(restZooMockMvc, put("/api/animal/place")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(TestUtil.convertObjectToJsonBytes(inputRequest)))
+                .content(TestUtil.convertObjectToJsonBytes(inputRequest)), QueryBudget.statements(2))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.room.id").value(inputRequest.getRoomId().intValue()))
@@ -179,8 +185,8 @@ public class ZooControllerIT {
 
         assertThat(animal.get().getRoom()).isNotNull();
         // delete Animal from the room associated and expect status 204
-        restZooMockMvc.perform(delete("/api/animal/remove/{id}", 53)
-                .accept(MediaType.APPLICATION_JSON))
+        queryBudget.perform(restZooMockMvc, delete("/api/animal/remove/{id}", 53)
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.statements(1))
                 .andExpect(status().isNoContent());
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
             @Override
@@ -207,9 +213,10 @@ public class ZooControllerIT {
     public void assignFavorite() throws Exception {
         InputRequest inputRequest = new InputRequest(52L, 3L);
         // assign room as favorite for the given animal and expect status 200
-        restZooMockMvc.perform(post("/api/favorite/assign")
+        // the checks of animal, room and favorite, the animal with its room and favorites, the sequence and the insert
+        queryBudget.perform(restZooMockMvc, post("/api/favorite/assign")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(TestUtil.convertObjectToJsonBytes(inputRequest)))
+                .content(TestUtil.convertObjectToJsonBytes(inputRequest)), QueryBudget.statements(6))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id").value(inputRequest.getAnimalId().intValue()))
@@ -256,9 +263,10 @@ public class ZooControllerIT {
     public void unAssignFavorite() throws Exception {
         InputRequest inputRequest = new InputRequest(52L, 3L);
         // unassign room as favorite for the given animal and expect status 200
-        restZooMockMvc.perform(delete("/api/favorite/unassign")
+        // Favorite.animal is eager, loading the favorite fetches its animal before the animal is read with its favorites
+        queryBudget.perform(restZooMockMvc, delete("/api/favorite/unassign")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(TestUtil.convertObjectToJsonBytes(inputRequest)))
+                .content(TestUtil.convertObjectToJsonBytes(inputRequest)), QueryBudget.statements(6).lazyFetches(1))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id").value(inputRequest.getAnimalId().intValue()));
@@ -15,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -77,10 +78,15 @@ public class ZooControllerWithSercurityIT {
         request.setPassword("admin");
 
 
-        return jwtAuthenticateMvcMock
+        MvcResult asyncResult = jwtAuthenticateMvcMock
                 .perform(post("/authenticate")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(TestUtil.convertObjectToJsonBytes(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return jwtAuthenticateMvcMock
+                .perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
                 .andReturn();
     }
@@ -0,0 +1,84 @@
+package com.java.zoo.web.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.zoo.service.DataLoadStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link DataLoadGateFilter}.
+ */
+public class DataLoadGateFilterTest {
+
+    private DataLoadStatus dataLoadStatus;
+
+    private DataLoadGateFilter filter;
+
+    @BeforeEach
+    public void init() {
+        dataLoadStatus = new DataLoadStatus();
+        filter = new DataLoadGateFilter(dataLoadStatus, new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 5L);
+    }
+
+    private MockHttpServletResponse doFilter(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    public void apiIsRejectedWhileLoading() throws Exception {
+        dataLoadStatus.start(DataLoadStatus.Phase.ROOMS, 200);
+        dataLoadStatus.progress(50);
+
+        MockHttpServletResponse response = doFilter("/api/rooms");
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        assertThat(response.getContentAsString()).contains("ROOMS 25%");
+    }
+
+    @Test
+    public void failedLoadIsNotRetryable() throws Exception {
+        dataLoadStatus.start(DataLoadStatus.Phase.ANIMALS, 100);
+        dataLoadStatus.failed(new IllegalStateException("broken file"));
+
+        MockHttpServletResponse response = doFilter("/api/rooms");
+
+        assertThat(response.getStatus()).isEqualTo(500);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNull();
+        assertThat(response.getContentAsString()).contains("data-load-failed").doesNotContain("broken file");
+        assertThat(doFilter("/authenticate").getStatus()).isEqualTo(500);
+    }
+
+    @Test
+    public void authenticateOpensOnceUsersAreLoaded() throws Exception {
+        dataLoadStatus.start(DataLoadStatus.Phase.USERS, 100);
+        assertThat(doFilter("/authenticate").getStatus()).isEqualTo(503);
+
+        dataLoadStatus.start(DataLoadStatus.Phase.ANIMALS, 100);
+        assertThat(doFilter("/authenticate").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void healthIsNeverGated() throws Exception {
+        assertThat(doFilter("/actuator/health/readiness").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void everythingPassesOnceReady() throws Exception {
+        dataLoadStatus.ready();
+
+        assertThat(doFilter("/api/rooms").getStatus()).isEqualTo(200);
+        assertThat(dataLoadStatus.getPercent()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,43 @@
+package com.java.zoo.web.health;
+
+import com.java.zoo.service.DataLoadStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link DataLoadHealthIndicator}.
+ */
+public class DataLoadHealthIndicatorTest {
+
+    private final DataLoadStatus dataLoadStatus = new DataLoadStatus();
+
+    private final DataLoadHealthIndicator healthIndicator = new DataLoadHealthIndicator(dataLoadStatus);
+
+    @Test
+    public void outOfServiceWhileLoading() {
+        dataLoadStatus.start(DataLoadStatus.Phase.USERS, 100);
+
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    public void downOnceTheLoadFailed() {
+        dataLoadStatus.start(DataLoadStatus.Phase.ROOMS, 100);
+        dataLoadStatus.failed(new IllegalStateException("broken file"));
+
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("phase", DataLoadStatus.Phase.FAILED).containsEntry("error", "broken file");
+    }
+
+    @Test
+    public void upOnceReady() {
+        dataLoadStatus.ready();
+
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
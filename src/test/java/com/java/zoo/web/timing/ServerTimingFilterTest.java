@@ -0,0 +1,91 @@
+package com.java.zoo.web.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link ServerTimingFilter}, with the {@link ServerTimingJsonConverter} and
+ * {@link StatementTimingListener} recording into it.
+ */
+public class ServerTimingFilterTest {
+
+    private ServerTimingFilter filter;
+
+    private final ServerTimingJsonConverter converter = new ServerTimingJsonConverter(new ObjectMapper());
+
+    @BeforeEach
+    public void init() {
+        filter = new ServerTimingFilter();
+        ReflectionTestUtils.setField(filter, "samplePercent", 100.0);
+    }
+
+    private MockHttpServletResponse doFilter(String path, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /**
+     * A handler which runs two statements and answers a JSON body, the way a controller would.
+     */
+    private void handle(ServletRequest request, ServletResponse response) throws IOException {
+        StatementTimingListener listener = new StatementTimingListener();
+        for (int i = 0; i < 2; i++) {
+            listener.jdbcPrepareStatementEnd();
+            listener.jdbcExecuteStatementStart();
+            listener.jdbcExecuteStatementEnd();
+        }
+        converter.write(Collections.singletonMap("title", "Green"), MediaType.APPLICATION_JSON,
+                new ServletServerHttpResponse((HttpServletResponse) response));
+    }
+
+    @Test
+    public void jsonResponseCarriesTheTimingOfTheRequest() throws Exception {
+        MockHttpServletResponse response = doFilter("/api/rooms", this::handle);
+
+        String header = response.getHeader(ServerTiming.HEADER);
+        assertThat(header).startsWith("jwt;dur=").contains("db;dur=", "sql;desc=\"2 statements\"", "ser;dur=", "total;dur=");
+        assertThat(response.getContentAsString()).isEqualTo("{\"title\":\"Green\"}");
+        assertThat(ServerTiming.current()).isNull();
+    }
+
+    @Test
+    public void responseWithoutBodyGetsTheHeaderFromTheFilter() throws Exception {
+        MockHttpServletResponse response = doFilter("/api/rooms/1", (request, servletResponse) -> {
+            ServerTiming.record(ServerTiming.Metric.USER, System.nanoTime());
+            ((HttpServletResponse) servletResponse).setStatus(204);
+        });
+
+        assertThat(response.getHeader(ServerTiming.HEADER)).contains("user;dur=", "sql;desc=\"0 statements\"");
+    }
+
+    @Test
+    public void requestsWhichAreNotSampledAreNotTimed() throws Exception {
+        ReflectionTestUtils.setField(filter, "samplePercent", 0.0);
+        MockHttpServletResponse response = doFilter("/api/rooms", this::handle);
+
+        assertThat(response.getHeader(ServerTiming.HEADER)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"title\":\"Green\"}");
+    }
+
+    @Test
+    public void onlyTheApiIsTimed() throws Exception {
+        assertThat(doFilter("/management/health", this::handle).getHeader(ServerTiming.HEADER)).isNull();
+    }
+}
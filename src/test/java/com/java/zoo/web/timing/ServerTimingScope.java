@@ -0,0 +1,19 @@
+package com.java.zoo.web.timing;
+
+/**
+ * Binds a {@link ServerTiming} to the test thread outside of {@link ServerTimingFilter}, so the statements a MockMvc
+ * request runs on that thread are timed by the {@link StatementTimingListener} whether or not it is sampled.
+ */
+public final class ServerTimingScope {
+
+    private ServerTimingScope() {
+    }
+
+    public static ServerTiming start() {
+        return ServerTiming.start();
+    }
+
+    public static void end() {
+        ServerTiming.end();
+    }
+}
@@ -0,0 +1,80 @@
+package com.java.zoo.web.util;
+
+/**
+ * The most database work one request to an endpoint may do, checked by {@link QueryBudgetExtension}.
+ * <p>
+ * Only the number of statements is required. Query rows and database time are unlimited unless set; lazy fetches,
+ * the selects that initialize a proxy or a collection such as {@code Room.animals} one by one, default to none.
+ * <p>
+ * Query rows only cover HQL/JPQL queries, an entity loaded by id or a collection initialized is counted by the
+ * statements and lazy fetches instead. Database time covers every statement the request ran.
+ */
+public final class QueryBudget {
+
+    private final long statements;
+
+    private final long queryRows;
+
+    private final long lazyFetches;
+
+    private final long dbTimeMs;
+
+    private QueryBudget(long statements, long queryRows, long lazyFetches, long dbTimeMs) {
+        this.statements = statements;
+        this.queryRows = queryRows;
+        this.lazyFetches = lazyFetches;
+        this.dbTimeMs = dbTimeMs;
+    }
+
+    /**
+     * @param statements the most prepared statements, selects and updates alike.
+     */
+    public static QueryBudget statements(long statements) {
+        return new QueryBudget(statements, Long.MAX_VALUE, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param queryRows the most rows returned by the HQL/JPQL queries.
+     */
+    public QueryBudget queryRows(long queryRows) {
+        return new QueryBudget(statements, queryRows, lazyFetches, dbTimeMs);
+    }
+
+    /**
+     * @param lazyFetches the most selects initializing a lazy association.
+     */
+    public QueryBudget lazyFetches(long lazyFetches) {
+        return new QueryBudget(statements, queryRows, lazyFetches, dbTimeMs);
+    }
+
+    /**
+     * @param dbTimeMs the most milliseconds spent executing statements, queries, loads and batches alike.
+     */
+    public QueryBudget dbTimeMs(long dbTimeMs) {
+        return new QueryBudget(statements, queryRows, lazyFetches, dbTimeMs);
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getQueryRows() {
+        return queryRows;
+    }
+
+    public long getLazyFetches() {
+        return lazyFetches;
+    }
+
+    public long getDbTimeMs() {
+        return dbTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "statements<=" + statements
+                + (queryRows == Long.MAX_VALUE ? "" : " queryRows<=" + queryRows)
+                + " lazyFetches<=" + lazyFetches
+                + (dbTimeMs == Long.MAX_VALUE ? "" : " dbTimeMs<=" + dbTimeMs);
+    }
+}
@@ -0,0 +1,158 @@
+package com.java.zoo.web.util;
+
+import com.java.zoo.web.timing.ServerTiming;
+import com.java.zoo.web.timing.ServerTimingScope;
+import com.java.zoo.web.timing.StatementTimingListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements, query rows and lazy fetches of each MockMvc request from the Hibernate statistics and times
+ * its statements through the {@link StatementTimingListener}, fails the test when a request goes over the
+ * {@link QueryBudget} declared for it, and logs a report per endpoint after the test class.
+ * <p>
+ * Query rows only cover HQL/JPQL queries, loads by id and collection loads show in the statements and lazy fetches.
+ * The database time covers every statement executed on the test thread, loads and JDBC batches included.
+ * <p>
+ * Registered as a static field of a {@code @SpringBootTest} class:
+ * <pre>
+ * &#64;RegisterExtension
+ * static QueryBudgetExtension queryBudget = new QueryBudgetExtension();
+ *
+ * queryBudget.perform(restMockMvc, get("/api/rooms"), QueryBudget.statements(1));
+ * </pre>
+ * The statistics are global, so the counts include anything else the application runs during the request; the
+ * tests do not run in parallel and the background jobs are disabled in the test configuration.
+ */
+public class QueryBudgetExtension implements BeforeAllCallback, AfterAllCallback {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetExtension.class);
+
+    private final Map<String, EndpointReport> endpoints = new TreeMap<>();
+
+    private Statistics statistics;
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        EntityManagerFactory entityManagerFactory = SpringExtension.getApplicationContext(context).getBean(EntityManagerFactory.class);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            throw new IllegalStateException("Query budgets need hibernate.generate_statistics: true");
+        }
+        if (!String.valueOf(entityManagerFactory.getProperties().get("hibernate.session.events.auto"))
+                .contains(StatementTimingListener.class.getName())) {
+            throw new IllegalStateException("Query budgets need hibernate.session.events.auto: " + StatementTimingListener.class.getName());
+        }
+        endpoints.clear();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (endpoints.isEmpty()) {
+            return;
+        }
+        StringBuilder report = new StringBuilder(String.format("Query budgets of %s%n", context.getDisplayName()));
+        report.append(String.format("%-45s %5s %10s %9s %11s %8s  %s%n",
+                "endpoint", "calls", "statements", "queryRows", "lazyFetches", "dbTimeMs", "budget"));
+        endpoints.forEach((endpoint, endpointReport) -> report.append(String.format("%-45s %5d %10d %9d %11d %8d  %s%s%n",
+                endpoint, endpointReport.calls, endpointReport.statements, endpointReport.queryRows, endpointReport.lazyFetches,
+                endpointReport.dbTimeMs, endpointReport.budget, endpointReport.exceeded ? " EXCEEDED" : "")));
+        log.info(report.toString());
+    }
+
+    /**
+     * Perform the request and check what it cost against the budget.
+     *
+     * @return the result of the request, for further expectations.
+     * @throws AssertionError if the request went over the budget.
+     */
+    public ResultActions perform(MockMvc mockMvc, RequestBuilder request, QueryBudget budget) throws Exception {
+        if (statistics == null) {
+            throw new IllegalStateException("QueryBudgetExtension must be registered with @RegisterExtension on a static field");
+        }
+        statistics.clear();
+        ServerTiming timing = ServerTimingScope.start();
+        ResultActions result;
+        try {
+            result = mockMvc.perform(request);
+        } finally {
+            ServerTimingScope.end();
+        }
+        long statements = statistics.getPrepareStatementCount();
+        long lazyFetches = statistics.getEntityFetchCount() + statistics.getCollectionFetchCount();
+        long queryRows = 0;
+        for (String query : statistics.getQueries()) {
+            queryRows += statistics.getQueryStatistics(query).getExecutionRowCount();
+        }
+        long dbTimeMs = TimeUnit.NANOSECONDS.toMillis(timing.getNanos(ServerTiming.Metric.DB));
+
+        String endpoint = endpoint(result.andReturn());
+        boolean exceeded = statements > budget.getStatements() || queryRows > budget.getQueryRows()
+                || lazyFetches > budget.getLazyFetches() || dbTimeMs > budget.getDbTimeMs();
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointReport()).add(statements, queryRows, lazyFetches, dbTimeMs, budget, exceeded);
+
+        assertThat(statements).as("statements of %s", endpoint).isLessThanOrEqualTo(budget.getStatements());
+        assertThat(queryRows).as("query rows of %s", endpoint).isLessThanOrEqualTo(budget.getQueryRows());
+        assertThat(lazyFetches).as("lazy fetches of %s", endpoint).isLessThanOrEqualTo(budget.getLazyFetches());
+        assertThat(dbTimeMs).as("database time of %s", endpoint).isLessThanOrEqualTo(budget.getDbTimeMs());
+        return result;
+    }
+
+    /**
+     * The method and the mapping pattern of the handler, such as {@code GET /api/rooms/{id}}, or the path if none matched.
+     */
+    private static String endpoint(MvcResult result) {
+        HttpServletRequest request = result.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern);
+    }
+
+    /**
+     * The worst request of an endpoint, and the budget it was last checked against.
+     */
+    private static final class EndpointReport {
+
+        private int calls;
+
+        private long statements;
+
+        private long queryRows;
+
+        private long lazyFetches;
+
+        private long dbTimeMs;
+
+        private QueryBudget budget;
+
+        private boolean exceeded;
+
+        private void add(long statements, long queryRows, long lazyFetches, long dbTimeMs, QueryBudget budget, boolean exceeded) {
+            calls++;
+            this.statements = Math.max(this.statements, statements);
+            this.queryRows = Math.max(this.queryRows, queryRows);
+            this.lazyFetches = Math.max(this.lazyFetches, lazyFetches);
+            this.dbTimeMs = Math.max(this.dbTimeMs, dbTimeMs);
+            this.budget = budget;
+            this.exceeded |= exceeded;
+        }
+    }
+}